@@ -0,0 +1,244 @@
+package gaarason.database.appointment;
+
+import gaarason.database.exception.AbnormalParameterException;
+import gaarason.database.lang.Nullable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 游标分页对象 (keyset)
+ * @param <T> 分页中的具体数据类型
+ * @author xt
+ */
+public class CursorPaginate<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 每页数量
+     */
+    protected final int perPage;
+
+    /**
+     * 当前页的具体数据
+     */
+    protected final List<T> itemList;
+
+    /**
+     * 下一页的游标, 没有下一页时为 null
+     */
+    @Nullable
+    protected final String nextCursor;
+
+    /**
+     * 上一页的游标, 没有上一页时为 null
+     */
+    @Nullable
+    protected final String previousCursor;
+
+    /**
+     * 构建分页
+     * @param itemList 当前页的具体数据
+     * @param perPage 每页数量
+     * @param nextCursor 下一页的游标
+     * @param previousCursor 上一页的游标
+     */
+    public CursorPaginate(List<T> itemList, int perPage, @Nullable String nextCursor,
+        @Nullable String previousCursor) {
+        this.itemList = itemList;
+        this.perPage = perPage;
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+    }
+
+    public int getPerPage() {
+        return perPage;
+    }
+
+    public List<T> getItemList() {
+        return itemList;
+    }
+
+    @Nullable
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Nullable
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "CursorPaginate{" + "perPage=" + perPage + ", nextCursor='" + nextCursor + '\'' +
+            ", previousCursor='" + previousCursor + '\'' + ", itemList=" + itemList + '}';
+    }
+
+    /**
+     * 游标
+     * 记录翻页方向以及边界行的排序列的值, 编码为 url 安全的字符串
+     * 仅包含值以及类型标识, 解码时不进行反序列化
+     */
+    public static class Cursor {
+
+        private static final char NEXT = 'n';
+
+        private static final char PREVIOUS = 'p';
+
+        /**
+         * 是否向后翻页
+         */
+        protected final boolean next;
+
+        /**
+         * 边界行的排序列的值, 与排序列一一对应
+         */
+        protected final List<Object> values;
+
+        public Cursor(boolean next, List<Object> values) {
+            this.next = next;
+            this.values = Collections.unmodifiableList(values);
+        }
+
+        public boolean isNext() {
+            return next;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+
+        /**
+         * 编码
+         * @return 游标字符串
+         * @throws AbnormalParameterException 排序列的值为 null 时
+         */
+        public String encode() {
+            StringBuilder sb = new StringBuilder().append(next ? NEXT : PREVIOUS);
+            for (Object value : values) {
+                if (value == null) {
+                    throw new AbnormalParameterException(
+                        "Cursor pagination does not support null values in order columns.");
+                }
+                char type;
+                String text;
+                if (value instanceof Long) {
+                    type = 'l';
+                    text = value.toString();
+                } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                    type = 'i';
+                    text = value.toString();
+                } else if (value instanceof BigInteger) {
+                    type = 'B';
+                    text = value.toString();
+                } else if (value instanceof BigDecimal) {
+                    type = 'm';
+                    text = ((BigDecimal) value).toString();
+                } else if (value instanceof Double || value instanceof Float) {
+                    type = 'f';
+                    text = value.toString();
+                } else if (value instanceof Boolean) {
+                    type = 'b';
+                    text = value.toString();
+                } else if (value instanceof LocalDateTime) {
+                    type = 't';
+                    text = value.toString();
+                } else if (value instanceof LocalDate) {
+                    type = 'd';
+                    text = value.toString();
+                } else if (value instanceof LocalTime) {
+                    type = 'h';
+                    text = value.toString();
+                } else if (value instanceof Timestamp) {
+                    type = 'p';
+                    text = value.toString();
+                } else if (value instanceof Date) {
+                    type = 'u';
+                    text = String.valueOf(((Date) value).getTime());
+                } else {
+                    type = 's';
+                    text = value.toString();
+                }
+                sb.append(type).append(text.length()).append(':').append(text);
+            }
+            return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 解码
+         * @param cursor 游标字符串
+         * @return 游标
+         * @throws AbnormalParameterException 游标格式错误
+         */
+        public static Cursor decode(String cursor) {
+            try {
+                String text = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                char direction = text.charAt(0);
+                if (direction != NEXT && direction != PREVIOUS) {
+                    throw new AbnormalParameterException("Invalid cursor [" + cursor + "].");
+                }
+                List<Object> values = new ArrayList<>();
+                int index = 1;
+                while (index < text.length()) {
+                    char type = text.charAt(index);
+                    int colon = text.indexOf(':', index + 1);
+                    int length = Integer.parseInt(text.substring(index + 1, colon));
+                    String value = text.substring(colon + 1, colon + 1 + length);
+                    values.add(parse(type, value));
+                    index = colon + 1 + length;
+                }
+                return new Cursor(direction == NEXT, values);
+            } catch (AbnormalParameterException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new AbnormalParameterException("Invalid cursor [" + cursor + "].");
+            }
+        }
+
+        private static Object parse(char type, String value) {
+            switch (type) {
+                case 'l':
+                    return Long.valueOf(value);
+                case 'i':
+                    return Integer.valueOf(value);
+                case 'B':
+                    return new BigInteger(value);
+                case 'm':
+                    return new BigDecimal(value);
+                case 'f':
+                    return Double.valueOf(value);
+                case 'b':
+                    return Boolean.valueOf(value);
+                case 't':
+                    return LocalDateTime.parse(value);
+                case 'd':
+                    return LocalDate.parse(value);
+                case 'h':
+                    return LocalTime.parse(value);
+                case 'p':
+                    return Timestamp.valueOf(value);
+                case 'u':
+                    return new Timestamp(Long.parseLong(value));
+                case 's':
+                    return value;
+                default:
+                    throw new AbnormalParameterException("Invalid cursor value type [" + type + "].");
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package gaarason.database.appointment;
+
+import gaarason.database.lang.Nullable;
+
+import java.util.Map;
+
+/**
+ * 标识映射 (identity map)
+ * 在显式开启的作用域内, 按模型以及主键缓存已查询的记录 (存放于 RelationCache), 减少重复查询
+ * 作用域与线程绑定, 在事务闭包中开启即为事务作用域
+ * 事务回滚时, 作用域内的全部记录将被清除, 以免沿用回滚前读取的记录
+ * eg: try (IdentityMap.Scope ignored = IdentityMap.open()) { ... }
+ * @author xt
+ */
+public class IdentityMap {
+
+    /**
+     * 当前线程的作用域
+     */
+    private static final ThreadLocal<IdentityMap> CURRENT = new ThreadLocal<>();
+
+    /**
+     * 记录缓存
+     */
+    protected final RelationCache relationCache = new RelationCache();
+
+    /**
+     * 开启作用域
+     * 当前线程已存在作用域时, 沿用已存在的作用域, 关闭时也不会将其关闭
+     * @return 作用域
+     */
+    public static Scope open() {
+        IdentityMap identityMap = CURRENT.get();
+        if (identityMap != null) {
+            return new Scope(identityMap);
+        }
+        CURRENT.set(new IdentityMap());
+        return new Scope(null);
+    }
+
+    /**
+     * 在当前线程中加入指定的作用域 (eg: 并发执行时, 传递至其他线程)
+     * @param identityMap 作用域, 为 null 时不做处理
+     * @return 作用域, 关闭时恢复当前线程原有的作用域
+     */
+    public static Scope join(@Nullable IdentityMap identityMap) {
+        IdentityMap previous = CURRENT.get();
+        if (identityMap == null || identityMap == previous) {
+            return new Scope(previous);
+        }
+        CURRENT.set(identityMap);
+        return new Scope(previous);
+    }
+
+    /**
+     * 当前线程的作用域
+     * @return 作用域, 未开启时为 null
+     */
+    @Nullable
+    public static IdentityMap current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 获取记录的元数据
+     * @param modelClass 模型类
+     * @param primaryKeyValue 主键值
+     * @return 元数据, 不存在时为 null
+     */
+    @Nullable
+    public Map<String, Object> getRecord(Class<?> modelClass, @Nullable Object primaryKeyValue) {
+        return relationCache.getRecord(modelClass, primaryKeyValue);
+    }
+
+    /**
+     * 记录元数据
+     * @param modelClass 模型类
+     * @param primaryKeyValue 主键值
+     * @param metadata 元数据 (需为完整的记录)
+     */
+    public void putRecord(Class<?> modelClass, @Nullable Object primaryKeyValue, Map<String, Object> metadata) {
+        relationCache.putRecord(modelClass, primaryKeyValue, metadata);
+    }
+
+    /**
+     * 移除模型的全部记录 (eg: 发生更新时)
+     * @param modelClass 模型类
+     */
+    public void evict(Class<?> modelClass) {
+        relationCache.evict(modelClass);
+    }
+
+    /**
+     * 移除全部记录 (eg: 事务回滚时)
+     */
+    public void evictAll() {
+        relationCache.evictAll();
+    }
+
+    /**
+     * 作用域
+     */
+    public static final class Scope implements AutoCloseable {
+
+        /**
+         * 关闭时需要恢复的作用域
+         */
+        @Nullable
+        private final IdentityMap previous;
+
+        private Scope(@Nullable IdentityMap previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -1,39 +1,100 @@
 package gaarason.database.appointment;
 
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.lang.Nullable;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 关联关系中的的缓存对象
+ * 按模型以及主键缓存已查询的记录, 由 IdentityMap 持有并管理其作用域
+ * @see IdentityMap
  */
 public class RelationCache {
 
+    /**
+     * 模型类 -> 主键值 -> 元数据
+     */
+    protected final Map<Class<?>, Map<String, Map<String, Object>>> records = new ConcurrentHashMap<>();
+
     /**
      * 查询结果集缓存
      * 用于优化 (减少) sql 查询量
+     * @deprecated 未使用, 记录缓存参考 getRecord / putRecord
      */
+    @Deprecated
     public final Map<String, RecordList<?, ?>> cacheRelationRecordList = new HashMap<>();
 
     /**
      * 对象缓存
      * 用于优化 查询结果到对象的转化耗时
+     * @deprecated 未使用
      */
+    @Deprecated
     public final Map<String, List<?>> cacheRelationObjectList = new HashMap<>();
 
     /**
      * 对象缓存
      * 用于优化 对象拷贝转化耗时
+     * @deprecated 未使用
      */
+    @Deprecated
     public final Map<String, List<?>> cacheDeepCopyObjectList = new HashMap<>();
 
     /**
      * 当前执行层级
      * 以确保 cacheRelationObjectList 命中的准确性
+     * @deprecated 未使用
      */
+    @Deprecated
     public final AtomicInteger level = new AtomicInteger();
 
+    /**
+     * 获取记录的元数据
+     * @param modelClass 模型类
+     * @param primaryKeyValue 主键值
+     * @return 元数据, 不存在时为 null
+     */
+    @Nullable
+    public Map<String, Object> getRecord(Class<?> modelClass, @Nullable Object primaryKeyValue) {
+        if (primaryKeyValue == null) {
+            return null;
+        }
+        Map<String, Map<String, Object>> modelRecords = records.get(modelClass);
+        return modelRecords == null ? null : modelRecords.get(primaryKeyValue.toString());
+    }
+
+    /**
+     * 记录元数据
+     * @param modelClass 模型类
+     * @param primaryKeyValue 主键值
+     * @param metadata 元数据 (需为完整的记录)
+     */
+    public void putRecord(Class<?> modelClass, @Nullable Object primaryKeyValue, Map<String, Object> metadata) {
+        if (primaryKeyValue == null) {
+            return;
+        }
+        records.computeIfAbsent(modelClass, k -> new ConcurrentHashMap<>())
+            .put(primaryKeyValue.toString(), metadata);
+    }
+
+    /**
+     * 移除模型的全部记录 (eg: 发生更新时)
+     * @param modelClass 模型类
+     */
+    public void evict(Class<?> modelClass) {
+        records.remove(modelClass);
+    }
+
+    /**
+     * 移除全部记录 (eg: 事务回滚时)
+     */
+    public void evictAll() {
+        records.clear();
+    }
+
 }
@@ -0,0 +1,219 @@
+package gaarason.database.appointment;
+
+import gaarason.database.config.ConversionConfig;
+import gaarason.database.lang.Nullable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 统计汇总对象 (数量, 总和, 最小值, 最大值, 平均值)
+ * 空值按 0 计算, 与集合的 sum/max/min/avg 保持一致; 空集合时最小值与最大值同 max/min 一样为 0
+ * @author xt
+ */
+public class Summary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 数量
+     */
+    protected final int count;
+
+    /**
+     * 总和
+     */
+    protected final BigDecimal sum;
+
+    /**
+     * 最小值
+     */
+    protected final BigDecimal min;
+
+    /**
+     * 最大值
+     */
+    protected final BigDecimal max;
+
+    /**
+     * 平均值
+     */
+    protected final BigDecimal avg;
+
+    public Summary(int count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.avg = count == 0 ? BigDecimal.ZERO : sum.divide(new BigDecimal(count), RoundingMode.HALF_UP);
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public BigDecimal getSum() {
+        return sum;
+    }
+
+    public BigDecimal getMin() {
+        return min;
+    }
+
+    public BigDecimal getMax() {
+        return max;
+    }
+
+    public BigDecimal getAvg() {
+        return avg;
+    }
+
+    @Override
+    public String toString() {
+        return "Summary{" + "count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max + ", avg=" + avg + '}';
+    }
+
+    /**
+     * 单次遍历的统计累加器, 非线程安全
+     * 整数使用 long 累加 (溢出时转为 BigDecimal), Double 使用 double 累加, 其他类型使用 BigDecimal 累加
+     * Float 按其十进制字符串转为 BigDecimal (eg: 0.1f 即 0.1), 与 sum() 的类型转化一致, 而非拓宽为 double
+     * 注意 : Double 的总和按 double 精度计算, 末位可能与 sum() 的 BigDecimal 累加不同
+     */
+    public static class Accumulator {
+
+        private static final int MODE_LONG = 0;
+
+        private static final int MODE_DOUBLE = 1;
+
+        private static final int MODE_DECIMAL = 2;
+
+        /**
+         * 类型转化
+         */
+        private final ConversionConfig conversionConfig;
+
+        /**
+         * 当前累加方式
+         */
+        private int mode = MODE_LONG;
+
+        private int count;
+
+        private long longSum;
+
+        private long longMin;
+
+        private long longMax;
+
+        private double doubleSum;
+
+        private double doubleMin;
+
+        private double doubleMax;
+
+        private BigDecimal decimalSum = BigDecimal.ZERO;
+
+        private BigDecimal decimalMin = BigDecimal.ZERO;
+
+        private BigDecimal decimalMax = BigDecimal.ZERO;
+
+        public Accumulator(ConversionConfig conversionConfig) {
+            this.conversionConfig = conversionConfig;
+        }
+
+        /**
+         * 累加
+         * @param value 值, 空值按 0 计算
+         */
+        public void accept(@Nullable Object value) {
+            if (value == null || "".equals(value)) {
+                acceptLong(0);
+            } else if (value instanceof Long || value instanceof Integer || value instanceof Short ||
+                value instanceof Byte) {
+                acceptLong(((Number) value).longValue());
+            } else if (value instanceof Double) {
+                acceptDouble((Double) value);
+            } else if (value instanceof Float) {
+                acceptDecimal(new BigDecimal(value.toString()));
+            } else {
+                acceptDecimal(conversionConfig.cast(value, BigDecimal.class));
+            }
+            count++;
+        }
+
+        /**
+         * 生成统计汇总
+         * @return 统计汇总
+         */
+        public Summary toSummary() {
+            switch (mode) {
+                case MODE_LONG:
+                    return new Summary(count, BigDecimal.valueOf(longSum), BigDecimal.valueOf(longMin),
+                        BigDecimal.valueOf(longMax));
+                case MODE_DOUBLE:
+                    return new Summary(count, BigDecimal.valueOf(doubleSum), BigDecimal.valueOf(doubleMin),
+                        BigDecimal.valueOf(doubleMax));
+                default:
+                    return new Summary(count, decimalSum, decimalMin, decimalMax);
+            }
+        }
+
+        private void acceptLong(long value) {
+            if (mode == MODE_LONG) {
+                try {
+                    longSum = Math.addExact(longSum, value);
+                } catch (ArithmeticException e) {
+                    // 溢出
+                    toDecimalMode();
+                    acceptDecimal(BigDecimal.valueOf(value));
+                    return;
+                }
+                longMin = count == 0 ? value : Math.min(longMin, value);
+                longMax = count == 0 ? value : Math.max(longMax, value);
+            } else if (mode == MODE_DOUBLE) {
+                acceptDouble(value);
+            } else {
+                acceptDecimal(BigDecimal.valueOf(value));
+            }
+        }
+
+        private void acceptDouble(double value) {
+            if (mode == MODE_LONG) {
+                doubleSum = longSum;
+                doubleMin = longMin;
+                doubleMax = longMax;
+                mode = MODE_DOUBLE;
+            }
+            if (mode == MODE_DOUBLE) {
+                doubleSum += value;
+                doubleMin = count == 0 ? value : Math.min(doubleMin, value);
+                doubleMax = count == 0 ? value : Math.max(doubleMax, value);
+            } else {
+                acceptDecimal(BigDecimal.valueOf(value));
+            }
+        }
+
+        private void acceptDecimal(BigDecimal value) {
+            if (mode != MODE_DECIMAL) {
+                toDecimalMode();
+            }
+            decimalSum = decimalSum.add(value);
+            decimalMin = count == 0 ? value : decimalMin.min(value);
+            decimalMax = count == 0 ? value : decimalMax.max(value);
+        }
+
+        private void toDecimalMode() {
+            if (mode == MODE_LONG) {
+                decimalSum = BigDecimal.valueOf(longSum);
+                decimalMin = BigDecimal.valueOf(longMin);
+                decimalMax = BigDecimal.valueOf(longMax);
+            } else if (mode == MODE_DOUBLE) {
+                decimalSum = BigDecimal.valueOf(doubleSum);
+                decimalMin = BigDecimal.valueOf(doubleMin);
+                decimalMax = BigDecimal.valueOf(doubleMax);
+            }
+            mode = MODE_DECIMAL;
+        }
+    }
+}
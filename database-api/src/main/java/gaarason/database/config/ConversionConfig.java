@@ -58,5 +58,21 @@ public interface ConversionConfig {
     @Nullable
     Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultSet, String column) throws SQLException;
 
+    /**
+     * 根据java类型，获取jdbc中的数据结果
+     * 默认按列名读取, 实现类可按列序号读取以减少查找
+     * @param field field
+     * @param resultSet 结果集
+     * @param columnIndex 列序号(从1开始)
+     * @return 值
+     * @throws SQLException 数据库异常
+     * @see FinalVariable ALLOW_FIELD_TYPES
+     */
+    @Nullable
+    default Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultSet, int columnIndex)
+        throws SQLException {
+        return getValueFromJdbcResultSet(field, resultSet, resultSet.getMetaData().getColumnLabel(columnIndex));
+    }
+
 
 }
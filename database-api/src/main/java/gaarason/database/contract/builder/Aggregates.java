@@ -36,6 +36,20 @@ default Long count(String column) {
         return aggregate(AggregatesType.count, column);
     }
 
+    /**
+     * 是否存在满足条件的记录, 即 select 1 ... limit 1
+     * @return 是否存在
+     */
+    boolean exists();
+
+    /**
+     * 是否不存在满足条件的记录
+     * @return 是否不存在
+     */
+    default boolean doesntExist() {
+        return !exists();
+    }
+
     /**
      * 求最大值
      * @param column 统计字段
@@ -6,11 +6,14 @@
 import gaarason.database.contract.function.ChunkFunctionalInterface;
 import gaarason.database.exception.EntityNotFoundException;
 import gaarason.database.exception.InsertNotSuccessException;
+import gaarason.database.exception.OperationNotSupportedException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * 执行
@@ -61,6 +64,135 @@
      */
     RecordList<T, K> get() throws SQLRuntimeException;
 
+    /**
+     * 获取所有数据, 直接转化为实体对象
+     * 在没有关联关系(with)时, 不经过 Record 而直接由结果集生成实体, 性能更好
+     * @return 实体对象列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<T> getObjects() throws SQLRuntimeException;
+
+    /**
+     * 获取第一条数据, 直接转化为实体对象, 数据为空时返回null
+     * @return 实体对象|null
+     * @throws SQLRuntimeException 数据库异常
+     */
+    @Nullable
+    T firstObject() throws SQLRuntimeException;
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * 适合大量id等数值的获取, 不经过 Record
+     * @param column 列名
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    long[] pluckLongs(String column) throws SQLRuntimeException;
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * @param column 列名
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    int[] pluckInts(String column) throws SQLRuntimeException;
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * @param column 列名
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    double[] pluckDoubles(String column) throws SQLRuntimeException;
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取
+     * @param column 列名
+     * @return 值列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<String> pluckStrings(String column) throws SQLRuntimeException;
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取, 并转化为指定类型
+     * @param column 列名
+     * @param type 值类型
+     * @param <V> 值类型
+     * @return 值列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    <V> List<V> pluck(String column, Class<V> type) throws SQLRuntimeException;
+
+    /**
+     * 流式获取所有数据, 使用当前数据库推荐的获取方式 (mysql 下为逐行流式获取)
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @return 数剧记录流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    Stream<Record<T, K>> cursor() throws SQLRuntimeException, OperationNotSupportedException;
+
+    /**
+     * 流式获取所有数据
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @param fetchSize 单次从数据库获取的行数
+     * @return 数剧记录流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    Stream<Record<T, K>> stream(int fetchSize) throws SQLRuntimeException, OperationNotSupportedException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为指定类型的对象, 使用当前数据库推荐的获取方式
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @param clazz 目标类型 (为当前实体类型时, 直接由结果集赋值, 不经过 Record)
+     * @param <V> 目标类型
+     * @return 对象流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    <V> Stream<V> cursorAs(Class<V> clazz) throws SQLRuntimeException, OperationNotSupportedException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为指定类型的对象
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @param clazz 目标类型 (为当前实体类型时, 直接由结果集赋值, 不经过 Record)
+     * @param fetchSize 单次从数据库获取的行数
+     * @param <V> 目标类型
+     * @return 对象流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    <V> Stream<V> streamAs(Class<V> clazz, int fetchSize) throws SQLRuntimeException, OperationNotSupportedException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为通用map, 使用当前数据库推荐的获取方式
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @return map流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    Stream<Map<String, Object>> cursorMap() throws SQLRuntimeException, OperationNotSupportedException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为通用map
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * 不支持关联关系(with), 也不触发查询事件, 需要时请使用 dealChunk
+     * @param fetchSize 单次从数据库获取的行数
+     * @return map流
+     * @throws SQLRuntimeException 数据库异常
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    Stream<Map<String, Object>> streamMap(int fetchSize) throws SQLRuntimeException, OperationNotSupportedException;
+
     /**
      * 分块获取所有数据(兼容性强), 并处理
      * @param num 单次获取的数据量
@@ -134,6 +266,25 @@ void dealChunk(int num, String column, ChunkFunctionalInterface<T, K> chunkFunct
      */
     List<K> insertGetIds() throws SQLRuntimeException;
 
+    /**
+     * 批量插入数据 (JDBC batch), 同一个连接中, 每 batchSize 行提交一次
+     * 使用第一行生成插入语句, 依次绑定每一行的参数, 各行的结构需要一致
+     * eg : newQuery().values(entities).insertBatch(500);
+     * @param batchSize 单次提交的数量
+     * @return 每一行的受影响的行数 (可能为 Statement.SUCCESS_NO_INFO)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    int[] insertBatch(int batchSize) throws SQLRuntimeException;
+
+    /**
+     * 批量插入数据 (JDBC batch), 同一个连接中, 每 batchSize 行提交一次
+     * 使用第一行生成插入语句, 依次绑定每一行的参数, 各行的结构需要一致
+     * @param batchSize 单次提交的数量
+     * @return 数据库自增id列表 (依赖驱动对批量返回自增主键的支持)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<K> insertBatchGetIds(int batchSize) throws SQLRuntimeException;
+
     /**
      * 更新数据
      * @return 受影响的行数
@@ -141,6 +292,17 @@ void dealChunk(int num, String column, ChunkFunctionalInterface<T, K> chunkFunct
      */
     int update() throws SQLRuntimeException;
 
+    /**
+     * 批量更新数据 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * 使用当前的更新语句, 每组参数按顺序替换语句中的全部绑定参数
+     * eg : newQuery().data("name", "").where("id", 0).updateBatch(parametersList, 500);
+     * @param parametersList 参数绑定列表的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 每次执行的受影响的行数 (可能为 Statement.SUCCESS_NO_INFO)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    int[] updateBatch(Collection<? extends Collection<?>> parametersList, int batchSize) throws SQLRuntimeException;
+
     /**
      * 删除数据(根据模型确定是否使用软删除)
      * @return 受影响的行数
@@ -6,6 +6,7 @@
 import gaarason.database.exception.SQLRuntimeException;
 
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * 执行
@@ -29,6 +30,66 @@ default <F> void dealChunk(int num, ColumnFunctionalInterface<T, F> column,
         dealChunk(num, lambda2ColumnName(column), chunkFunctionalInterface);
     }
 
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * @param column 列名表达式
+     * @param <F> 属性类型
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default <F> long[] pluckLongs(ColumnFunctionalInterface<T, F> column) throws SQLRuntimeException {
+        return pluckLongs(lambda2ColumnName(column));
+    }
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * @param column 列名表达式
+     * @param <F> 属性类型
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default <F> int[] pluckInts(ColumnFunctionalInterface<T, F> column) throws SQLRuntimeException {
+        return pluckInts(lambda2ColumnName(column));
+    }
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取为基本类型数组
+     * 基本类型无法表示 null, 因此 null 值会被跳过, 返回的数组长度可能小于结果集的行数
+     * @param column 列名表达式
+     * @param <F> 属性类型
+     * @return 值数组
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default <F> double[] pluckDoubles(ColumnFunctionalInterface<T, F> column) throws SQLRuntimeException {
+        return pluckDoubles(lambda2ColumnName(column));
+    }
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取
+     * @param column 列名表达式
+     * @param <F> 属性类型
+     * @return 值列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default <F> List<String> pluckStrings(ColumnFunctionalInterface<T, F> column) throws SQLRuntimeException {
+        return pluckStrings(lambda2ColumnName(column));
+    }
+
+    /**
+     * 获取单列的所有值, 直接由结果集读取, 并转化为指定类型
+     * @param column 列名表达式
+     * @param type 值类型
+     * @param <F> 属性类型
+     * @param <V> 值类型
+     * @return 值列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default <F, V> List<V> pluck(ColumnFunctionalInterface<T, F> column, Class<V> type) throws SQLRuntimeException {
+        return pluck(lambda2ColumnName(column), type);
+    }
+
     /**
      * 单个原子操作中更新或创建记录
      * eg : newQuery().column(...).value(...).upsert(...);
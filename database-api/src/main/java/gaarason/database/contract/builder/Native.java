@@ -132,4 +132,26 @@ Record<T, K> queryOrFail(String sql, @Nullable Collection<?> parameters)
      */
     List<K> executeGetIds(String sql, Object... parameters) throws SQLRuntimeException;
 
+    /**
+     * 批量执行语句 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * @param sql 查询语句
+     * @param parametersList 参数绑定列表的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 每次执行的受影响的行数 (可能为 Statement.SUCCESS_NO_INFO)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    int[] executeBatch(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException;
+
+    /**
+     * 批量执行语句 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * @param sql 查询语句
+     * @param parametersList 参数绑定列表的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 自增长主键列表 (依赖驱动对批量返回自增主键的支持)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<K> executeBatchGetIds(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException;
+
 }
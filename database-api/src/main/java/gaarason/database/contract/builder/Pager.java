@@ -1,8 +1,10 @@
 package gaarason.database.contract.builder;
 
+import gaarason.database.appointment.CursorPaginate;
 import gaarason.database.appointment.Paginate;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.exception.SQLRuntimeException;
+import gaarason.database.lang.Nullable;
 
 import java.util.Map;
 
@@ -95,4 +97,15 @@ default Paginate<Map<String, Object>> paginateMapStyle(Object currentPage, Objec
         return paginateMapStyle(conversionToInt(currentPage), conversionToInt(perPage));
     }
 
+    /**
+     * 游标分页 (keyset)
+     * 根据当前的排序列(orderBy)生成查询条件, 并以主键作为最后的排序列, 任意页的查询代价与第一页相同
+     * 排序列只能通过 orderBy(column, type) 指定, 且其值不能为 null
+     * @param perPage 每页数量
+     * @param cursor 游标, 为 null 时查询第一页
+     * @return 分页信息对象
+     * @throws SQLRuntimeException sql错误
+     */
+    CursorPaginate<T> cursorPaginate(int perPage, @Nullable String cursor) throws SQLRuntimeException;
+
 }
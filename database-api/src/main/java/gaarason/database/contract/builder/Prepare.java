@@ -1,9 +1,30 @@
 package gaarason.database.contract.builder;
 
+import gaarason.database.appointment.SqlType;
+import gaarason.database.contract.query.QueryTemplate;
+
 /**
  * 预备
+ * @param <T> 实体类型
+ * @param <K> 主键类型
  * @author xt
  */
-public interface Prepare {
+public interface Prepare<T, K> {
+
+    /**
+     * 生成查询模板 (select)
+     * 当前的查询条件中的值仅用于确定语句结构, 执行时需按顺序重新绑定全部参数
+     * @return 查询模板
+     */
+    default QueryTemplate<T, K> prepareTemplate() {
+        return prepareTemplate(SqlType.SELECT);
+    }
 
+    /**
+     * 生成查询模板
+     * 当前的查询条件中的值仅用于确定语句结构, 执行时需按顺序重新绑定全部参数
+     * @param sqlType 语句类型
+     * @return 查询模板
+     */
+    QueryTemplate<T, K> prepareTemplate(SqlType sqlType);
 }
@@ -393,6 +393,14 @@
      */
     B whereSubQuery(String column, String symbol, BuilderWrapper<B, T, K> closure);
 
+    /**
+     * 当前查询构造器的 in/not in 参数分桶 (优先于全局配置)
+     * 开启后, 参数数量补齐到桶的大小(重复最后一个值), 超过拆分阈值时拆分为多组, 以减少不同的sql
+     * @param bucketing 是否开启
+     * @return 查询构造器
+     */
+    B whereInBucketing(boolean bucketing);
+
     /**
      * 列值在范围内
      * @param column 列名
@@ -76,6 +76,28 @@ default B withMany(String fieldName, BuilderAnyWrapper builderClosure,
         return with(fieldName, builderClosure, recordClosure);
     }
 
+    /**
+     * 渴求式关联 (left join)
+     * 目标与当前记录在同一条sql中查询, 仅适用于目标为单个记录的关联关系 (eg: 非多态的 @BelongsTo)
+     * 不适用时, 与 with 一致
+     * @param fieldName 所关联的Model(当前模块的属性名)
+     * @return 关联的Model的查询构造器
+     */
+    default B withJoin(String fieldName) {
+        return withJoin(fieldName, BuilderAnyWrapper.empty(), RecordWrapper.empty());
+    }
+
+    /**
+     * 渴求式关联 (left join)
+     * 目标与当前记录在同一条sql中查询, 仅适用于目标为单个记录的关联关系 (eg: 非多态的 @BelongsTo)
+     * 不适用时 (包括查询构造器约束中指定了查询列或者再一级关联), 与 with 一致
+     * @param fieldName 所关联的Model(当前模块的属性名)
+     * @param builderClosure 所关联的Model的查询构造器约束
+     * @param recordClosure 所关联的Model的再一级关联
+     * @return 关联的Model的查询构造器
+     */
+    B withJoin(String fieldName, BuilderAnyWrapper builderClosure, RecordWrapper recordClosure);
+
     /**
      * 对关联关系进行操作
      * @param fieldName 关联关系属性名
@@ -92,6 +92,29 @@ default <BB extends Builder<BB, F, Object>, F> B with(ColumnFunctionalInterface<
         return with(lambda2FieldName(fieldName), BuilderAnyWrapper.turn2(builderClosure), recordClosure);
     }
 
+    /**
+     * 渴求式关联 (left join)
+     * @param fieldName 所关联的Model(当前模块的属性名表达式)
+     * @return 关联的Model的查询构造器
+     * @see With#withJoin(String)
+     */
+    default <F> B withJoin(ColumnFunctionalInterface<T, F> fieldName) {
+        return withJoin(lambda2FieldName(fieldName));
+    }
+
+    /**
+     * 渴求式关联 (left join)
+     * @param fieldName 所关联的Model(当前模块的属性名表达式)
+     * @param builderClosure 所关联的Model的查询构造器约束
+     * @param recordClosure 所关联的Model的再一级关联
+     * @return 关联的Model的查询构造器
+     * @see With#withJoin(String, BuilderAnyWrapper, RecordWrapper)
+     */
+    default <BB extends Builder<BB, F, Object>, F> B withJoin(ColumnFunctionalInterface<T, F> fieldName,
+            BuilderWrapper<BB, F, Object> builderClosure, RecordWrapper recordClosure) {
+        return withJoin(lambda2FieldName(fieldName), BuilderAnyWrapper.turn2(builderClosure), recordClosure);
+    }
+
     /**
      * 渴求式关联
      * 对于复数关联关系, 可以正确的预测java类型
@@ -140,6 +140,17 @@ class Relation implements Serializable {
          */
         final public RecordWrapper recordWrapper;
 
+        /**
+         * 是否以 left join 的方式关联 (不适用时, 退化为 where in 的方式)
+         */
+        final public boolean join;
+
+        /**
+         * 以 left join 的方式关联时, 已从当前查询结果中分离的目标表结果集
+         */
+        @Nullable
+        final transient public RecordList<?, ?> joinedRecordList;
+
         public Relation(String relationFieldName, BuilderAnyWrapper operationBuilder,
                 BuilderAnyWrapper customBuilder, RecordWrapper recordWrapper) {
             this.relationOperation = true;
@@ -147,14 +158,33 @@ public Relation(String relationFieldName, BuilderAnyWrapper operationBuilder,
             this.relationFieldName = relationFieldName;
             this.customBuilder = customBuilder;
             this.recordWrapper = recordWrapper;
+            this.join = false;
+            this.joinedRecordList = null;
         }
 
         public Relation(String relationFieldName, BuilderAnyWrapper customBuilder, RecordWrapper recordWrapper) {
+            this(relationFieldName, customBuilder, recordWrapper, false);
+        }
+
+        public Relation(String relationFieldName, BuilderAnyWrapper customBuilder, RecordWrapper recordWrapper,
+                boolean join) {
             this.relationOperation = false;
             this.operationBuilder = BuilderAnyWrapper.empty();
             this.relationFieldName = relationFieldName;
             this.customBuilder = customBuilder;
             this.recordWrapper = recordWrapper;
+            this.join = join;
+            this.joinedRecordList = null;
+        }
+
+        public Relation(String relationFieldName, RecordWrapper recordWrapper, RecordList<?, ?> joinedRecordList) {
+            this.relationOperation = false;
+            this.operationBuilder = BuilderAnyWrapper.empty();
+            this.relationFieldName = relationFieldName;
+            this.customBuilder = BuilderAnyWrapper.empty();
+            this.recordWrapper = recordWrapper;
+            this.join = true;
+            this.joinedRecordList = joinedRecordList;
         }
     }
 }
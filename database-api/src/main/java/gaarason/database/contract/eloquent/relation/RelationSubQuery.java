@@ -8,9 +8,9 @@
 import gaarason.database.exception.OperationNotSupportedException;
 import gaarason.database.lang.Nullable;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
 
 /**
  * 关联关系字段处理, 目前是 @HasOnePrMany @BelongsTo @BelongsToMany 所属范围
@@ -94,6 +94,115 @@ public interface RelationSubQuery {
         throw new OperationNotSupportedException();
     }
 
+    /**
+     * 批量关联查询 (中间表以及目标表)
+     * @param metadata 当前recordList(或其分块)的元数据
+     * @param operationBuilder 操作构造器包装
+     * @param customBuilder 查询构造器包装
+     * @return 目标表查询结果集
+     */
+    default RecordList<?, ?> dealBatch(List<Map<String, Object>> metadata, BuilderAnyWrapper operationBuilder,
+        BuilderAnyWrapper customBuilder) {
+        // 中间表数据
+        RecordList<?, ?> relationRecordList = dealBatchForRelation(prepareRelationBuilder(metadata));
+        // 目标表数据
+        return dealBatchForTarget(
+            prepareTargetBuilder(metadata, relationRecordList, operationBuilder, customBuilder), relationRecordList);
+    }
+
+    /**
+     * 以 left join 的方式关联目标表 (仅适用于目标为单个记录的关联关系)
+     * 目标表的列, 以 prefix 为前缀加入到当前查询中
+     * @param builder 当前表的查询构造器
+     * @param prefix 目标表的别名, 同时作为目标表的列别名的前缀
+     * @param customBuilder 查询构造器包装
+     * @return 是否适用, 不适用时不做任何处理
+     */
+    default boolean prepareJoin(Builder<?, ?, ?> builder, String prefix, BuilderAnyWrapper customBuilder) {
+        return false;
+    }
+
+    /**
+     * 以 left join 的方式关联时, 读取结果集中目标表的列
+     * 按目标模型的字段进行转化, 以便与 where in 的方式关联时的结果一致
+     * @param resultSet 结果集
+     * @param columnIndex 列序号
+     * @param column 目标表的列名
+     * @return 值
+     * @throws SQLException 数据库异常
+     */
+    @Nullable
+    default Object readJoinedColumn(ResultSet resultSet, int columnIndex, String column) throws SQLException {
+        throw new OperationNotSupportedException();
+    }
+
+    /**
+     * 从 left join 的查询结果中, 分离出目标表数据
+     * @param metadata 当前recordList的元数据, 目标表的列在读取时已单独存放, 不在其中
+     * @param prefix 目标表的列别名的前缀
+     * @return 目标表查询结果集
+     */
+    default RecordList<?, ?> dealBatchForJoin(List<Map<String, Object>> metadata, String prefix) {
+        throw new OperationNotSupportedException();
+    }
+
+    /**
+     * 将当前recordList的元数据分块, 用于控制单条语句中 in 的关系键数量
+     * 相同关系键值的数据位于同一分块中, 每条数据仅从其所在分块的查询结果中筛选
+     * @param metadata 当前recordList的元数据
+     * @param chunkSize 每个分块的最大关系键数量, 小于 1 时不分块
+     * @param customBuilder 查询构造器包装
+     * @return 分块后的元数据
+     */
+    default List<List<Map<String, Object>>> chunkMetadata(List<Map<String, Object>> metadata, int chunkSize,
+        BuilderAnyWrapper customBuilder) {
+        return Collections.singletonList(metadata);
+    }
+
+    /**
+     * 合并各分块的批量关联查询结果 (目标表)
+     * 按分块的顺序首尾相接, 以便按分块建立索引
+     * @param targetRecordLists 各分块的查询结果集
+     * @return 查询结果集
+     */
+    default RecordList<?, ?> mergeBatchForTarget(List<RecordList<?, ?>> targetRecordLists) {
+        throw new OperationNotSupportedException();
+    }
+
+    /**
+     * 合并各分块的批量关联查询结果 (目标表)
+     * 针对关联关系操作
+     * @param targetRecordLists 各分块的查询结果集
+     * @return 查询结果集
+     */
+    default RecordList<?, ?> mergeBatchForTargetByRelationOperation(List<RecordList<?, ?>> targetRecordLists) {
+        throw new OperationNotSupportedException();
+    }
+
+    /**
+     * 为批量关联查询结果建立索引
+     * 针对关联关系操作, 每次批量关联查询仅建立一次
+     * 默认不建立索引, 调用方退化为 filterBatchRecordByRelationOperation(Record, RecordList) 逐个比对
+     * @param targetRecordList 目标的recordList
+     * @return 关系键值 -> 关联查询操作的结果, 为 null 表示不建立索引
+     */
+    @Nullable
+    default Map<Object, Map<String, Object>> indexBatchRecordByRelationOperation(RecordList<?, ?> targetRecordList) {
+        return null;
+    }
+
+    /**
+     * 通过索引筛选批量关联查询结果
+     * 针对关联关系操作, 重写 indexBatchRecordByRelationOperation 时需同时重写
+     * @param theRecord 当前record
+     * @param index 索引
+     * @return 关联查询操作的结果
+     */
+    default Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
+        Map<Object, Map<String, Object>> index) {
+        throw new OperationNotSupportedException();
+    }
+
     /**
      * 筛选批量关联查询结果
      * 针对关联关系操作
@@ -106,13 +215,39 @@ default Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> th
         throw new OperationNotSupportedException();
     }
 
+    /**
+     * 为批量关联查询结果对象建立索引
+     * 每次批量关联查询仅建立一次
+     * 默认不建立索引, 调用方退化为 filterBatchRecord(Record, RecordList, List) 逐个比对
+     * @param targetRecordList 目标的recordList
+     * @param targetObjectList 目标的对象列表
+     * @return 关系键值 -> 对象列表, 为 null 表示不建立索引
+     */
+    @Nullable
+    default Map<Object, List<Object>> indexBatchRecord(RecordList<?, ?> targetRecordList, List<?> targetObjectList) {
+        return null;
+    }
+
+    /**
+     * 通过索引筛选批量关联查询结果对象
+     * 重写 indexBatchRecord 时需同时重写
+     * @param theRecord 当前record
+     * @param index 索引
+     * @return 筛选后的查询结果集 (全新)
+     */
+    default List<Object> filterBatchRecord(Record<?, ?> theRecord, Map<Object, List<Object>> index) {
+        throw new OperationNotSupportedException();
+    }
+
     /**
      * 筛选批量关联查询结果对象
      * @param theRecord 当前record
      * @param targetRecordList 目标的recordList
+     * @param targetObjectList 目标的对象列表
      * @return 筛选后的查询结果集
      */
-    List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList, List<?> targetObjectList);
+    List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
+        List<?> targetObjectList);
 
     /**
      * 实现 whereHas
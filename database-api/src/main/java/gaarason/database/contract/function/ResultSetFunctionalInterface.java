@@ -0,0 +1,21 @@
+package gaarason.database.contract.function;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 处理查询结果集
+ * @param <U>
+ * @author xt
+ */
+@FunctionalInterface
+public interface ResultSetFunctionalInterface<U> {
+
+    /**
+     * 处理查询结果集
+     * @param resultSet 结果集
+     * @return 响应
+     * @throws SQLException sql异常
+     */
+    U apply(ResultSet resultSet) throws SQLException;
+}
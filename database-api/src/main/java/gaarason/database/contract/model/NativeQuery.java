@@ -2,14 +2,17 @@
 
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.function.ResultSetFunctionalInterface;
 import gaarason.database.exception.EntityNotFoundException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
+import java.util.stream.Stream;
 
 /**
  * 原始sql执行, 不会做事件触发
@@ -56,6 +59,67 @@ Record<T, K> nativeQuery(String sql, @Nullable Collection<?> parameters)
      */
     RecordList<T, K> nativeQueryList(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException;
 
+    /**
+     * 获取所有数据, 直接转化为实体对象 (不经过 Record, 不支持关联关系)
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @return 实体对象列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<T> nativeQueryObjectList(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException;
+
+    /**
+     * 获取所有数据, 并直接处理结果集 (不经过 Record)
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @param closure 结果集处理
+     * @param <U> 响应类型
+     * @return 响应
+     * @throws SQLRuntimeException 数据库异常
+     */
+    <U> U nativeQueryResultSet(String sql, @Nullable Collection<?> parameters,
+        ResultSetFunctionalInterface<U> closure) throws SQLRuntimeException;
+
+    /**
+     * 流式获取所有数据
+     * 使用 TYPE_FORWARD_ONLY, CONCUR_READ_ONLY 的预执行对象, 按需逐行转化
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @param fetchSize 单次从数据库获取的行数 (mysql 下使用 Integer.MIN_VALUE 表示逐行流式获取)
+     * @return 数剧记录流
+     * @throws SQLRuntimeException 数据库异常
+     */
+    Stream<Record<T, K>> nativeQueryStream(String sql, @Nullable Collection<?> parameters, int fetchSize)
+        throws SQLRuntimeException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为指定类型的对象
+     * 目标类型为模型的实体类型时, 直接由结果集赋值到实体, 不经过 Record
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @param fetchSize 单次从数据库获取的行数 (mysql 下使用 Integer.MIN_VALUE 表示逐行流式获取)
+     * @param clazz 目标类型
+     * @param <V> 目标类型
+     * @return 对象流
+     * @throws SQLRuntimeException 数据库异常
+     */
+    <V> Stream<V> nativeQueryStreamAs(String sql, @Nullable Collection<?> parameters, int fetchSize, Class<V> clazz)
+        throws SQLRuntimeException;
+
+    /**
+     * 流式获取所有数据, 并逐行转化为通用map
+     * 在流关闭前, 将一直占用数据库连接, 请务必关闭流 (eg: try-with-resources)
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @param fetchSize 单次从数据库获取的行数 (mysql 下使用 Integer.MIN_VALUE 表示逐行流式获取)
+     * @return map流
+     * @throws SQLRuntimeException 数据库异常
+     */
+    Stream<Map<String, Object>> nativeQueryStreamMap(String sql, @Nullable Collection<?> parameters, int fetchSize)
+        throws SQLRuntimeException;
+
     /**
      * 执行语句
      * @param sql 查询语句
@@ -74,6 +138,28 @@ Record<T, K> nativeQuery(String sql, @Nullable Collection<?> parameters)
      */
     List<K> nativeExecuteGetIds(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException;
 
+    /**
+     * 批量执行语句 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * @param sql 查询语句
+     * @param parametersList 参数绑定列表的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 每次执行的受影响的行数 (可能为 Statement.SUCCESS_NO_INFO)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    int[] nativeExecuteBatch(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException;
+
+    /**
+     * 批量执行语句 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * @param sql 查询语句
+     * @param parametersList 参数绑定列表的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 自增长主键列表 (依赖驱动对批量返回自增主键的支持)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    List<K> nativeExecuteBatchGetIds(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException;
+
     /**
      * 执行语句
      * @param sql 查询语句
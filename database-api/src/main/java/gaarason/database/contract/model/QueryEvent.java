@@ -61,6 +61,14 @@ default void eventQueryRetrieved(RecordList<T, K> records) {
 
     }
 
+    /**
+     * 查询数据后 (直接转化为实体对象时)
+     * @param entities 实体对象集合
+     */
+    default void eventQueryRetrieved(List<T> entities) {
+
+    }
+
     /**
      * 插入数据时
      * @param builder 查询构造器.
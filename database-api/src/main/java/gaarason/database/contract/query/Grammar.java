@@ -1,5 +1,6 @@
 package gaarason.database.contract.query;
 
+import gaarason.database.appointment.OrderBy;
 import gaarason.database.appointment.SqlType;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.exception.CloneNotSupportedRuntimeException;
@@ -7,6 +8,8 @@
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -102,6 +105,13 @@ void addFirstSmartSeparator(SQLPartType sqlPartType, String sqlPartString, @Null
      */
     SQLPartInfo get(SQLPartType sqlPartType);
 
+    /**
+     * 获取指定类型的所有片段 (未合并)
+     * @param sqlPartType SQL片段类型
+     * @return SQL片段信息列表(全新)
+     */
+    List<SQLPartInfo> getList(SQLPartType sqlPartType);
+
     /**
      * 按照类型生成sql
      * @param sqlType 类型
@@ -111,6 +121,7 @@ void addFirstSmartSeparator(SQLPartType sqlPartType, String sqlPartString, @Null
 
     /**
      * 深度copy
+     * 对象结构(片段列表, 别名, 关联关系等)全新, 不可变的 SQLPartInfo 以及绑定参数值共用
      * @return 和当前属性值一样的全新对象
      * @throws CloneNotSupportedRuntimeException 克隆异常
      */
@@ -136,6 +147,25 @@ void addFirstSmartSeparator(SQLPartType sqlPartType, String sqlPartString, @Null
      */
     Map<String, Record.Relation> pullRelation();
 
+    /**
+     * 清空关联关系信息
+     */
+    void clearRelation();
+
+    /**
+     * 记录排序信息 (用于游标分页)
+     * @param column 列名, 为 null 时表示无法解析的排序 (eg: orderByRaw)
+     * @param orderBy 排序类型
+     */
+    void pushOrder(@Nullable String column, OrderBy orderBy);
+
+    /**
+     * 拉取排序信息
+     * @return 列名 -> 排序类型, 存在无法解析的排序时为 null
+     */
+    @Nullable
+    Map<String, OrderBy> pullOrder();
+
     /**
      * SQL片段类型
      */
@@ -159,7 +189,7 @@ public String getKeyword() {
     }
 
     /**
-     * SQL片段信息
+     * SQL片段信息, 不可变, 可在多个 Grammar 之间共用
      */
     class SQLPartInfo implements Serializable {
 
@@ -170,9 +200,13 @@ class SQLPartInfo implements Serializable {
         @Nullable
         private final Collection<Object> parameters;
 
+        /**
+         * @param sqlString sql片段
+         * @param parameters 绑定参数集合, 仅包装为只读视图而不复制, 调用方之后不应再修改
+         */
         public SQLPartInfo(String sqlString, @Nullable Collection<Object> parameters) {
             this.sqlString = sqlString;
-            this.parameters = parameters;
+            this.parameters = parameters == null ? null : Collections.unmodifiableCollection(parameters);
         }
 
         public SQLPartInfo(String sqlString) {
@@ -183,6 +217,10 @@ public String getSqlString() {
             return sqlString;
         }
 
+        /**
+         * 绑定参数集合
+         * @return 只读集合
+         */
         @Nullable
         public Collection<Object> getParameters() {
             return parameters;
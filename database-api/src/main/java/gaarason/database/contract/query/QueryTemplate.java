@@ -0,0 +1,204 @@
+package gaarason.database.contract.query;
+
+import gaarason.database.appointment.SqlType;
+import gaarason.database.contract.builder.Native;
+import gaarason.database.contract.eloquent.Record;
+import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.exception.AbnormalParameterException;
+import gaarason.database.exception.EntityNotFoundException;
+import gaarason.database.exception.SQLRuntimeException;
+import gaarason.database.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 查询模板
+ * 预先生成的sql (不再进行sql拼接以及别名处理), 每次执行仅重新绑定参数
+ * 绑定参数的数量以及顺序与生成模板时一致, 线程安全
+ * @param <T> 实体类型
+ * @param <K> 主键类型
+ * @author xt
+ */
+public class QueryTemplate<T, K> {
+
+    /**
+     * 执行者 (生成模板时的查询构造器副本, 用于传递关联关系)
+     */
+    protected final Native<T, K> executor;
+
+    /**
+     * 语句类型
+     */
+    protected final SqlType sqlType;
+
+    /**
+     * 带占位符的sql
+     */
+    protected final String sql;
+
+    /**
+     * 绑定参数的数量
+     */
+    protected final int parameterCount;
+
+    public QueryTemplate(Native<T, K> executor, SqlType sqlType, String sql, int parameterCount) {
+        this.executor = executor;
+        this.sqlType = sqlType;
+        this.sql = sql;
+        this.parameterCount = parameterCount;
+    }
+
+    /**
+     * 查询单条记录
+     * @param parameters 绑定参数
+     * @return 结果集
+     * @throws SQLRuntimeException 数据库异常
+     */
+    @Nullable
+    public Record<T, K> first(Object... parameters) throws SQLRuntimeException {
+        return first(Arrays.asList(parameters));
+    }
+
+    /**
+     * 查询单条记录
+     * @param parameters 绑定参数
+     * @return 结果集
+     * @throws SQLRuntimeException 数据库异常
+     */
+    @Nullable
+    public Record<T, K> first(Collection<?> parameters) throws SQLRuntimeException {
+        return executor.query(sql, checkParameters(parameters));
+    }
+
+    /**
+     * 查询单条记录, 失败则抛出异常
+     * @param parameters 绑定参数
+     * @return 结果集
+     * @throws SQLRuntimeException 数据库异常
+     * @throws EntityNotFoundException 查询结果为空
+     */
+    public Record<T, K> firstOrFail(Object... parameters) throws SQLRuntimeException, EntityNotFoundException {
+        return executor.queryOrFail(sql, checkParameters(Arrays.asList(parameters)));
+    }
+
+    /**
+     * 查询多条记录
+     * @param parameters 绑定参数
+     * @return 结果集
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public RecordList<T, K> get(Object... parameters) throws SQLRuntimeException {
+        return get(Arrays.asList(parameters));
+    }
+
+    /**
+     * 查询多条记录
+     * @param parameters 绑定参数
+     * @return 结果集
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public RecordList<T, K> get(Collection<?> parameters) throws SQLRuntimeException {
+        return executor.queryList(sql, checkParameters(parameters));
+    }
+
+    /**
+     * 执行 (更新/删除/插入)
+     * @param parameters 绑定参数
+     * @return 受影响的行数
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public int execute(Object... parameters) throws SQLRuntimeException {
+        return execute(Arrays.asList(parameters));
+    }
+
+    /**
+     * 执行 (更新/删除/插入)
+     * @param parameters 绑定参数
+     * @return 受影响的行数
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public int execute(Collection<?> parameters) throws SQLRuntimeException {
+        return executor.execute(sql, checkParameters(parameters));
+    }
+
+    /**
+     * 执行插入, 并返回自增id
+     * @param parameters 绑定参数
+     * @return 自增id列表
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public List<K> executeGetIds(Object... parameters) throws SQLRuntimeException {
+        return executor.executeGetIds(sql, checkParameters(Arrays.asList(parameters)));
+    }
+
+    /**
+     * 批量执行 (JDBC batch), 同一个连接中, 每 batchSize 组参数提交一次
+     * @param parametersList 绑定参数的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 每次执行的受影响的行数 (可能为 Statement.SUCCESS_NO_INFO)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public int[] executeBatch(Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        return executor.executeBatch(sql, checkParametersList(parametersList), batchSize);
+    }
+
+    /**
+     * 批量执行插入 (JDBC batch), 并返回自增id
+     * @param parametersList 绑定参数的集合, 每个元素对应一次执行
+     * @param batchSize 单次提交的数量
+     * @return 自增id列表 (依赖驱动对批量返回自增主键的支持)
+     * @throws SQLRuntimeException 数据库异常
+     */
+    public List<K> executeBatchGetIds(Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        return executor.executeBatchGetIds(sql, checkParametersList(parametersList), batchSize);
+    }
+
+    /**
+     * 检测每组绑定参数的数量
+     * @param parametersList 绑定参数的集合
+     * @return 绑定参数的集合
+     */
+    protected Collection<? extends Collection<?>> checkParametersList(
+        Collection<? extends Collection<?>> parametersList) {
+        for (Collection<?> parameters : parametersList) {
+            checkParameters(parameters);
+        }
+        return parametersList;
+    }
+
+    /**
+     * 检测绑定参数数量
+     * @param parameters 绑定参数
+     * @return 绑定参数
+     */
+    protected Collection<?> checkParameters(Collection<?> parameters) {
+        if (parameters.size() != parameterCount) {
+            throw new AbnormalParameterException(
+                "The query template [" + sql + "] requires " + parameterCount + " parameters, but " +
+                    parameters.size() + " were given.");
+        }
+        return parameters;
+    }
+
+    public SqlType getSqlType() {
+        return sqlType;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryTemplate{" + "sqlType=" + sqlType + ", sql='" + sql + '\'' + ", parameterCount=" +
+            parameterCount + '}';
+    }
+}
@@ -1,5 +1,7 @@
 package gaarason.database.contract.record;
 
+import gaarason.database.appointment.OrderBy;
+import gaarason.database.appointment.Summary;
 import gaarason.database.config.ConversionConfig;
 import gaarason.database.exception.NoSuchAlgorithmException;
 import gaarason.database.exception.OperationNotSupportedException;
@@ -35,6 +37,16 @@
      */
     Map<String, Object> elementToMap(E element) throws OperationNotSupportedException;
 
+    /**
+     * 根据属性名生成元素的取值方式
+     * 在需要对所有元素按同一属性取值时使用, 以便属性的解析仅进行一次
+     * @param fieldName 属性名
+     * @return 取值方式
+     */
+    default ReturnOne<E, Object> elementValueGetterByFieldName(String fieldName) {
+        return e -> elementGetValueByFieldName(e, fieldName);
+    }
+
     /**
      * 类型转化 Worker
      * @return ConversionWorker
@@ -72,24 +84,41 @@ default BigDecimal avg() {
      * @return 平均值
      */
     default BigDecimal avg(String fieldName) {
+        ReturnOne<E, Object> getter = elementValueGetterByFieldName(fieldName);
         BigDecimal bigDecimal = BigDecimal.ZERO;
         for (E e : this) {
-            Object value = elementGetValueByFieldName(e, fieldName);
+            Object value = getter.get(e);
             bigDecimal = bigDecimal.add(isEmpty(value) ? BigDecimal.ZERO :
                 getConversionWorkerFromContainer().castNullable(value, BigDecimal.class));
         }
         return bigDecimal.divide(new BigDecimal(size()), RoundingMode.HALF_UP);
     }
 
+    /**
+     * 单次遍历, 返回集合中所有元素的指定属性值的统计汇总 (数量, 总和, 最小值, 最大值, 平均值)
+     * 整数与浮点数属性使用基本类型累加, 其他类型使用 BigDecimal 累加
+     * @param fieldName 属性名
+     * @return 统计汇总
+     */
+    default Summary summary(String fieldName) {
+        ReturnOne<E, Object> getter = elementValueGetterByFieldName(fieldName);
+        Summary.Accumulator accumulator = new Summary.Accumulator(getConversionWorkerFromContainer());
+        for (E e : this) {
+            accumulator.accept(getter.get(e));
+        }
+        return accumulator.toSummary();
+    }
+
     /**
      * 返回集合中所有元素的指定属性值的总和
      * @param fieldName 属性名
      * @return 总和
      */
     default BigDecimal sum(String fieldName) {
+        ReturnOne<E, Object> getter = elementValueGetterByFieldName(fieldName);
         BigDecimal sum = null;
         for (E e : this) {
-            Object valueObj = elementGetValueByFieldName(e, fieldName);
+            Object valueObj = getter.get(e);
             BigDecimal value = isEmpty(valueObj) ? BigDecimal.ZERO :
                 getConversionWorkerFromContainer().castNullable(valueObj, BigDecimal.class);
             sum = sum == null ? value : sum.add(value);
@@ -103,9 +132,10 @@ default BigDecimal sum(String fieldName) {
      * @return 最大值
      */
     default BigDecimal max(String fieldName) {
+        ReturnOne<E, Object> getter = elementValueGetterByFieldName(fieldName);
         BigDecimal maxValue = null;
         for (E e : this) {
-            Object valueObj = elementGetValueByFieldName(e, fieldName);
+            Object valueObj = getter.get(e);
             BigDecimal value = isEmpty(valueObj) ? BigDecimal.ZERO :
                 getConversionWorkerFromContainer().castNullable(valueObj, BigDecimal.class);
             maxValue = maxValue == null ? value : maxValue.max(value);
@@ -119,9 +149,10 @@ default BigDecimal max(String fieldName) {
      * @return 最小值
      */
     default BigDecimal min(String fieldName) {
+        ReturnOne<E, Object> getter = elementValueGetterByFieldName(fieldName);
         BigDecimal minValue = null;
         for (E e : this) {
-            Object valueObj = elementGetValueByFieldName(e, fieldName);
+            Object valueObj = getter.get(e);
             BigDecimal value = isEmpty(valueObj) ? BigDecimal.ZERO :
                 getConversionWorkerFromContainer().castNullable(valueObj, BigDecimal.class);
             minValue = minValue == null ? value : minValue.min(value);
@@ -475,7 +506,10 @@ default E last(DecideTwo<Integer, E> closure) {
      * @return 最后个元素
      */
     default E last() {
-        return get(size() - 1);
+        if (this instanceof RandomAccess) {
+            return get(size() - 1);
+        }
+        return getLast();
     }
 
     /**
@@ -604,9 +638,16 @@ default E random() {
      * @return 倒序后的集合
      */
     default List<E> reverse() {
-        List<E> list = new ArrayList<>();
-        for (int i = size() - 1; i >= 0; i--) {
-            list.add(get(i));
+        List<E> list = new ArrayList<>(size());
+        if (this instanceof RandomAccess) {
+            for (int i = size() - 1; i >= 0; i--) {
+                list.add(get(i));
+            }
+        } else {
+            Iterator<E> iterator = descendingIterator();
+            while (iterator.hasNext()) {
+                list.add(iterator.next());
+            }
         }
         return list;
     }
@@ -618,30 +659,67 @@ default List<E> reverse() {
      * @return 新的集合
      */
     default List<E> sortBy(ReturnTwo<Integer, E, BigDecimal> closure, boolean ase) {
-        PriorityQueue<BigDecimal> heap = new PriorityQueue<>(size(),
-            (o1, o2) -> ase ? o1.compareTo(o2) : o2.compareTo(o1));
-        List<E> list = new ArrayList<>(size());
-        Map<BigDecimal, List<E>> map = new HashMap<>();
+        // 每个元素仅计算一次排序键
+        List<CollectionSorter.SortItem<E>> items = new ArrayList<>(size());
         int index = 0;
         for (E e : this) {
-            final BigDecimal comparable = closure.get(index++, e);
-            heap.add(comparable);
-
-            final List<E> innerList = map.computeIfAbsent(comparable, k -> new ArrayList<>());
-            innerList.add(e);
-        }
-        while (!heap.isEmpty()) {
-            BigDecimal key = heap.poll();
-            if (map.containsKey(key)) {
-                List<E> eList = map.remove(key);
-                if (isEmpty(eList)) {
-                    break;
-                }
-                list.addAll(eList);
-            }
+            items.add(new CollectionSorter.SortItem<>(e, new Comparable<?>[]{closure.get(index++, e)}));
+        }
+        return CollectionSorter.sortItems(items, new OrderBy[]{ase ? OrderBy.ASC : OrderBy.DESC});
+    }
+
+    /**
+     * 通过给定比较器对集合进行稳定排序, 不影响自身
+     * (不与 sortBy(ReturnTwo) 重载, 以免已有的 lambda 调用产生歧义)
+     * @param comparator 比较器
+     * @return 新的集合
+     */
+    default List<E> sortWith(Comparator<? super E> comparator) {
+        @SuppressWarnings("unchecked")
+        E[] array = (E[]) toArray();
+        CollectionSorter.sort(array, comparator);
+        return new ArrayList<>(Arrays.asList(array));
+    }
+
+    /**
+     * 通过元素中的指定属性的值 (按其自身类型比较, eg: 字符串, 时间), 对集合进行稳定排序, 不影响自身
+     * 空值视为最小值
+     * @param fieldName 属性名
+     * @param orderBy 排序方向
+     * @return 新的集合
+     */
+    default List<E> sortBy(String fieldName, OrderBy orderBy) {
+        Map<String, OrderBy> fieldOrderMap = new LinkedHashMap<>();
+        fieldOrderMap.put(fieldName, orderBy);
+        return sortBy(fieldOrderMap);
+    }
 
+    /**
+     * 通过元素中的多个属性的值 (按其自身类型比较, eg: 字符串, 时间), 对集合进行稳定排序, 不影响自身
+     * 空值视为最小值
+     * @param fieldOrderMap 属性名与排序方向, 按 map 的迭代顺序依次比较
+     * @return 新的集合
+     */
+    default List<E> sortBy(Map<String, OrderBy> fieldOrderMap) {
+        List<ReturnOne<E, Object>> getters = new ArrayList<>(fieldOrderMap.size());
+        OrderBy[] orderBys = new OrderBy[fieldOrderMap.size()];
+        int i = 0;
+        for (Map.Entry<String, OrderBy> entry : fieldOrderMap.entrySet()) {
+            getters.add(elementValueGetterByFieldName(entry.getKey()));
+            orderBys[i++] = entry.getValue();
         }
-        return list;
+        // 每个元素仅取值一次
+        List<CollectionSorter.SortItem<E>> items = new ArrayList<>(size());
+        for (E e : this) {
+            Comparable<?>[] keys = new Comparable<?>[orderBys.length];
+            for (int j = 0; j < keys.length; j++) {
+                Object value = getters.get(j).get(e);
+                keys[j] = value == null || value instanceof Comparable ? (Comparable<?>) value :
+                    getConversionWorkerFromContainer().castNullable(value, String.class);
+            }
+            items.add(new CollectionSorter.SortItem<>(e, keys));
+        }
+        return CollectionSorter.sortItems(items, orderBys);
     }
 
     /**
@@ -708,6 +786,14 @@ default List<E> splice(int offset) {
     default List<E> splice(int offset, int taken) {
         int size = Math.min(size() - offset, taken);
         List<E> list = new ArrayList<>(size);
+        // 数组存储时, 按区间整体移除, 避免逐个移除带来的多次数组拷贝
+        if (this instanceof RandomAccess) {
+            int fromIndex = Math.max(offset, 0);
+            List<E> subList = subList(fromIndex, Math.min(fromIndex + size, size()));
+            list.addAll(subList);
+            subList.clear();
+            return list;
+        }
         int count = 0;
         Iterator<E> iterator = iterator();
         int index = 0;
@@ -1,5 +1,7 @@
 package gaarason.database.contract.record;
 
+import gaarason.database.appointment.OrderBy;
+import gaarason.database.appointment.Summary;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.function.ColumnFunctionalInterface;
 import gaarason.database.contract.support.LambdaStyle;
@@ -40,6 +42,16 @@ default <F> BigDecimal avg(ColumnFunctionalInterface<T, F>  fieldName) {
         return avg(lambda2FieldName(fieldName));
     }
 
+    /**
+     * 单次遍历, 返回集合中所有元素的指定属性值的统计汇总 (数量, 总和, 最小值, 最大值, 平均值)
+     * @param fieldName 属性名表达式
+     * @param <F> 属性类型
+     * @return 统计汇总
+     */
+    default <F> Summary summary(ColumnFunctionalInterface<T, F> fieldName) {
+        return summary(lambda2FieldName(fieldName));
+    }
+
     /**
      * 返回集合中所有元素的指定属性值的总和
      * @param fieldName 属性名表达式
@@ -195,6 +207,17 @@ default <F> List<Record<T, K>> sortByDesc(ColumnFunctionalInterface<T, F>  field
         return sortByDesc(lambda2FieldName(fieldName));
     }
 
+    /**
+     * 通过元素中的指定属性的值 (按其自身类型比较, eg: 字符串, 时间), 对集合进行稳定排序
+     * @param fieldName 属性名表达式
+     * @param orderBy 排序方向
+     * @param <F> 属性类型
+     * @return 新的集合
+     */
+    default <F> List<Record<T, K>> sortBy(ColumnFunctionalInterface<T, F> fieldName, OrderBy orderBy) {
+        return sortBy(lambda2FieldName(fieldName), orderBy);
+    }
+
 
     /**
      * 使用元素中的指定属性来剔除重复的元素，不影响自身
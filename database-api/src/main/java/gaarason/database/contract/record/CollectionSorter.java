@@ -0,0 +1,100 @@
+package gaarason.database.contract.record;
+
+import gaarason.database.appointment.OrderBy;
+import gaarason.database.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 集合排序
+ * 仅供 CollectionOperation 使用
+ * @author xt
+ */
+final class CollectionSorter {
+
+    /**
+     * 排序时, 使用并行排序的最小元素数量
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    private CollectionSorter() {
+
+    }
+
+    /**
+     * 稳定排序, 元素数量较多时使用并行排序
+     * @param array 待排序元素
+     * @param comparator 比较器
+     * @param <A> 元素类型
+     */
+    static <A> void sort(A[] array, Comparator<? super A> comparator) {
+        if (array.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(array, comparator);
+        } else {
+            Arrays.sort(array, comparator);
+        }
+    }
+
+    /**
+     * 按预先计算的排序键, 进行稳定排序
+     * @param items 待排序元素
+     * @param orderBys 每个排序键的排序方向
+     * @param <A> 元素类型
+     * @return 新的集合
+     */
+    static <A> List<A> sortItems(List<SortItem<A>> items, OrderBy[] orderBys) {
+        @SuppressWarnings("unchecked")
+        SortItem<A>[] array = (SortItem<A>[]) items.toArray(new SortItem<?>[0]);
+        sort(array, (o1, o2) -> {
+            for (int i = 0; i < orderBys.length; i++) {
+                int result = SortItem.compare(o1.keys[i], o2.keys[i]);
+                if (result != 0) {
+                    return orderBys[i] == OrderBy.DESC ? -result : result;
+                }
+            }
+            return 0;
+        });
+        List<A> list = new ArrayList<>(array.length);
+        for (SortItem<A> item : array) {
+            list.add(item.element);
+        }
+        return list;
+    }
+
+    /**
+     * 待排序元素, 及其预先计算的排序键
+     * @param <A> 元素类型
+     */
+    static final class SortItem<A> {
+
+        final A element;
+
+        final Comparable<?>[] keys;
+
+        SortItem(A element, Comparable<?>[] keys) {
+            this.element = element;
+            this.keys = keys;
+        }
+
+        /**
+         * 比较排序键, 空值视为最小值
+         * @param k1 排序键
+         * @param k2 排序键
+         * @return 比较结果
+         */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        static int compare(@Nullable Comparable k1, @Nullable Comparable k2) {
+            if (k1 == k2) {
+                return 0;
+            } else if (k1 == null) {
+                return -1;
+            } else if (k2 == null) {
+                return 1;
+            }
+            return k1.compareTo(k2);
+        }
+    }
+}
@@ -40,6 +40,21 @@
     @Nullable
     D acquisition(Field field, ResultSet resultSet, String columnName) throws SQLException;
 
+    /**
+     * 数据库结果集获取(按列序号)
+     * 查询结果的映射计划中使用, 避免逐行按列名查找
+     * 默认通过列序号找到列名后, 交由 acquisition(Field, ResultSet, String) 处理, 以兼容自定义的实现
+     * @param field 实体的属性
+     * @param resultSet 数据库结果集
+     * @param columnIndex 当前列序号(从1开始)
+     * @return 反序列化后的值
+     * @throws SQLException 数据库异常
+     */
+    @Nullable
+    default D acquisition(Field field, ResultSet resultSet, int columnIndex) throws SQLException {
+        return acquisition(field, resultSet, resultSet.getMetaData().getColumnLabel(columnIndex));
+    }
+
     /**
      * 从任意的结果进行反序列化, 以便赋值到实体属性
      * 这种情况会出现在 Record.toObject()/Record.toObject(SomeEntity.class) 等方式下, 往往都是已经完成了"数据库结果集获取"之后的操作.
@@ -3,6 +3,9 @@
 import gaarason.database.exception.SQLRuntimeException;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 
 /**
  * 事物管理器
@@ -50,4 +53,36 @@ public interface TransactionManager {
      * @throws SQLRuntimeException 数据库异常
      */
     void localConnectionClose(Connection connection) throws SQLRuntimeException;
+
+    /**
+     * 当前线程 获取某个连接上的预执行对象
+     * 事物中, 复用该连接上缓存的预执行对象; 否则创建新的预执行对象
+     * 默认总是创建新的预执行对象
+     * @param connection 连接
+     * @param sql 带占位符的sql
+     * @param returnGeneratedKeys 是否需要返回自增主键 (仅 insert 需要)
+     * @return 预执行对象
+     * @throws SQLException 数据库异常
+     */
+    default PreparedStatement getLocalPreparedStatement(Connection connection, String sql, boolean returnGeneratedKeys)
+        throws SQLException {
+        return returnGeneratedKeys ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
+            connection.prepareStatement(sql);
+    }
+
+    /**
+     * 当前线程 关闭某个预执行对象
+     * 事物中, 预执行对象由缓存管理, 在事物结束时关闭; 否则立即关闭
+     * @param preparedStatement 预执行对象
+     * @throws SQLRuntimeException 数据库异常
+     */
+    default void localPreparedStatementClose(PreparedStatement preparedStatement) throws SQLRuntimeException {
+        try {
+            if (!isLocalThreadInTransaction()) {
+                preparedStatement.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e.getMessage(), e);
+        }
+    }
 }
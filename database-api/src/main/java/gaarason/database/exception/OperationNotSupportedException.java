@@ -10,4 +10,8 @@ public class OperationNotSupportedException extends BaseException {
     public OperationNotSupportedException() {
         super();
     }
+
+    public OperationNotSupportedException(String message) {
+        super(message);
+    }
 }
@@ -34,6 +34,12 @@ public Object acquisition(Field field, ResultSet resultSet, String columnName) t
         return resultSet.getString(columnName);
     }
 
+    @Nullable
+    @Override
+    public Object acquisition(Field field, ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getString(columnIndex);
+    }
+
     @Nullable
     @Override
     public Object deserialize(Field field, @Nullable Object originalValue) {
@@ -33,6 +33,12 @@ public Object acquisition(Field field, ResultSet resultSet, String column) throw
         return conversion().getValueFromJdbcResultSet(field, resultSet, column);
     }
 
+    @Nullable
+    @Override
+    public Object acquisition(Field field, ResultSet resultSet, int columnIndex) throws SQLException {
+        return conversion().getValueFromJdbcResultSet(field, resultSet, columnIndex);
+    }
+
     @Nullable
     @Override
     public Object deserialize(Field field, @Nullable Object originalValue) {
@@ -25,6 +25,12 @@ public Integer acquisition(Field field, ResultSet resultSet, String columnName)
         return resultSet.getInt(columnName);
     }
 
+    @Nullable
+    @Override
+    public Integer acquisition(Field field, ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getInt(columnIndex);
+    }
+
     @Nullable
     @Override
     public Enum<?> deserialize(Field field, @Nullable Integer originalValue) {
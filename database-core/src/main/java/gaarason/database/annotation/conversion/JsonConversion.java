@@ -31,6 +31,12 @@ public String acquisition(Field field, ResultSet resultSet, String columnName) t
         return resultSet.getString(columnName);
     }
 
+    @Nullable
+    @Override
+    public String acquisition(Field field, ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getString(columnIndex);
+    }
+
     @Nullable
     @Override
     public Object deserialize(Field field, @Nullable String originalValue) {
@@ -13,6 +13,7 @@
 import gaarason.database.provider.ContainerProvider;
 import gaarason.database.provider.ModelInstanceProvider;
 import gaarason.database.provider.ModelShadowProvider;
+import gaarason.database.support.CountCache;
 import gaarason.database.support.NamedThreadFactory;
 import gaarason.database.support.SnowFlakeIdGenerator;
 import gaarason.database.util.ClassUtils;
@@ -102,6 +103,11 @@ public synchronized ContainerBootstrap autoBootstrap() {
      * @return ContainerProvider
      */
     public ContainerBootstrap defaultRegister() {
+        // 配置
+        register(GaarasonDatabaseProperties.class, clazz -> properties);
+        // 分页总数缓存
+        register(CountCache.class, clazz -> new CountCache(properties.getPagination().getCountCacheSize(),
+            properties.getPagination().getCountCacheTtl()));
         // 初始化包扫描类
         register(ReflectionScan.class, clazz -> new DefaultReflectionScan(properties));
         // ID生成 雪花算法
@@ -211,6 +217,13 @@ public Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultS
                 throws SQLException {
                 return ConverterUtils.getValueFromJdbcResultSet(field, resultSet, column);
             }
+
+            @Nullable
+            @Override
+            public Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultSet, int columnIndex)
+                throws SQLException {
+                return ConverterUtils.getValueFromJdbcResultSet(field, resultSet, columnIndex);
+            }
         };
     }
 
@@ -1,13 +1,16 @@
 package gaarason.database.config;
 
+import gaarason.database.exception.InvalidConfigException;
 import gaarason.database.logging.Log;
 import gaarason.database.logging.LogFactory;
 import gaarason.database.util.ObjectUtils;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.TreeSet;
 
 /**
  * GaarasonDatabaseProperties
@@ -33,6 +36,21 @@ public class GaarasonDatabaseProperties implements Serializable {
      */
     protected AsyncPool asyncPool = new AsyncPool();
 
+    /**
+     * in/not in 参数分桶
+     */
+    protected WhereIn whereIn = new WhereIn();
+
+    /**
+     * 分页
+     */
+    protected Pagination pagination = new Pagination();
+
+    /**
+     * 关联关系
+     */
+    protected Relation relation = new Relation();
+
     /**
      * 从 SystemProperties 中创建
      * 对于列表类型的数据,使用,做区分 eg: gaarason.database.scan.packages=gaarason,com.github.gaarason
@@ -79,6 +97,36 @@ public static GaarasonDatabaseProperties buildFromSystemProperties() {
                 .addAll(Arrays.asList(filterExcludePatterns.split(symbol)));
         }
 
+        // in/not in 参数分桶
+        gaarasonDatabaseProperties.whereIn.setBucketing(
+            Boolean.parseBoolean(System.getProperty(GaarasonDatabaseProperties.PREFIX + ".where-in.bucketing", "false")));
+        gaarasonDatabaseProperties.whereIn.setSplitThreshold(Integer.parseInt(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".where-in.split-threshold", "1024")));
+        String bucketSizes = System.getProperty(GaarasonDatabaseProperties.PREFIX + ".where-in.bucket-sizes");
+        if (bucketSizes != null) {
+            List<Integer> bucketSizeList = new ArrayList<>();
+            for (String bucketSize : bucketSizes.split(symbol)) {
+                bucketSizeList.add(Integer.parseInt(bucketSize.trim()));
+            }
+            gaarasonDatabaseProperties.whereIn.setBucketSizes(bucketSizeList);
+        }
+
+        // 分页
+        gaarasonDatabaseProperties.pagination.setConcurrent(Boolean.parseBoolean(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".pagination.concurrent", "false")));
+        gaarasonDatabaseProperties.pagination.setCountCacheSize(Integer.parseInt(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".pagination.count-cache-size", "0")));
+        gaarasonDatabaseProperties.pagination.setCountCacheTtl(Long.parseLong(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".pagination.count-cache-ttl", "10000")));
+
+        // 关联关系
+        gaarasonDatabaseProperties.relation.setParallel(Boolean.parseBoolean(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".relation.parallel", "false")));
+        gaarasonDatabaseProperties.relation.setParallelism(Integer.parseInt(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".relation.parallelism", "4")));
+        gaarasonDatabaseProperties.relation.setChunkSize(Integer.parseInt(
+            System.getProperty(GaarasonDatabaseProperties.PREFIX + ".relation.chunk-size", "0")));
+
         return gaarasonDatabaseProperties;
     }
 
@@ -106,9 +154,34 @@ public void setAsyncPool(AsyncPool asyncPool) {
         this.asyncPool = asyncPool;
     }
 
+    public WhereIn getWhereIn() {
+        return whereIn;
+    }
+
+    public void setWhereIn(WhereIn whereIn) {
+        this.whereIn = whereIn;
+    }
+
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    public void setPagination(Pagination pagination) {
+        this.pagination = pagination;
+    }
+
+    public Relation getRelation() {
+        return relation;
+    }
+
+    public void setRelation(Relation relation) {
+        this.relation = relation;
+    }
+
     @Override
     public String toString() {
-        return "GaarasonDatabaseProperties{" + "scan=" + scan + ", snowFlake=" + snowFlake + '}';
+        return "GaarasonDatabaseProperties{" + "scan=" + scan + ", snowFlake=" + snowFlake + ", whereIn=" + whereIn +
+            ", pagination=" + pagination + ", relation=" + relation + '}';
     }
 
     /**
@@ -262,6 +335,200 @@ public String toString() {
         }
     }
 
+    /**
+     * in/not in 参数分桶
+     * 参数数量补齐到桶的大小(重复最后一个值), 使不同数量的参数生成有限种类的sql, 便于数据库复用预编译语句
+     */
+    public static class WhereIn implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 是否开启
+         */
+        protected boolean bucketing = false;
+
+        /**
+         * 桶的大小(升序), 为空时使用2的幂
+         */
+        protected List<Integer> bucketSizes = new ArrayList<>();
+
+        /**
+         * 拆分阈值, 参数数量超过时拆分为多组 in
+         */
+        protected int splitThreshold = 1024;
+
+        /**
+         * 计算桶的大小
+         * @param size 参数数量 (不超过拆分阈值)
+         * @return 桶的大小 (不小于参数数量)
+         */
+        public int bucketSize(int size) {
+            if (bucketSizes.isEmpty()) {
+                int bucketSize = size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+                return Math.max(Math.min(bucketSize, splitThreshold), size);
+            }
+            for (Integer bucketSize : bucketSizes) {
+                // 超过拆分阈值的桶不使用
+                if (bucketSize > splitThreshold) {
+                    break;
+                }
+                if (bucketSize >= size) {
+                    return bucketSize;
+                }
+            }
+            return size;
+        }
+
+        public boolean isBucketing() {
+            return bucketing;
+        }
+
+        public void setBucketing(boolean bucketing) {
+            this.bucketing = bucketing;
+        }
+
+        public List<Integer> getBucketSizes() {
+            return bucketSizes;
+        }
+
+        /**
+         * 设置桶的大小
+         * @param bucketSizes 桶的大小, 将去重并升序排列
+         * @throws InvalidConfigException 存在非正数
+         */
+        public void setBucketSizes(List<Integer> bucketSizes) throws InvalidConfigException {
+            for (Integer bucketSize : bucketSizes) {
+                if (bucketSize == null || bucketSize < 1) {
+                    throw new InvalidConfigException("Where-in bucket sizes should be positive, but got " +
+                        bucketSizes + ".");
+                }
+            }
+            this.bucketSizes = new ArrayList<>(new TreeSet<>(bucketSizes));
+        }
+
+        public int getSplitThreshold() {
+            return splitThreshold;
+        }
+
+        public void setSplitThreshold(int splitThreshold) {
+            this.splitThreshold = splitThreshold;
+        }
+
+        @Override
+        public String toString() {
+            return "WhereIn{" + "bucketing=" + bucketing + ", bucketSizes=" + bucketSizes + ", splitThreshold=" +
+                splitThreshold + '}';
+        }
+    }
+
+    /**
+     * 分页
+     */
+    public static class Pagination implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 带总数的分页时, 是否并发执行总数查询与数据查询 (事务中始终串行)
+         */
+        protected boolean concurrent = false;
+
+        /**
+         * 总数缓存的最大数量, 小于 1 时不缓存
+         */
+        protected int countCacheSize = 0;
+
+        /**
+         * 总数缓存的有效时间 ms
+         */
+        protected long countCacheTtl = 10000L;
+
+        public boolean isConcurrent() {
+            return concurrent;
+        }
+
+        public void setConcurrent(boolean concurrent) {
+            this.concurrent = concurrent;
+        }
+
+        public int getCountCacheSize() {
+            return countCacheSize;
+        }
+
+        public void setCountCacheSize(int countCacheSize) {
+            this.countCacheSize = countCacheSize;
+        }
+
+        public long getCountCacheTtl() {
+            return countCacheTtl;
+        }
+
+        public void setCountCacheTtl(long countCacheTtl) {
+            this.countCacheTtl = countCacheTtl;
+        }
+
+        @Override
+        public String toString() {
+            return "Pagination{" + "concurrent=" + concurrent + ", countCacheSize=" + countCacheSize +
+                ", countCacheTtl=" + countCacheTtl + '}';
+        }
+    }
+
+    /**
+     * 关联关系
+     */
+    public static class Relation implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 同一层级的多个关联关系, 是否并发查询 (事务中始终串行)
+         */
+        protected boolean parallel = false;
+
+        /**
+         * 单次关联查询中, 同一层级的最大并发数量
+         */
+        protected int parallelism = 4;
+
+        /**
+         * 关联查询时, 单条语句中 in 的最大关系键数量, 超出时分块查询后合并, 小于 1 时不分块
+         * 分块查询同样遵循 parallel 与 parallelism
+         */
+        protected int chunkSize = 0;
+
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        public void setParallel(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public String toString() {
+            return "Relation{" + "parallel=" + parallel + ", parallelism=" + parallelism + ", chunkSize=" +
+                chunkSize + '}';
+        }
+    }
+
     /**
      * 异步线程池配置
      */
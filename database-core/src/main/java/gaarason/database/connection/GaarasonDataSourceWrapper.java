@@ -5,11 +5,13 @@
 import gaarason.database.core.Container;
 import gaarason.database.exception.*;
 import gaarason.database.lang.Nullable;
+import gaarason.database.support.RecordIdentityMap;
 import gaarason.database.util.ObjectUtils;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Savepoint;
@@ -34,6 +36,17 @@ public class GaarasonDataSourceWrapper extends Container.SimpleKeeper implements
      */
     protected final ThreadLocal<Connection> localThreadTransactionConnection = new ThreadLocal<>();
 
+    /**
+     * 每个连接上最多缓存的预执行对象数量
+     */
+    protected static final int PREPARED_STATEMENT_CACHE_SIZE = 64;
+
+    /**
+     * 事物中的 Connection 上的预执行对象缓存
+     * 仅在事物中使用, 事物结束(连接归还连接池)前全部关闭, 因此不会跨越连接池的借出周期
+     */
+    protected final ThreadLocal<PreparedStatementCache> localThreadTransactionStatementCache = new ThreadLocal<>();
+
     /**
      * 事物中的 savepoint 列表
      * 事物嵌套是才会使用
@@ -124,6 +137,7 @@ public void commit() {
             } catch (SQLException e) {
                 throw new SQLRuntimeException(e.getMessage(), e);
             } finally {
+                statementCacheClose();
                 connectionClose(connection);
                 localThreadTransactionConnection.remove();
             }
@@ -136,6 +150,8 @@ public void commit() {
 
     @Override
     public void rollBack() {
+        // 标识映射中, 可能存在事务中读取的记录
+        RecordIdentityMap.evictAll();
         Connection connection = localThreadTransactionConnection.get();
         // 无已存在 savepoint, 直接回滚
         if (localThreadTransactionSavepointLinkedList.get().isEmpty()) {
@@ -145,6 +161,7 @@ public void rollBack() {
             } catch (SQLException e) {
                 throw new SQLRuntimeException(e.getMessage(), e);
             } finally {
+                statementCacheClose();
                 connectionClose(connection);
                 localThreadTransactionConnection.remove();
             }
@@ -171,6 +188,49 @@ public void localConnectionClose(Connection connection) throws SQLRuntimeExcepti
         }
     }
 
+    @Override
+    public PreparedStatement getLocalPreparedStatement(Connection connection, String sql, boolean returnGeneratedKeys)
+        throws SQLException {
+        Connection transactionConnection = localThreadTransactionConnection.get();
+        // 非事物中, 连接用完即归还连接池, 之后可能由其他线程持有, 其上的预执行对象无法跨次复用, 不进行缓存
+        // 此时由连接池自身的预执行对象缓存负责 (eg: druid 的 poolPreparedStatements)
+        if (transactionConnection == null || transactionConnection != connection) {
+            return PreparedStatementCache.prepareStatement(connection, sql, returnGeneratedKeys);
+        }
+        PreparedStatementCache preparedStatementCache = localThreadTransactionStatementCache.get();
+        if (preparedStatementCache == null) {
+            preparedStatementCache = new PreparedStatementCache(connection, PREPARED_STATEMENT_CACHE_SIZE);
+            localThreadTransactionStatementCache.set(preparedStatementCache);
+        }
+        return preparedStatementCache.get(sql, returnGeneratedKeys);
+    }
+
+    @Override
+    public void localPreparedStatementClose(PreparedStatement preparedStatement) throws SQLRuntimeException {
+        try {
+            PreparedStatementCache preparedStatementCache = localThreadTransactionStatementCache.get();
+            // 事物中, 归还至缓存
+            if (preparedStatementCache != null && isLocalThreadInTransaction()) {
+                preparedStatementCache.release(preparedStatement);
+            } else {
+                preparedStatement.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭当前线程事物中缓存的预执行对象
+     */
+    protected void statementCacheClose() {
+        PreparedStatementCache preparedStatementCache = localThreadTransactionStatementCache.get();
+        if (preparedStatementCache != null) {
+            localThreadTransactionStatementCache.remove();
+            preparedStatementCache.close();
+        }
+    }
+
     @Override
     public Connection getLocalConnection(boolean isWriteOrTransaction) throws SQLRuntimeException {
         // 事物中, 则返回之前的最新 Connection
@@ -0,0 +1,155 @@
+package gaarason.database.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * 单个连接上的预执行对象缓存 (LRU, 有界), 非线程安全
+ * 仅在连接被独占期间(eg: 事务中)使用, 连接归还前需调用 close 关闭所有缓存的预执行对象
+ * 获取的预执行对象在使用完毕后, 需调用 release 归还
+ * @author xt
+ */
+public class PreparedStatementCache {
+
+    /**
+     * 所属连接
+     */
+    private final Connection connection;
+
+    /**
+     * 缓存
+     */
+    private final LinkedHashMap<Key, PreparedStatement> cache;
+
+    /**
+     * 使用中(已获取, 未归还)的缓存的预执行对象
+     */
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * @param connection 所属连接
+     * @param maxSize 最大缓存数量
+     */
+    public PreparedStatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.cache = new LinkedHashMap<Key, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() > maxSize) {
+                    // 使用中的, 在归还时关闭
+                    if (!inUse.remove(eldest.getValue())) {
+                        closeQuietly(eldest.getValue());
+                    }
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取预执行对象, 不存在(或已关闭)则创建
+     * 缓存的预执行对象使用中时(eg: 读取其结果集期间, 嵌套执行相同的sql), 创建新的预执行对象且不缓存, 以免关闭使用中的结果集
+     * @param sql 带占位符的sql
+     * @param returnGeneratedKeys 是否需要返回自增主键
+     * @return 预执行对象(参数以及批次已清空)
+     * @throws SQLException 数据库异常
+     */
+    public PreparedStatement get(String sql, boolean returnGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, returnGeneratedKeys);
+        PreparedStatement preparedStatement = cache.get(key);
+        if (preparedStatement != null && !preparedStatement.isClosed()) {
+            if (!inUse.add(preparedStatement)) {
+                return prepareStatement(connection, sql, returnGeneratedKeys);
+            }
+            preparedStatement.clearParameters();
+            preparedStatement.clearBatch();
+            return preparedStatement;
+        }
+        preparedStatement = prepareStatement(connection, sql, returnGeneratedKeys);
+        cache.put(key, preparedStatement);
+        inUse.add(preparedStatement);
+        return preparedStatement;
+    }
+
+    /**
+     * 归还预执行对象
+     * 缓存的预执行对象标记为空闲, 其他的(未缓存或已被淘汰)直接关闭
+     * @param preparedStatement 预执行对象
+     * @throws SQLException 数据库异常
+     */
+    public void release(PreparedStatement preparedStatement) throws SQLException {
+        if (!inUse.remove(preparedStatement)) {
+            preparedStatement.close();
+        }
+    }
+
+    /**
+     * 关闭所有缓存的预执行对象
+     * 关闭出错时忽略, 连接关闭时也会关闭其上的预执行对象
+     */
+    public void close() {
+        for (PreparedStatement preparedStatement : cache.values()) {
+            closeQuietly(preparedStatement);
+        }
+        cache.clear();
+        inUse.clear();
+    }
+
+    /**
+     * 创建预执行对象
+     * @param connection 连接
+     * @param sql 带占位符的sql
+     * @param returnGeneratedKeys 是否需要返回自增主键
+     * @return 预执行对象
+     * @throws SQLException 数据库异常
+     */
+    public static PreparedStatement prepareStatement(Connection connection, String sql, boolean returnGeneratedKeys)
+        throws SQLException {
+        return returnGeneratedKeys ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
+            connection.prepareStatement(sql);
+    }
+
+    private static void closeQuietly(PreparedStatement preparedStatement) {
+        try {
+            preparedStatement.close();
+        } catch (SQLException e) {
+            // 关闭失败不影响后续执行
+        }
+    }
+
+    /**
+     * 缓存键 (sql, 预执行类型)
+     */
+    private static final class Key {
+
+        private final String sql;
+
+        private final boolean returnGeneratedKeys;
+
+        Key(String sql, boolean returnGeneratedKeys) {
+            this.sql = sql;
+            this.returnGeneratedKeys = returnGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return returnGeneratedKeys == key.returnGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, returnGeneratedKeys);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package gaarason.database.eloquent;
 
 import gaarason.database.appointment.EntityUseType;
+import gaarason.database.appointment.IdentityMap;
 import gaarason.database.appointment.JDBCValueWrapper;
 import gaarason.database.config.ConversionConfig;
 import gaarason.database.contract.connection.GaarasonDataSource;
@@ -8,23 +9,29 @@
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
 import gaarason.database.contract.function.ExecSqlWithinConnectionFunctionalInterface;
+import gaarason.database.contract.function.ResultSetFunctionalInterface;
 import gaarason.database.contract.model.Query;
 import gaarason.database.core.Container;
+import gaarason.database.exception.AbnormalParameterException;
 import gaarason.database.exception.EntityNotFoundException;
 import gaarason.database.exception.PrimaryKeyNotFoundException;
 import gaarason.database.exception.PrimaryKeyTypeNotSupportException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
+import gaarason.database.support.CountCache;
 import gaarason.database.support.FieldMember;
 import gaarason.database.support.PrimaryKeyMember;
 import gaarason.database.support.RecordFactory;
+import gaarason.database.support.RecordIdentityMap;
 import gaarason.database.util.EntityUtils;
 import gaarason.database.util.ObjectUtils;
 import gaarason.database.util.StringUtils;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * 数据模型对象
@@ -103,25 +110,78 @@ public RecordList<T, K> findAll(String... column) throws SQLRuntimeException {
 
     @Override
     public RecordList<T, K> findMany(Collection<Object> ids) throws SQLRuntimeException {
-        return newQuery().select(getEntityClass()).whereIn(getPrimaryKeyColumnName(), ids).get();
+        if (IdentityMap.current() == null) {
+            return newQuery().select(getEntityClass()).whereIn(getPrimaryKeyColumnName(), ids).get();
+        }
+        // 标识映射中已存在的记录, 不再查询
+        List<Record<T, K>> hitRecords = new ArrayList<>();
+        List<Object> missIds = new ArrayList<>();
+        for (Object id : ids) {
+            Record<T, K> hitRecord = RecordIdentityMap.find(this, id);
+            if (hitRecord != null) {
+                hitRecords.add(hitRecord);
+            } else {
+                missIds.add(id);
+            }
+        }
+        RecordList<T, K> records = missIds.isEmpty() ? RecordFactory.newRecordList(getContainer()) :
+            RecordIdentityMap.rememberAll(
+                newQuery().select(getEntityClass()).whereIn(getPrimaryKeyColumnName(), missIds).get());
+        if (hitRecords.isEmpty()) {
+            return records;
+        }
+        // 与直接查询时的顺序(主键顺序)保持一致
+        List<Record<T, K>> allRecords = new ArrayList<>(records);
+        allRecords.addAll(hitRecords);
+        String primaryKeyColumnName = getPrimaryKeyColumnName();
+        allRecords.sort((a, b) -> comparePrimaryKey(a.getMetadataMap().get(primaryKeyColumnName),
+            b.getMetadataMap().get(primaryKeyColumnName)));
+        records.clear();
+        records.addAll(allRecords);
+        return records;
+    }
+
+    /**
+     * 比较主键值
+     * 数值类型按数值比较, 其他类型按字符串比较
+     * @param a 主键值
+     * @param b 主键值
+     * @return 比较结果
+     */
+    private static int comparePrimaryKey(@Nullable Object a, @Nullable Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        return a.toString().compareTo(b.toString());
     }
 
     @Override
     public RecordList<T, K> findMany(Object... ids) throws SQLRuntimeException {
-        return newQuery().select(getEntityClass())
-            .whereIn(getPrimaryKeyColumnName(), new HashSet<>(Arrays.asList(ids)))
-            .get();
+        return findMany(new HashSet<>(Arrays.asList(ids)));
     }
 
     @Override
     public Record<T, K> findOrFail(@Nullable Object id) throws EntityNotFoundException, SQLRuntimeException {
-        return newQuery().select(getEntityClass()).where(getPrimaryKeyColumnName(), id).firstOrFail();
+        Record<T, K> hitRecord = RecordIdentityMap.find(this, id);
+        if (hitRecord != null) {
+            return hitRecord;
+        }
+        return RecordIdentityMap.remember(
+            newQuery().select(getEntityClass()).where(getPrimaryKeyColumnName(), id).firstOrFail());
     }
 
     @Override
     @Nullable
     public Record<T, K> find(@Nullable Object id) {
-        return newQuery().select(getEntityClass()).where(getPrimaryKeyColumnName(), id).first();
+        Record<T, K> hitRecord = RecordIdentityMap.find(this, id);
+        if (hitRecord != null) {
+            return hitRecord;
+        }
+        return RecordIdentityMap.remember(
+            newQuery().select(getEntityClass()).where(getPrimaryKeyColumnName(), id).first());
     }
 
     @Override
@@ -305,6 +365,112 @@ public RecordList<T, K> nativeQueryList(String sql, @Nullable Collection<?> para
         }, sql, parameters, false);
     }
 
+    @Override
+    public List<T> nativeQueryObjectList(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException {
+        return doSomethingInConnection(preparedStatement -> {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            return RecordFactory.newObjectList(getSelf(), resultSet);
+        }, sql, parameters, false);
+    }
+
+    @Override
+    public <U> U nativeQueryResultSet(String sql, @Nullable Collection<?> parameters,
+        ResultSetFunctionalInterface<U> closure) throws SQLRuntimeException {
+        return doSomethingInConnection(preparedStatement -> {
+            ResultSet resultSet = preparedStatement.executeQuery();
+            return closure.apply(resultSet);
+        }, sql, parameters, false);
+    }
+
+    @Override
+    public Stream<Record<T, K>> nativeQueryStream(String sql, @Nullable Collection<?> parameters, int fetchSize)
+        throws SQLRuntimeException {
+        return nativeQueryStream(sql, parameters, fetchSize,
+            resultSet -> RecordFactory.newRecordStream(getSelf(), resultSet, sql));
+    }
+
+    @Override
+    public <V> Stream<V> nativeQueryStreamAs(String sql, @Nullable Collection<?> parameters, int fetchSize,
+        Class<V> clazz) throws SQLRuntimeException {
+        return nativeQueryStream(sql, parameters, fetchSize,
+            resultSet -> RecordFactory.newObjectStream(getSelf(), resultSet, sql, clazz));
+    }
+
+    @Override
+    public Stream<Map<String, Object>> nativeQueryStreamMap(String sql, @Nullable Collection<?> parameters,
+        int fetchSize) throws SQLRuntimeException {
+        return nativeQueryStream(sql, parameters, fetchSize,
+            resultSet -> RecordFactory.newMapStream(getSelf(), resultSet, sql));
+    }
+
+    /**
+     * 流式获取所有数据
+     * 使用 TYPE_FORWARD_ONLY, CONCUR_READ_ONLY 的预执行对象, 流关闭时释放资源
+     * @param sql 查询语句
+     * @param parameters 参数绑定列表
+     * @param fetchSize 单次从数据库获取的行数
+     * @param streamFactory 由结果集生成流 (按需逐行读取)
+     * @param <V> 元素类型
+     * @return 流
+     * @throws SQLRuntimeException 数据库异常
+     */
+    protected <V> Stream<V> nativeQueryStream(String sql, @Nullable Collection<?> parameters, int fetchSize,
+        ResultSetFunctionalInterface<Stream<V>> streamFactory) throws SQLRuntimeException {
+        Collection<?> localParameters = parameters == null ? Collections.EMPTY_LIST : parameters;
+        GaarasonDataSource gaarasonDataSource = getGaarasonDataSource();
+        // 获取连接, 在流关闭时归还
+        Connection connection = gaarasonDataSource.getLocalConnection(false);
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            // 日志记录
+            getSelf().log(sql, localParameters);
+            // 仅向前, 只读
+            preparedStatement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(fetchSize);
+            // 参数绑定
+            int i = 1;
+            for (Object parameter : localParameters) {
+                setParameter(preparedStatement, i++, parameter);
+            }
+            resultSet = preparedStatement.executeQuery();
+
+            final PreparedStatement finalPreparedStatement = preparedStatement;
+            final ResultSet finalResultSet = resultSet;
+            return streamFactory.apply(resultSet)
+                .onClose(() -> streamClose(connection, finalPreparedStatement, finalResultSet));
+        } catch (Throwable e) {
+            streamClose(connection, preparedStatement, resultSet);
+            throw new SQLRuntimeException(sql, localParameters, e.getMessage(),
+                gaarasonDataSource.getQueryBuilder().getValueSymbol(), e);
+        }
+    }
+
+    /**
+     * 关闭流式查询所占用的资源
+     * @param connection 数据库连接
+     * @param preparedStatement 预执行对象
+     * @param resultSet 结果集
+     * @throws SQLRuntimeException 数据库异常
+     */
+    protected void streamClose(Connection connection, @Nullable PreparedStatement preparedStatement,
+        @Nullable ResultSet resultSet) throws SQLRuntimeException {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+            if (preparedStatement != null) {
+                preparedStatement.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e.getMessage(), e);
+        } finally {
+            // 关闭连接
+            getGaarasonDataSource().localConnectionClose(connection);
+        }
+    }
+
     @Override
     public int nativeExecute(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException {
         return doSomethingInConnection(PreparedStatement::executeUpdate, sql, parameters, true);
@@ -323,7 +489,24 @@ public List<K> nativeExecuteGetIds(String sql, @Nullable Collection<?> parameter
             }
             generatedKeys.close();
             return ids;
-        }, sql, parameters, true);
+        }, sql, parameters, true, true);
+    }
+
+    @Override
+    public int[] nativeExecuteBatch(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        return doSomethingInConnection(
+            preparedStatement -> executeBatch(preparedStatement, parametersList, batchSize, null), sql, null, true);
+    }
+
+    @Override
+    public List<K> nativeExecuteBatchGetIds(String sql, Collection<? extends Collection<?>> parametersList,
+        int batchSize) throws SQLRuntimeException {
+        return doSomethingInConnection(preparedStatement -> {
+            List<K> ids = new ArrayList<>(parametersList.size());
+            executeBatch(preparedStatement, parametersList, batchSize, ids);
+            return ids;
+        }, sql, null, true, true);
     }
 
     @Override
@@ -381,7 +564,7 @@ public CompletableFuture<List<K>> nativeExecuteGetIdsAsync(String sql, @Nullable
             }
             generatedKeys.close();
             return ids;
-        }, sql, parameters, true);
+        }, sql, parameters, true, true);
     }
 
     @Override
@@ -403,15 +586,44 @@ public CompletableFuture<K> nativeExecuteGetIdAsync(String sql, @Nullable Collec
      */
     protected <U> U doSomethingInConnection(ExecSqlWithinConnectionFunctionalInterface<U> closure, String sql,
         @Nullable Collection<?> parameters, boolean isWrite) throws SQLRuntimeException {
+        return doSomethingInConnection(closure, sql, parameters, isWrite, false);
+    }
+
+    /**
+     * 写操作时, 清除当前模型的缓存 (当前线程的标识映射, 分页总数缓存)
+     * 所有的写操作(包括原生sql以及批量执行)均经过此处, 缓存中当前模型的记录以及总数可能已经过期
+     */
+    protected void invalidateOnWrite() {
+        RecordIdentityMap.evict(getSelf());
+        getContainer().getBean(CountCache.class).evict(getClass());
+    }
+
+    /**
+     * 在连接中执行
+     * @param closure 闭包
+     * @param sql 带占位符的sql
+     * @param parameters sql的参数
+     * @param isWrite 是否写(主)链接
+     * @param returnGeneratedKeys 是否需要返回自增主键
+     * @param <U> 响应类型
+     * @return 响应
+     * @throws SQLRuntimeException 数据库异常
+     */
+    protected <U> U doSomethingInConnection(ExecSqlWithinConnectionFunctionalInterface<U> closure, String sql,
+        @Nullable Collection<?> parameters, boolean isWrite, boolean returnGeneratedKeys) throws SQLRuntimeException {
 
         Collection<?> localParameters = parameters == null ? Collections.EMPTY_LIST : parameters;
         GaarasonDataSource gaarasonDataSource = getGaarasonDataSource();
+        if (isWrite) {
+            invalidateOnWrite();
+        }
         // 获取连接
         Connection connection = gaarasonDataSource.getLocalConnection(isWrite);
+        PreparedStatement preparedStatement = null;
 
         try {
             // 参数准备
-            PreparedStatement preparedStatement = executeSql(connection, sql, localParameters);
+            preparedStatement = executeSql(connection, sql, localParameters, returnGeneratedKeys);
             // 执行
             return closure.execute(preparedStatement);
         } catch (EntityNotFoundException e) {
@@ -421,8 +633,15 @@ protected <U> U doSomethingInConnection(ExecSqlWithinConnectionFunctionalInterfa
             throw new SQLRuntimeException(sql, localParameters, e.getMessage(),
                 gaarasonDataSource.getQueryBuilder().getValueSymbol(), e);
         } finally {
-            // 关闭连接
-            gaarasonDataSource.localConnectionClose(connection);
+            try {
+                // 关闭预执行对象
+                if (preparedStatement != null) {
+                    gaarasonDataSource.localPreparedStatementClose(preparedStatement);
+                }
+            } finally {
+                // 关闭连接
+                gaarasonDataSource.localConnectionClose(connection);
+            }
         }
     }
 
@@ -439,6 +658,23 @@ protected <U> U doSomethingInConnection(ExecSqlWithinConnectionFunctionalInterfa
     protected <U> CompletableFuture<U> doSomethingInConnectionAsync(
         ExecSqlWithinConnectionFunctionalInterface<U> closure, String sql, @Nullable Collection<?> parameters,
         boolean isWrite) throws SQLRuntimeException {
+        return doSomethingInConnectionAsync(closure, sql, parameters, isWrite, false);
+    }
+
+    /**
+     * 在连接中异步执行
+     * @param closure 闭包
+     * @param sql 带占位符的sql
+     * @param parameters sql的参数
+     * @param isWrite 是否写(主)链接
+     * @param returnGeneratedKeys 是否需要返回自增主键
+     * @param <U> 响应类型
+     * @return 响应
+     * @throws SQLRuntimeException 数据库异常
+     */
+    protected <U> CompletableFuture<U> doSomethingInConnectionAsync(
+        ExecSqlWithinConnectionFunctionalInterface<U> closure, String sql, @Nullable Collection<?> parameters,
+        boolean isWrite, boolean returnGeneratedKeys) throws SQLRuntimeException {
 
         GaarasonDataSource gaarasonDataSource = getGaarasonDataSource();
 
@@ -447,15 +683,83 @@ protected <U> CompletableFuture<U> doSomethingInConnectionAsync(
 
         if (inTransaction) {
             // 事务中使用同步执行
-            U value = doSomethingInConnection(closure, sql, parameters, isWrite);
+            U value = doSomethingInConnection(closure, sql, parameters, isWrite, returnGeneratedKeys);
             return CompletableFuture.completedFuture(value);
         } else {
+            // 执行线程中不存在当前线程的作用域, 在当前线程中清除
+            if (isWrite) {
+                invalidateOnWrite();
+            }
             // 非事务中使用异步执行
-            return CompletableFuture.supplyAsync(() -> doSomethingInConnection(closure, sql, parameters, isWrite),
+            return CompletableFuture.supplyAsync(
+                () -> doSomethingInConnection(closure, sql, parameters, isWrite, returnGeneratedKeys),
                 getExecutorService());
         }
     }
 
+    /**
+     * 批量执行
+     * @param preparedStatement 预执行对象
+     * @param parametersList 参数绑定列表的集合
+     * @param batchSize 单次提交的数量
+     * @param ids 自增长主键列表, 为 null 时不获取
+     * @return 每次执行的受影响的行数
+     * @throws SQLException 数据库异常
+     */
+    protected int[] executeBatch(PreparedStatement preparedStatement, Collection<? extends Collection<?>> parametersList,
+        int batchSize, @Nullable List<K> ids) throws SQLException {
+        if (batchSize < 1) {
+            throw new AbnormalParameterException("The batch size [" + batchSize + "] should be greater than 0.");
+        }
+        int[] counts = new int[parametersList.size()];
+        int offset = 0;
+        int pending = 0;
+        try {
+            for (Collection<?> parameters : parametersList) {
+                // 参数绑定
+                int i = 1;
+                for (Object parameter : parameters) {
+                    setParameter(preparedStatement, i++, parameter);
+                }
+                preparedStatement.addBatch();
+                if (++pending == batchSize) {
+                    offset = executeBatch(preparedStatement, counts, offset, ids);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                executeBatch(preparedStatement, counts, offset, ids);
+            }
+        } finally {
+            // 预执行对象可能被缓存复用, 异常时不能残留未执行的批次
+            preparedStatement.clearBatch();
+        }
+        return counts;
+    }
+
+    /**
+     * 提交一次批量执行
+     * @param preparedStatement 预执行对象
+     * @param counts 受影响的行数
+     * @param offset 本次结果在 counts 中的起始下标
+     * @param ids 自增长主键列表, 为 null 时不获取
+     * @return 下次结果在 counts 中的起始下标
+     * @throws SQLException 数据库异常
+     */
+    private int executeBatch(PreparedStatement preparedStatement, int[] counts, int offset, @Nullable List<K> ids)
+        throws SQLException {
+        int[] batchCounts = preparedStatement.executeBatch();
+        System.arraycopy(batchCounts, 0, counts, offset, batchCounts.length);
+        if (ids != null) {
+            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                while (generatedKeys.next()) {
+                    ids.add(getGeneratedKeys(generatedKeys));
+                }
+            }
+        }
+        return offset + batchCounts.length;
+    }
+
     /**
      * 获取主键
      * @param generatedKeys 数据集
@@ -491,10 +795,25 @@ private K getGeneratedKeys(ResultSet generatedKeys) throws SQLException, Primary
      */
     protected PreparedStatement executeSql(Connection connection, String sql, Collection<?> parameterList)
         throws SQLException {
+        return executeSql(connection, sql, parameterList, false);
+    }
+
+    /**
+     * 执行sql
+     * @param connection 数据库连接
+     * @param sql 查询语句
+     * @param parameterList 参数绑定
+     * @param returnGeneratedKeys 是否需要返回自增主键 (仅 insert 需要)
+     * @return 预执行对象
+     * @throws SQLException sql错误
+     */
+    protected PreparedStatement executeSql(Connection connection, String sql, Collection<?> parameterList,
+        boolean returnGeneratedKeys) throws SQLException {
         // 日志记录
         getSelf().log(sql, parameterList);
-        // 预执行 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY
-        PreparedStatement preparedStatement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        // 预执行 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY (事物中复用同一连接上的预执行对象)
+        PreparedStatement preparedStatement = getGaarasonDataSource().getLocalPreparedStatement(connection, sql,
+            returnGeneratedKeys);
         // 参数绑定
         int i = 1;
         for (Object parameter : parameterList) {
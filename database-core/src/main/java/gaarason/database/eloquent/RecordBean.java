@@ -19,6 +19,7 @@
 import gaarason.database.support.FieldMember;
 import gaarason.database.support.PrimaryKeyMember;
 import gaarason.database.support.RelationGetSupport;
+import gaarason.database.support.RowMap;
 import gaarason.database.util.ClassUtils;
 import gaarason.database.util.EntityUtils;
 import gaarason.database.util.ObjectUtils;
@@ -46,9 +47,16 @@
     /**
      * 历史元数据
      * 不管从检索起模型是否发生了任何变化, 它都不变, 除非调用 xx 方法, 主动刷新
+     * 写时复制, 在元数据首次变更前, 与 metadataMap 为同一对象
      * <数据库字段名 -> 字段信息>
      */
-    protected  Map<String, Object> originalMetadataMap = new HashMap<>(16);
+    protected  Map<String, Object> originalMetadataMap = metadataMap;
+
+    /**
+     * 元数据的视图, 对外提供, 写入前分离历史元数据
+     */
+    @Nullable
+    protected transient MetadataMapView metadataMapView;
 
     /**
      * 数据模型
@@ -70,7 +78,9 @@
 
     /**
      * 数据实体
+     * 延迟生成, 首次使用时才根据元数据生成
      */
+    @Nullable
     protected T entity;
 
     /**
@@ -106,6 +116,24 @@ public RecordBean(Model<?, T, K> model, Map<String, Object> stringObjectMap, Str
         initNewRecord(model, stringObjectMap, originalSql);
     }
 
+    /**
+     * 根据新读取的行数据生成, 直接持有该行数据而不复制
+     * 仅用于不被其他对象持有的行数据 (eg: 刚从结果集中读取的)
+     * @param model 数据模型
+     * @param rowMap 元数据, 由生成的记录独占
+     * @param originalSql 原sql
+     * @param <T> 实体类型
+     * @param <K> 实体主键类型
+     * @return 记录
+     */
+    public static <T, K> RecordBean<T, K> adopt(Model<?, T, K> model, RowMap rowMap, String originalSql) {
+        RecordBean<T, K> record = new RecordBean<>();
+        // 与元数据为同一对象时, 初始化不再复制
+        record.metadataMap = rowMap;
+        record.initNewRecord(model, rowMap, originalSql);
+        return record;
+    }
+
     /**
      * 凭空生成
      * @param model 数据模型
@@ -119,14 +147,17 @@ public RecordBean(Model<?, T, K> model) {
      * @param recordBean 已经完成初始化的 Record
      */
     public RecordBean(Record<T, K> recordBean) {
-        initRecord(recordBean.getModel(), recordBean.getMetadataMap(), recordBean.getOriginalSql());
+        initRecord(recordBean.getModel(), unwrapMetadataMap(recordBean.getMetadataMap()),
+            recordBean.getOriginalSql());
         this.entity = recordBean.getEntity();
         this.originalPrimaryKeyValue = recordBean.getOriginalPrimaryKeyValue();
     }
 
     protected void initNewRecord(Model<?, T, K> model, Map<String, Object> stringObjectMap, String originalSql) {
         initRecord(model, stringObjectMap, originalSql);
-        this.entity = toObjectWithoutRelationship();
+        // 实体对象延迟生成, 此处仅记录主键值
+        this.entity = null;
+        initOriginalPrimaryKeyValue();
         // 通知
         model.eventRecordRetrieved(this);
     }
@@ -140,6 +171,20 @@ protected void initRecord(Model<?, T, K> model, Map<String, Object> stringObject
         hasBind = !metadataMap.isEmpty();
     }
 
+    /**
+     * 从元数据中获取主键值
+     * 与实体对象生成时的赋值规则保持一致
+     */
+    protected void initOriginalPrimaryKeyValue() {
+        PrimaryKeyMember<K> primaryKeyMember = modelShadow.get(model).getEntityMember().getPrimaryKeyMember();
+        if (primaryKeyMember != null) {
+            Object primaryKeyValue = metadataMap.get(primaryKeyMember.getFieldMember().getColumnName());
+            if (primaryKeyValue != null) {
+                originalPrimaryKeyValue = ObjectUtils.typeCast(primaryKeyValue);
+            }
+        }
+    }
+
     /**
      * 初始化数据
      * @param stringObjectMap 元数据
@@ -147,12 +192,24 @@ protected void initRecord(Model<?, T, K> model, Map<String, Object> stringObject
     protected void init(Map<String, Object> stringObjectMap) {
         // 如果不是统同一个(引用相同)对象, 则手动赋值下
         if (metadataMap != stringObjectMap) {
-            metadataMap.clear();
-            metadataMap.putAll(stringObjectMap);
+            if (stringObjectMap instanceof RowMap) {
+                // 调用方传入的行数据, 共用列结构, 仅复制值数组
+                metadataMap = new RowMap((RowMap) stringObjectMap);
+            } else {
+                metadataMap.clear();
+                metadataMap.putAll(stringObjectMap);
+            }
         }
-        if (originalMetadataMap != stringObjectMap) {
-            originalMetadataMap.clear();
-            originalMetadataMap.putAll(stringObjectMap);
+        // 历史元数据与元数据此时一致, 共用即可
+        originalMetadataMap = metadataMap;
+    }
+
+    /**
+     * 元数据变更前, 分离历史元数据
+     */
+    protected void detachOriginalMetadataMap() {
+        if (originalMetadataMap == metadataMap) {
+            originalMetadataMap = new HashMap<>(metadataMap);
         }
     }
 
@@ -166,9 +223,27 @@ public String lambda2ColumnName(ColumnFunctionalInterface<?, ?> column) {
         return modelShadow.parseColumnNameByLambdaWithCache(column);
     }
 
+    /**
+     * 元数据
+     * 返回的是视图, 读取时直接访问元数据, 写入时先分离历史元数据, 以免历史元数据随之变化
+     * @return 本表元数据
+     */
     @Override
     public Map<String, Object> getMetadataMap() {
-        return metadataMap;
+        if (metadataMapView == null) {
+            metadataMapView = new MetadataMapView();
+        }
+        return metadataMapView;
+    }
+
+    /**
+     * 获取视图背后的元数据本身, 仅用于只读或者不涉及字段值的场景 (eg: 复制 RowMap, 取出 join 的行数据)
+     * @param metadataMap 元数据 (或其视图)
+     * @return 元数据本身
+     */
+    public static Map<String, Object> unwrapMetadataMap(Map<String, Object> metadataMap) {
+        return metadataMap instanceof RecordBean.MetadataMapView ?
+            ((RecordBean<?, ?>.MetadataMapView) metadataMap).owner().metadataMap : metadataMap;
     }
 
     @Override
@@ -188,7 +263,11 @@ public String getOriginalSql() {
 
     @Override
     public T getEntity() {
-        return entity;
+        T localEntity = entity;
+        if (localEntity == null) {
+            localEntity = entity = toObjectWithoutRelationship();
+        }
+        return localEntity;
     }
 
     @Override
@@ -200,7 +279,7 @@ public T getEntity(T entity) {
     @Override
     public Record<T, K> fillEntity(T entity) {
         // 合并属性
-        EntityUtils.entityMergeReference(this.entity, entity, true);
+        EntityUtils.entityMergeReference(getEntity(), entity, true);
         return this;
     }
 
@@ -340,7 +419,7 @@ public boolean saveByPrimaryKey() {
         if (primaryKeyMember != null) {
             // 获取主键值
             ValueWrapper<?> valueWrapper = primaryKeyMember.getFieldMember()
-                .fieldFillGet(entity, EntityUseType.CONDITION, false);
+                .fieldFillGet(getEntity(), EntityUseType.CONDITION, false);
             if (valueWrapper.isValid()) {
                 flag = true;
                 success = updateByPrimaryKey(valueWrapper.getValue());
@@ -376,8 +455,9 @@ public boolean delete() {
             model.newQueryWithoutApply().where(model.getPrimaryKeyColumnName(), originalPrimaryKeyValue.toString()).delete() > 0;
         // 成功删除后后,刷新自身属性
         if (success) {
+            detachOriginalMetadataMap();
             this.metadataMap.clear();
-            entity = toObjectWithoutRelationship();
+            entity = null;
             hasBind = false;
             // 通知
             model.eventRecordDeleted(this);
@@ -457,7 +537,8 @@ public Record<T, K> refresh() {
     @Override
     public Record<T, K> refresh(Map<String, Object> metadataMap) {
         init(metadataMap);
-        this.entity = toObjectWithoutRelationship();
+        this.entity = null;
+        initOriginalPrimaryKeyValue();
         if (!metadataMap.isEmpty()) {
             hasBind = true;
             // 通知
@@ -476,6 +557,7 @@ public boolean isDirty() {
     @Override
     public Map<String, Object> getDirtyMap() {
         EntityMember<T, K> entityMember = modelShadow.parseAnyEntityWithCache(entityClass);
+        T theEntity = getEntity();
 
         Map<String, Object> theMap = new HashMap<>(16);
         Map<String, FieldMember<?>> columnFieldMap = entityMember.getColumnFieldMap();
@@ -486,7 +568,7 @@ public Map<String, Object> getDirtyMap() {
             // 元数据中的值
             final Object valueInMetadataMap = metadataMap.get(columnName);
             // entity中的值
-            final Object valueInEntity = fieldMember.fieldGet(entity);
+            final Object valueInEntity = fieldMember.fieldGet(theEntity);
             // 如果不相等,则加入返回对象对象
             if (!ObjectUtils.nullSafeEquals(valueInMetadataMap, valueInEntity)) {
                 theMap.put(columnName, valueInEntity);
@@ -589,7 +671,7 @@ protected boolean insert() {
             return false;
         }
         // entity 2 map
-        Map<String, Object> entityMap = modelShadow.entityToMap(entity, EntityUseType.INSERT);
+        Map<String, Object> entityMap = modelShadow.entityToMap(getEntity(), EntityUseType.INSERT);
         // 执行并, 返回主键
         K primaryKeyValue = model.newQuery().value(entityMap).insertGetId();
 
@@ -635,7 +717,7 @@ protected boolean updateByPrimaryKey(@Nullable Object primaryKeyValue) {
             return false;
         }
         // entity 2 map
-        Map<String, Object> entityMap = modelShadow.entityToMap(entity, EntityUseType.UPDATE);
+        Map<String, Object> entityMap = modelShadow.entityToMap(getEntity(), EntityUseType.UPDATE);
         // 执行
         boolean success =
             model.newQueryWithoutApply().where(model.getPrimaryKeyColumnName(), primaryKeyValue).data(entityMap).update() > 0;
@@ -657,6 +739,11 @@ protected boolean updateByPrimaryKey(@Nullable Object primaryKeyValue) {
     protected void selfUpdate(Map<String, Object> entityMap) {
         // 更新元数据
         selfUpdateMetadataMap(entityMap);
+        // 实体尚未生成, 则无需合并, 使用时会根据最新的元数据生成
+        if (this.entity == null) {
+            initOriginalPrimaryKeyValue();
+            return;
+        }
         // 更新相关对象
         // 这一步操作可以剔除无效的字段
         T entity = toObjectWithoutRelationship();
@@ -669,6 +756,7 @@ protected void selfUpdate(Map<String, Object> entityMap) {
      * @param entityMap 新的实体所对应的MAP
      */
     protected void selfUpdateMetadataMap(Map<String, Object> entityMap) {
+        detachOriginalMetadataMap();
         metadataMap.clear();
         metadataMap.putAll(entityMap);
         hasBind = true;
@@ -710,6 +798,131 @@ public void readExternal(ObjectInput in) throws IOException, ClassNotFoundExcept
             .getModel();
 
         initNewRecord(ObjectUtils.typeCast(model), ObjectUtils.typeCast(map), sql);
-        originalMetadataMap.putAll(ObjectUtils.typeCast(originalMap));
+        Map<String, Object> theOriginalMap = ObjectUtils.typeCast(originalMap);
+        if (!metadataMap.equals(theOriginalMap)) {
+            detachOriginalMetadataMap();
+            originalMetadataMap.putAll(theOriginalMap);
+        }
+    }
+
+    /**
+     * 元数据的视图
+     * 通过 getMetadataMap() 进行的写入 (put, remove, clear, entry.setValue, iterator.remove 等), 先分离历史元数据
+     */
+    protected class MetadataMapView extends AbstractMap<String, Object> {
+
+        RecordBean<T, K> owner() {
+            return RecordBean.this;
+        }
+
+        @Override
+        public int size() {
+            return metadataMap.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return metadataMap.isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return metadataMap.containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return metadataMap.containsValue(value);
+        }
+
+        @Override
+        @Nullable
+        public Object get(Object key) {
+            return metadataMap.get(key);
+        }
+
+        @Override
+        @Nullable
+        public Object put(String key, @Nullable Object value) {
+            detachOriginalMetadataMap();
+            return metadataMap.put(key, value);
+        }
+
+        @Override
+        @Nullable
+        public Object remove(Object key) {
+            detachOriginalMetadataMap();
+            return metadataMap.remove(key);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ?> m) {
+            detachOriginalMetadataMap();
+            metadataMap.putAll(m);
+        }
+
+        @Override
+        public void clear() {
+            detachOriginalMetadataMap();
+            metadataMap.clear();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public int size() {
+                    return metadataMap.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = metadataMap.entrySet().iterator();
+                    return new Iterator<Entry<String, Object>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            Entry<String, Object> entry = iterator.next();
+                            return new SimpleEntry<String, Object>(entry) {
+                                private static final long serialVersionUID = 1L;
+
+                                @Override
+                                @Nullable
+                                public Object setValue(@Nullable Object value) {
+                                    detachOriginalMetadataMap();
+                                    entry.setValue(value);
+                                    return super.setValue(value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            detachOriginalMetadataMap();
+                            iterator.remove();
+                        }
+                    };
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o == this || metadataMap.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return metadataMap.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return metadataMap.toString();
+        }
     }
 }
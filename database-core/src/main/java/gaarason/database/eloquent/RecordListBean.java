@@ -14,6 +14,7 @@
 import gaarason.database.lang.Nullable;
 import gaarason.database.provider.GodProvider;
 import gaarason.database.provider.ModelShadowProvider;
+import gaarason.database.support.ArrayDequeList;
 import gaarason.database.support.EntityMember;
 import gaarason.database.support.RelationGetSupport;
 import gaarason.database.util.ObjectUtils;
@@ -26,11 +27,12 @@
 
 /**
  * 结果集集合对象
+ * 基于数组存储, 支持按下标快速访问
  * @param <T>
  * @param <K>
  * @author xt
  */
-public class RecordListBean<T, K> extends LinkedList<Record<T, K>>
+public class RecordListBean<T, K> extends ArrayDequeList<Record<T, K>>
     implements RecordList<T, K> {
 
     private static final long serialVersionUID = 1L;
@@ -67,6 +69,16 @@ public RecordListBean(String originalSql, Container container) {
         initRecordListBean(originalSql, container);
     }
 
+    /**
+     * @param originalSql 原始sql
+     * @param container 容器
+     * @param initialCapacity 初始容量
+     */
+    public RecordListBean(String originalSql, Container container, int initialCapacity) {
+        super(initialCapacity);
+        initRecordListBean(originalSql, container);
+    }
+
     protected void initRecordListBean(String originalSql, Container container) {
         this.originalSql = originalSql;
         this.container = container;
@@ -242,6 +254,31 @@ public <W> W elementGetValueByFieldName(Record<T, K> theRecord, String fieldName
         return value == null ? null : ObjectUtils.typeCast(value);
     }
 
+    @Override
+    public ReturnOne<Record<T, K>, Object> elementValueGetterByFieldName(String fieldName) {
+        // 同一集合中的元素, 一般来自同一个实体, 因此仅在实体变化时重新解析列名
+        return new ReturnOne<Record<T, K>, Object>() {
+
+            @Nullable
+            private Class<?> entityClass;
+
+            private String columnName = "";
+
+            @Override
+            @Nullable
+            public Object get(Record<T, K> theRecord) {
+                Class<T> theEntityClass = theRecord.getModel().getEntityClass();
+                if (theEntityClass != entityClass) {
+                    columnName = modelShadowProvider.parseAnyEntityWithCache(theEntityClass)
+                        .getFieldMemberByFieldName(fieldName)
+                        .getColumnName();
+                    entityClass = theEntityClass;
+                }
+                return theRecord.getMetadataMap().get(columnName);
+            }
+        };
+    }
+
     @Override
     public Map<String, Object> elementToMap(Record<T, K> theRecord) throws OperationNotSupportedException {
         return theRecord.toMap();
@@ -315,6 +352,7 @@ public void readExternal(ObjectInput in) throws IOException, ClassNotFoundExcept
 
         Container container = GodProvider.get(identification);
         initRecordListBean(sql, container);
+        ensureCapacity(array.length);
         for (Record<?, ?> record : array) {
             add(ObjectUtils.typeCast(record));
         }
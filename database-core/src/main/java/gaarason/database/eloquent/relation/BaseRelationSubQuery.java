@@ -3,8 +3,10 @@
 import gaarason.database.config.ConversionConfig;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Model;
+import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
 import gaarason.database.contract.eloquent.relation.RelationSubQuery;
+import gaarason.database.contract.function.BuilderAnyWrapper;
 import gaarason.database.contract.query.Grammar;
 import gaarason.database.eloquent.RecordListBean;
 import gaarason.database.lang.Nullable;
@@ -15,6 +17,7 @@
 import gaarason.database.util.ObjectUtils;
 
 import java.lang.reflect.Field;
+import java.math.BigInteger;
 import java.util.*;
 
 /**
@@ -100,6 +103,90 @@ protected static Set<Object> getColumnInMapList(List<Map<String, Object>> column
         return emptyRecordList();
     }
 
+    @Override
+    public List<List<Map<String, Object>>> chunkMetadata(List<Map<String, Object>> metadata, int chunkSize,
+        BuilderAnyWrapper customBuilder) {
+        if (chunkSize < 1 || metadata.size() <= chunkSize || !chunkable(customBuilder)) {
+            return Collections.singletonList(metadata);
+        }
+        // 按关系键值分组, 相同键值的数据位于同一分块中
+        String column = localKeyForWhereHasIn();
+        Map<Object, List<Map<String, Object>>> metadataGroup = new LinkedHashMap<>();
+        for (Map<String, Object> map : metadata) {
+            metadataGroup.computeIfAbsent(normalizeKey(map.get(column)), k -> new ArrayList<>()).add(map);
+        }
+        if (metadataGroup.size() <= chunkSize) {
+            return Collections.singletonList(metadata);
+        }
+
+        List<List<Map<String, Object>>> chunks = new ArrayList<>(metadataGroup.size() / chunkSize + 1);
+        List<Map<String, Object>> chunk = new ArrayList<>();
+        int keyNum = 0;
+        for (List<Map<String, Object>> maps : metadataGroup.values()) {
+            chunk.addAll(maps);
+            if (++keyNum == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                keyNum = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Override
+    public RecordList<?, ?> mergeBatchForTarget(List<RecordList<?, ?>> targetRecordLists) {
+        return mergeRecordLists(targetRecordLists);
+    }
+
+    @Override
+    public RecordList<?, ?> mergeBatchForTargetByRelationOperation(List<RecordList<?, ?>> targetRecordLists) {
+        return mergeRecordLists(targetRecordLists);
+    }
+
+    /**
+     * 是否可以分块查询
+     * 自定义查询中存在排序或者数量限制时, 分块查询的结果与整体查询不一致, 因此不分块
+     * 查询构造器包装由调用方包装为可复用的 (ReusableBuilderWrapper), 此处的执行结果即为之后目标表查询所使用的
+     * @param customBuilder 查询构造器包装
+     * @return 是否可以分块
+     */
+    protected boolean chunkable(BuilderAnyWrapper customBuilder) {
+        Grammar grammar = customBuilder.execute(ObjectUtils.typeCast(getTargetModel().newQuery())).getGrammar();
+        return grammar.isEmpty(Grammar.SQLPartType.ORDER) && grammar.isEmpty(Grammar.SQLPartType.LIMIT);
+    }
+
+    /**
+     * 目标模型, 即查询构造器包装所作用的模型
+     * @return 目标模型
+     */
+    protected abstract Model<?, ?, ?> getTargetModel();
+
+    /**
+     * 合并结果集, 以及其上的临时缓存
+     * 结果集按分块的顺序首尾相接, 不做去重
+     * @param targetRecordLists 各分块的查询结果集
+     * @return 查询结果集
+     */
+    protected RecordList<?, ?> mergeRecordLists(List<RecordList<?, ?>> targetRecordLists) {
+        RecordList<Object, Object> mergedRecordList = new RecordListBean<>(
+            targetRecordLists.isEmpty() ? "" : targetRecordLists.get(0).getOriginalSql(), getContainer());
+
+        for (RecordList<?, ?> targetRecordList : targetRecordLists) {
+            for (Record<?, ?> theRecord : targetRecordList) {
+                mergedRecordList.add(ObjectUtils.typeCast(theRecord));
+            }
+            for (Map.Entry<Object, Set<Object>> entry : targetRecordList.getCacheMap().entrySet()) {
+                mergedRecordList.getCacheMap()
+                    .computeIfAbsent(entry.getKey(), k -> new HashSet<>())
+                    .addAll(entry.getValue());
+            }
+        }
+        return mergedRecordList;
+    }
+
     /**
      * 集合兼容处理
      * 1. 用于解决AbstractList不实现removeAll的情况; 2. 产生全新对象; 3. 将集合类数据的类型,转化成model的主键类型
@@ -172,17 +259,31 @@ protected String getPrimaryKeyColumnName(Model<?, ?, ?> model) {
     }
 
     /**
-     * 将满足条件的对象筛选并返回
-     * @param relationshipObjectList 待筛选的对象列表
-     * @param columnName 对象的属性的名
-     * @param fieldTargetValue 对象的属性的目标值
-     * @return 对象列表
+     * 关系键值标准化, 使得不同整数类型的同值键可以相互匹配
+     * @param value 关系键值
+     * @return 标准化后的关系键值
      */
-    protected List<Object> findObjList(List<?> relationshipObjectList, String columnName, @Nullable Object fieldTargetValue) {
-        List<Object> objectList = new ArrayList<>();
-        if (ObjectUtils.isEmpty(relationshipObjectList) || fieldTargetValue == null) {
-            // 不建议使用 Collections.emptyList()
-            return objectList;
+    @Nullable
+    protected static Object normalizeKey(@Nullable Object value) {
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            return ((BigInteger) value).longValue();
+        }
+        return value;
+    }
+
+    /**
+     * 按对象的属性值建立索引, 保持对象原有的顺序
+     * @param relationshipObjectList 对象列表
+     * @param columnName 对象的属性对应的列名
+     * @return 属性值(标准化) -> 对象列表
+     */
+    protected Map<Object, List<Object>> indexObjList(List<?> relationshipObjectList, String columnName) {
+        Map<Object, List<Object>> index = new HashMap<>();
+        if (ObjectUtils.isEmpty(relationshipObjectList)) {
+            return index;
         }
         // 模型信息
         ModelMember<?, ?> modelMember = modelShadowProvider.getByEntityClass(
@@ -192,37 +293,53 @@ protected List<Object> findObjList(List<?> relationshipObjectList, String column
         FieldMember<?> fieldMember = modelMember.getEntityMember().getColumnFieldMap().get(columnName);
 
         for (Object o : relationshipObjectList) {
-            // 值
             Object fieldValue = fieldMember.fieldGet(o);
-            // 满足则加入
-            if (fieldTargetValue.equals(fieldValue)) {
-                objectList.add(o);
+            if (fieldValue != null) {
+                index.computeIfAbsent(normalizeKey(fieldValue), k -> new ArrayList<>()).add(o);
             }
         }
-        return objectList;
+        return index;
     }
 
     /**
-     * 将满足条件的对象筛选并返回
-     * @param relationshipObjectList 待筛选的对象列表
-     * @param columnName 对象的属性的名
-     * @param fieldTargetValue 对象的属性的目标值
-     * @return 对象列表
+     * 按列值建立索引, 同值时保留首个
+     * @param relationshipObjectList 数据源
+     * @param columnName 列名
+     * @return 列值(标准化) -> 数据
      */
-    protected static Map<String, Object> findObj(List<Map<String, Object>> relationshipObjectList, String columnName,
-                                                 Object fieldTargetValue) {
-
-        if (ObjectUtils.isEmpty(relationshipObjectList)) {
-            return Collections.emptyMap();
+    protected static Map<Object, Map<String, Object>> indexMapList(List<Map<String, Object>> relationshipObjectList,
+        String columnName) {
+        Map<Object, Map<String, Object>> index = new HashMap<>();
+        for (Map<String, Object> map : relationshipObjectList) {
+            index.putIfAbsent(normalizeKey(map.get(columnName)), map);
         }
+        return index;
+    }
 
-        // 关系键对应关系
-        for (Map<String, Object> map : relationshipObjectList) {
-            if (ObjectUtils.nullSafeEquals(map.get(columnName), fieldTargetValue)) {
-                return map;
-            }
+    /**
+     * 从索引中筛选满足条件的对象
+     * @param index 索引
+     * @param fieldTargetValue 对象的属性的目标值
+     * @return 对象列表 (全新)
+     */
+    protected static List<Object> findObjList(Map<Object, List<Object>> index, @Nullable Object fieldTargetValue) {
+        if (fieldTargetValue == null) {
+            // 不建议使用 Collections.emptyList()
+            return new ArrayList<>();
         }
+        List<Object> objectList = index.get(normalizeKey(fieldTargetValue));
+        return objectList == null ? new ArrayList<>() : new ArrayList<>(objectList);
+    }
 
-        return Collections.emptyMap();
+    /**
+     * 从索引中筛选满足条件的数据
+     * @param index 索引
+     * @param fieldTargetValue 目标值
+     * @return 数据
+     */
+    protected static Map<String, Object> findObj(Map<Object, Map<String, Object>> index,
+        @Nullable Object fieldTargetValue) {
+        Map<String, Object> map = index.get(normalizeKey(fieldTargetValue));
+        return map == null ? Collections.emptyMap() : map;
     }
 }
@@ -1,6 +1,7 @@
 package gaarason.database.eloquent.relation;
 
 import gaarason.database.annotation.BelongsToMany;
+import gaarason.database.config.GaarasonDatabaseProperties;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Model;
 import gaarason.database.contract.eloquent.Record;
@@ -8,6 +9,7 @@
 import gaarason.database.contract.function.BuilderAnyWrapper;
 import gaarason.database.contract.query.Grammar;
 import gaarason.database.core.Container;
+import gaarason.database.eloquent.RecordListBean;
 import gaarason.database.lang.Nullable;
 import gaarason.database.provider.ModelShadowProvider;
 import gaarason.database.support.EntityMember;
@@ -162,6 +164,72 @@ public Container getContainer() {
         return belongsToManyTemplate.targetModel.getGaarasonDataSource().getContainer();
     }
 
+    @Override
+    protected Model<?, ?, ?> getTargetModel() {
+        return belongsToManyTemplate.targetModel;
+    }
+
+    /**
+     * 目标表的关系键数量超过分块大小时, 按目标表的关系键分块查询目标表, 以控制单条语句中 in 的数量
+     * 各分块按关系键的顺序查询, 合并后的顺序与整体查询时保持一致
+     */
+    @Override
+    public RecordList<?, ?> dealBatch(List<Map<String, Object>> metadata, BuilderAnyWrapper operationBuilder,
+        BuilderAnyWrapper customBuilder) {
+        // 中间表数据
+        RecordList<?, ?> relationRecordList = dealBatchForRelation(prepareRelationBuilder(metadata));
+
+        // 中间表数据, 按目标表的关系键分组
+        Map<Object, List<Record<?, ?>>> relationGroup = new LinkedHashMap<>();
+        for (Record<?, ?> relationRecord : relationRecordList) {
+            Object targetKeyValue = relationRecord.getMetadataMap().get(belongsToManyTemplate.foreignKeyForTargetModel);
+            if (targetKeyValue != null) {
+                relationGroup.computeIfAbsent(normalizeKey(targetKeyValue), k -> new ArrayList<>()).add(relationRecord);
+            }
+        }
+
+        int chunkSize = getContainer().getBean(GaarasonDatabaseProperties.class).getRelation().getChunkSize();
+        if (chunkSize < 1 || relationGroup.size() <= chunkSize || !chunkable(customBuilder)) {
+            return dealBatchForTarget(prepareTargetBuilder(metadata, relationRecordList, operationBuilder, customBuilder),
+                relationRecordList);
+        }
+
+        List<Object> targetKeyValues = new ArrayList<>(relationGroup.keySet());
+        sortKeys(targetKeyValues);
+
+        List<RecordList<?, ?>> targetRecordLists = new ArrayList<>(targetKeyValues.size() / chunkSize + 1);
+        for (int i = 0; i < targetKeyValues.size(); i += chunkSize) {
+            RecordList<Object, Object> chunkRelationRecordList = new RecordListBean<>(
+                relationRecordList.getOriginalSql(), getContainer());
+            for (Object targetKeyValue : targetKeyValues.subList(i, Math.min(i + chunkSize, targetKeyValues.size()))) {
+                for (Record<?, ?> relationRecord : relationGroup.get(targetKeyValue)) {
+                    chunkRelationRecordList.add(ObjectUtils.typeCast(relationRecord));
+                }
+            }
+            targetRecordLists.add(dealBatchForTarget(
+                prepareTargetBuilder(metadata, chunkRelationRecordList, operationBuilder, customBuilder),
+                chunkRelationRecordList));
+        }
+        return mergeRecordLists(targetRecordLists);
+    }
+
+    /**
+     * 关系键排序, 键的类型不一致或者不可比较时, 保持原有的顺序
+     * @param keys 关系键的值 (已规范化)
+     */
+    protected static void sortKeys(List<Object> keys) {
+        Class<?> keyClass = keys.get(0).getClass();
+        for (Object key : keys) {
+            if (key.getClass() != keyClass || !(key instanceof Comparable)) {
+                return;
+            }
+        }
+        keys.sort((a, b) -> {
+            Comparable<Object> comparable = ObjectUtils.typeCast(a);
+            return comparable.compareTo(b);
+        });
+    }
+
     @Override
     public RecordList<?, ?> dealBatchForTarget(@Nullable Builder<?, ?, ?> targetBuilder,
         RecordList<?, ?> relationRecordList) {
@@ -169,27 +237,34 @@ public Container getContainer() {
         // 目标表结果
         RecordList<?, ?> targetRecordList = dealBatchForTargetByRelationOperation(targetBuilder, relationRecordList);
 
-        // 关系表的数据
-        List<Map<String, Object>> relationMaps = relationRecordList.toMapList();
+        // 关系表的数据, 按指示目标表的关系键的值建立索引
+        // Map< targetModelKeyInMap -> List< localModelKeyInMap > >
+        Map<Object, List<Object>> relationIndex = new HashMap<>();
+        for (Map<String, Object> relationMap : relationRecordList.toMapList()) {
+            // 关系表中， 指示目标表的关系键的值
+            Object targetModelKeyInMap = relationMap.get(belongsToManyTemplate.foreignKeyForTargetModel);
+            if (targetModelKeyInMap != null) {
+                // 关系表中， 指示本表的关系键的值
+                relationIndex.computeIfAbsent(normalizeKey(targetModelKeyInMap), key -> new ArrayList<>())
+                    .add(relationMap.get(belongsToManyTemplate.foreignKeyForLocalModel));
+            }
+        }
 
-        // 循环关系表, 筛选本表需要的数据
+        // 循环目标表, 筛选本表需要的数据
         for (Record<?, ?> targetRecord : targetRecordList) {
             // 目标表的关系键的值
             Object targetKeyValue = targetRecord.getMetadataMap().get(belongsToManyTemplate.targetModelLocalKey);
 
-            for (Map<String, Object> relationMap : relationMaps) {
-                // 关系表中， 指示本表的关系键的值
-                Object localModelKeyInMap = relationMap.get(belongsToManyTemplate.foreignKeyForLocalModel);
-                // 关系表中， 指示目标表的关系键的值
-                Object targetModelKeyInMap = relationMap.get(belongsToManyTemplate.foreignKeyForTargetModel);
-
-                if (targetModelKeyInMap.equals(targetKeyValue)) {
-                    // 存储到目标表的RecordList 上
-                    // Map< localModelKeyInMap -> Set< targetModelKeyInMap > >
-                    Set<Object> relationIds = targetRecordList.getCacheMap()
-                        .computeIfAbsent(localModelKeyInMap, key -> new HashSet<>());
-                    relationIds.add(targetModelKeyInMap);
-                }
+            List<Object> localModelKeysInMap = relationIndex.get(normalizeKey(targetKeyValue));
+            if (localModelKeysInMap == null) {
+                continue;
+            }
+            for (Object localModelKeyInMap : localModelKeysInMap) {
+                // 存储到目标表的RecordList 上
+                // Map< localModelKeyInMap -> Set< targetKeyValue > >
+                Set<Object> relationIds = targetRecordList.getCacheMap()
+                    .computeIfAbsent(localModelKeyInMap, key -> new HashSet<>());
+                relationIds.add(targetKeyValue);
             }
         }
         return targetRecordList;
@@ -208,46 +283,75 @@ public Container getContainer() {
             .get();
     }
 
+    @Override
+    public Map<Object, Map<String, Object>> indexBatchRecordByRelationOperation(RecordList<?, ?> targetRecordList) {
+        return indexMapList(targetRecordList.getMetadata(), RELATION_KEY);
+    }
+
     @Override
     public Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
-        RecordList<?, ?> targetRecordList) {
+        Map<Object, Map<String, Object>> index) {
 
         // 本表的关系键值
         Object value = theRecord.getMetadataMap().get(belongsToManyTemplate.localModelLocalKey);
 
-        return findObj(targetRecordList.getMetadata(), RELATION_KEY, value);
+        return findObj(index, value);
     }
 
     @Override
-    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList, List<?> targetObjectList) {
-        // 目标关系表的外键字段名
-        String targetModelLocalKey = belongsToManyTemplate.targetModelLocalKey;
-        // 本表的关系键值
-        Object localModelLocalKeyValue = theRecord.getMetadataMap().get(belongsToManyTemplate.localModelLocalKey);
+    public Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
+        RecordList<?, ?> targetRecordList) {
+        return filterBatchRecordByRelationOperation(theRecord, indexBatchRecordByRelationOperation(targetRecordList));
+    }
 
-        // 本表应该关联的 目标表的关系键的集合
-        Set<Object> targetModelLocalKayValueSet = targetRecordList.getCacheMap().get(localModelLocalKeyValue);
-
-        List<Object> objectList = new ArrayList<>();
-
-        if (!targetRecordList.getMetadata().isEmpty()) {
-            // 实体信息
-            EntityMember<?, ?> entityMember = modelShadowProvider.get(targetRecordList.get(0).getModel())
-                .getEntityMember();
-            // 字段信息
-            FieldMember<?> fieldMember = entityMember.getFieldMemberByColumnName(targetModelLocalKey);
-
-            for (Object obj : targetObjectList) {
-                // 目标表的关系键的值
-                Object targetModelLocalKeyValue = fieldMember.fieldGet(obj);
-                // 满足则加入
-                if (targetModelLocalKayValueSet != null &&
-                    targetModelLocalKayValueSet.contains(targetModelLocalKeyValue)) {
-                    objectList.add(obj);
-                }
+    @Override
+    public Map<Object, List<Object>> indexBatchRecord(RecordList<?, ?> targetRecordList, List<?> targetObjectList) {
+        Map<Object, List<Object>> index = new HashMap<>();
+        if (targetRecordList.isEmpty()) {
+            return index;
+        }
+
+        // 目标表的关系键的值 -> 本表的关系键的值的集合
+        Map<Object, List<Object>> localKeyValuesIndex = new HashMap<>();
+        for (Map.Entry<Object, Set<Object>> entry : targetRecordList.getCacheMap().entrySet()) {
+            for (Object targetModelLocalKeyValue : entry.getValue()) {
+                localKeyValuesIndex.computeIfAbsent(normalizeKey(targetModelLocalKeyValue), k -> new ArrayList<>())
+                    .add(normalizeKey(entry.getKey()));
             }
         }
-        return objectList;
+
+        // 实体信息
+        EntityMember<?, ?> entityMember = modelShadowProvider.get(targetRecordList.get(0).getModel())
+            .getEntityMember();
+        // 字段信息
+        FieldMember<?> fieldMember = entityMember.getFieldMemberByColumnName(belongsToManyTemplate.targetModelLocalKey);
+
+        // 按目标对象原有的顺序, 归入本表的关系键的值
+        for (Object obj : targetObjectList) {
+            // 目标表的关系键的值
+            List<Object> localKeyValues = localKeyValuesIndex.get(normalizeKey(fieldMember.fieldGet(obj)));
+            if (localKeyValues == null) {
+                continue;
+            }
+            for (Object localKeyValue : localKeyValues) {
+                index.computeIfAbsent(localKeyValue, k -> new ArrayList<>()).add(obj);
+            }
+        }
+        return index;
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, Map<Object, List<Object>> index) {
+        // 本表的关系键值
+        Object localModelLocalKeyValue = theRecord.getMetadataMap().get(belongsToManyTemplate.localModelLocalKey);
+
+        return findObjList(index, localModelLocalKeyValue);
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
+        List<?> targetObjectList) {
+        return filterBatchRecord(theRecord, indexBatchRecord(targetRecordList, targetObjectList));
     }
 
     @Override
@@ -1,19 +1,31 @@
 package gaarason.database.eloquent.relation;
 
 import gaarason.database.annotation.BelongsTo;
+import gaarason.database.appointment.JoinType;
+import gaarason.database.appointment.IdentityMap;
+import gaarason.database.appointment.SqlType;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Model;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
 import gaarason.database.contract.function.BuilderAnyWrapper;
+import gaarason.database.contract.query.Grammar;
 import gaarason.database.core.Container;
+import gaarason.database.eloquent.RecordBean;
+import gaarason.database.eloquent.RecordListBean;
 import gaarason.database.exception.RelationAttachException;
 import gaarason.database.lang.Nullable;
 import gaarason.database.provider.ModelShadowProvider;
+import gaarason.database.support.PrimaryKeyMember;
+import gaarason.database.support.RecordIdentityMap;
+import gaarason.database.support.RowMap;
 import gaarason.database.util.ObjectUtils;
 
 import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * 反向一对一关系
@@ -83,14 +95,163 @@ protected BelongsToTemplate initTemplate(Field field) {
     }
 
     @Override
-    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
-            List<?> targetObjectList) {
+    public RecordList<?, ?> dealBatch(List<Map<String, Object>> metadata, BuilderAnyWrapper operationBuilder,
+        BuilderAnyWrapper customBuilder) {
+        if (!identityMapAvailable(customBuilder)) {
+            return super.dealBatch(metadata, operationBuilder, customBuilder);
+        }
+        // 标识映射中已存在的父表记录, 不再查询
+        RecordList<Object, Object> hitRecordList = new RecordListBean<>(getContainer());
+        Set<Object> hitKeys = new HashSet<>();
+        List<Map<String, Object>> missMetadata = new ArrayList<>();
+        for (Map<String, Object> map : metadata) {
+            Object value = map.get(belongsToTemplate.localModelForeignKey);
+            if (hitKeys.contains(normalizeKey(value))) {
+                continue;
+            }
+            Record<?, ?> hitRecord = RecordIdentityMap.find(belongsToTemplate.parentModel, value);
+            if (hitRecord != null) {
+                hitKeys.add(normalizeKey(value));
+                hitRecordList.add(ObjectUtils.typeCast(hitRecord));
+            } else {
+                missMetadata.add(map);
+            }
+        }
+        if (missMetadata.isEmpty()) {
+            return hitRecordList;
+        }
+        RecordList<?, ?> targetRecordList = RecordIdentityMap.rememberAll(
+            super.dealBatch(missMetadata, operationBuilder, customBuilder));
+        return hitRecordList.isEmpty() ? targetRecordList :
+            mergeBatchForTarget(Arrays.asList(targetRecordList, hitRecordList));
+    }
+
+    /**
+     * 是否可以使用标识映射
+     * 需已开启作用域, 非多态, 未自定义查询, 且关联的是父表的主键
+     * @param customBuilder 查询构造器包装
+     * @return 是否
+     */
+    protected boolean identityMapAvailable(BuilderAnyWrapper customBuilder) {
+        return IdentityMap.current() != null && customBuilder == BuilderAnyWrapper.empty() &&
+            relatedByParentPrimaryKey();
+    }
+
+    /**
+     * 是否非多态, 且关联的是父表的主键 (即每条记录至多关联一条父表记录)
+     * @return 是否
+     */
+    protected boolean relatedByParentPrimaryKey() {
+        if (enableMorph) {
+            return false;
+        }
+        PrimaryKeyMember<?> primaryKeyMember = modelShadowProvider.get(belongsToTemplate.parentModel)
+            .getEntityMember()
+            .getPrimaryKeyMember();
+        return primaryKeyMember != null &&
+            belongsToTemplate.parentModelLocalKey.equals(primaryKeyMember.getFieldMember().getColumnName());
+    }
+
+    @Override
+    public boolean prepareJoin(Builder<?, ?, ?> builder, String prefix, BuilderAnyWrapper customBuilder) {
+        if (!relatedByParentPrimaryKey()) {
+            return false;
+        }
+        Builder<?, ?, ?> parentBuilder = customBuilder.execute(
+            ObjectUtils.typeCast(belongsToTemplate.parentModel.newQuery()));
+        // 指定了查询列或者再一级关联时, 不适用
+        if (!parentBuilder.getGrammar().isEmpty(Grammar.SQLPartType.SELECT) ||
+            !parentBuilder.getGrammar().pullRelation().isEmpty()) {
+            return false;
+        }
+        List<String> columnList = parentColumnList();
+        Grammar.SQLPartInfo sqlPartInfo = parentBuilder.select(columnList).getGrammar().generateSql(SqlType.SELECT);
+        leftJoin(builder, prefix, sqlPartInfo, columnList, belongsToTemplate.localModelForeignKey,
+            belongsToTemplate.parentModelLocalKey);
+        return true;
+    }
+
+    /**
+     * 以 left join 的方式关联目标表, 目标表的列以 prefix 为前缀加入到当前查询中
+     * left join (select ... from target where ...) prefix on local.local_column = prefix.target_column
+     * @param builder 当前表的查询构造器
+     * @param prefix 目标表的别名, 同时作为目标表的列别名的前缀
+     * @param targetSqlPartInfo 目标表的查询
+     * @param targetColumnList 目标表的查询列
+     * @param localColumn 当前表的关系键
+     * @param targetColumn 目标表的关系键
+     */
+    public static void leftJoin(Builder<?, ?, ?> builder, String prefix, Grammar.SQLPartInfo targetSqlPartInfo,
+        List<String> targetColumnList, String localColumn, String targetColumn) {
+        String sqlPart = builder.supportSpaces(JoinType.LEFT.getOperation()) + "join " +
+            builder.supportBracket(targetSqlPartInfo.getSqlString()) +
+            builder.supportSpaces(builder.supportBackQuote(prefix)) + "on " + builder.columnAlias(localColumn) + "=" +
+            builder.supportBackQuote(prefix + "." + targetColumn);
+        builder.joinRaw(sqlPart, targetSqlPartInfo.getParameters());
+
+        // 目标表的列, 以 prefix 为前缀
+        builder.selectRaw(targetColumnList.stream()
+            .map(column -> builder.supportBackQuote(prefix + "." + column + " as " + prefix + column))
+            .collect(Collectors.joining(",")));
+    }
+
+    @Nullable
+    @Override
+    public Object readJoinedColumn(ResultSet resultSet, int columnIndex, String column) throws SQLException {
+        // 按父表的字段进行转化
+        return modelShadowProvider.parseAnyEntityWithCache(belongsToTemplate.parentModel.getEntityClass())
+            .getFieldMemberByColumnName(column)
+            .deserialize(resultSet, columnIndex);
+    }
+
+    @Override
+    public RecordList<?, ?> dealBatchForJoin(List<Map<String, Object>> metadata, String prefix) {
+        Model<?, Object, Object> parentModel = ObjectUtils.typeCast(belongsToTemplate.parentModel);
+        RecordList<Object, Object> targetRecordList = new RecordListBean<>(getContainer());
+        Set<Object> targetKeys = new HashSet<>();
+        for (Map<String, Object> metadataMap : metadata) {
+            // 父表的列, 在读取结果集时已单独存放
+            Map<String, Object> map = RecordBean.unwrapMetadataMap(metadataMap);
+            RowMap targetMap = map instanceof RowMap ? ((RowMap) map).pullJoinedRow(prefix) : null;
+            if (targetMap == null) {
+                continue;
+            }
+            // 未关联到父表记录时, 父表的列均为 null
+            Object targetKey = targetMap.get(belongsToTemplate.parentModelLocalKey);
+            if (targetKey != null && targetKeys.add(normalizeKey(targetKey))) {
+                targetRecordList.add(RecordBean.adopt(parentModel, targetMap, ""));
+            }
+        }
+        return targetRecordList;
+    }
+
+    /**
+     * 父表的全部查询列
+     * @return 列名集合
+     */
+    protected List<String> parentColumnList() {
+        return modelShadowProvider.parseAnyEntityWithCache(belongsToTemplate.parentModel.getEntityClass())
+            .getSelectColumnList();
+    }
+
+    @Override
+    public Map<Object, List<Object>> indexBatchRecord(RecordList<?, ?> targetRecordList, List<?> targetObjectList) {
         // 父表的外键字段名
-        String column = belongsToTemplate.parentModelLocalKey;
+        return indexObjList(targetObjectList, belongsToTemplate.parentModelLocalKey);
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, Map<Object, List<Object>> index) {
         // 本表的关系键值
         Object value = theRecord.getMetadataMap().get(belongsToTemplate.localModelForeignKey);
 
-        return findObjList(targetObjectList, column, value);
+        return findObjList(index, value);
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
+        List<?> targetObjectList) {
+        return filterBatchRecord(theRecord, indexBatchRecord(targetRecordList, targetObjectList));
     }
 
     @Override
@@ -345,6 +506,11 @@ public Container getContainer() {
         return belongsToTemplate.parentModel.getGaarasonDataSource().getContainer();
     }
 
+    @Override
+    protected Model<?, ?, ?> getTargetModel() {
+        return belongsToTemplate.parentModel;
+    }
+
     public class BelongsToTemplate {
 
         final public Model<?, ?, ?> parentModel;
@@ -124,25 +124,44 @@ protected HasOneOrManyTemplate initTemplate(Field field) {
     }
 
     @Override
-    public Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
-        RecordList<?, ?> targetRecordList) {
+    public Map<Object, Map<String, Object>> indexBatchRecordByRelationOperation(RecordList<?, ?> targetRecordList) {
         // 子表的外键字段名
-        String column = hasOneOrManyTemplate.sonModelForeignKey;
+        return indexMapList(targetRecordList.getMetadata(), hasOneOrManyTemplate.sonModelForeignKey);
+    }
+
+    @Override
+    public Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
+        Map<Object, Map<String, Object>> index) {
         // 本表的关系键值
         Object value = theRecord.getMetadataMap().get(hasOneOrManyTemplate.localModelLocalKey);
 
-        return findObj(targetRecordList.getMetadata(), column, value);
+        return findObj(index, value);
     }
 
     @Override
-    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
-            List<?> targetObjectList) {
+    public Map<String, Object> filterBatchRecordByRelationOperation(Record<?, ?> theRecord,
+        RecordList<?, ?> targetRecordList) {
+        return filterBatchRecordByRelationOperation(theRecord, indexBatchRecordByRelationOperation(targetRecordList));
+    }
+
+    @Override
+    public Map<Object, List<Object>> indexBatchRecord(RecordList<?, ?> targetRecordList, List<?> targetObjectList) {
         // 子表的外键字段名
-        String column = hasOneOrManyTemplate.sonModelForeignKey;
+        return indexObjList(targetObjectList, hasOneOrManyTemplate.sonModelForeignKey);
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, Map<Object, List<Object>> index) {
         // 本表的关系键值
         Object value = theRecord.getMetadataMap().get(hasOneOrManyTemplate.localModelLocalKey);
 
-        return findObjList(targetObjectList, column, value);
+        return findObjList(index, value);
+    }
+
+    @Override
+    public List<Object> filterBatchRecord(Record<?, ?> theRecord, RecordList<?, ?> targetRecordList,
+        List<?> targetObjectList) {
+        return filterBatchRecord(theRecord, indexBatchRecord(targetRecordList, targetObjectList));
     }
 
     @Override
@@ -337,6 +356,11 @@ public Container getContainer() {
         return hasOneOrManyTemplate.sonModel.getGaarasonDataSource().getContainer();
     }
 
+    @Override
+    protected Model<?, ?, ?> getTargetModel() {
+        return hasOneOrManyTemplate.sonModel;
+    }
+
     public class HasOneOrManyTemplate {
 
         final public Model<?, ?, ?> sonModel;
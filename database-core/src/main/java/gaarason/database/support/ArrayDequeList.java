@@ -0,0 +1,191 @@
+package gaarason.database.support;
+
+import gaarason.database.lang.Nullable;
+
+import java.util.*;
+
+/**
+ * 基于数组的双端队列列表
+ * 按下标访问为 O(1), 同时提供 Deque 的全部操作, 队尾操作为 O(1), 队首操作为 O(n)
+ * @param <E> 元素类型
+ * @author xt
+ */
+public class ArrayDequeList<E> extends ArrayList<E> implements Deque<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    public ArrayDequeList() {
+        super();
+    }
+
+    /**
+     * @param initialCapacity 初始容量
+     */
+    public ArrayDequeList(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public void addFirst(E e) {
+        add(0, e);
+    }
+
+    @Override
+    public void addLast(E e) {
+        add(e);
+    }
+
+    @Override
+    public boolean offerFirst(E e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(E e) {
+        return add(e);
+    }
+
+    @Override
+    public E removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return remove(0);
+    }
+
+    @Override
+    public E removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return remove(size() - 1);
+    }
+
+    @Override
+    @Nullable
+    public E pollFirst() {
+        return isEmpty() ? null : remove(0);
+    }
+
+    @Override
+    @Nullable
+    public E pollLast() {
+        return isEmpty() ? null : remove(size() - 1);
+    }
+
+    @Override
+    public E getFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(0);
+    }
+
+    @Override
+    public E getLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return get(size() - 1);
+    }
+
+    @Override
+    @Nullable
+    public E peekFirst() {
+        return isEmpty() ? null : get(0);
+    }
+
+    @Override
+    @Nullable
+    public E peekLast() {
+        return isEmpty() ? null : get(size() - 1);
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        return remove(o);
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        int index = lastIndexOf(o);
+        if (index < 0) {
+            return false;
+        }
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e) {
+        return add(e);
+    }
+
+    @Override
+    public E remove() {
+        return removeFirst();
+    }
+
+    @Override
+    @Nullable
+    public E poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public E element() {
+        return getFirst();
+    }
+
+    @Override
+    @Nullable
+    public E peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(E e) {
+        addFirst(e);
+    }
+
+    @Override
+    public E pop() {
+        return removeFirst();
+    }
+
+    /**
+     * 逆序的副本
+     * 同时声明于 List 以及 Deque (jdk21+) 中, 需要在此明确实现, 否则无法编译
+     * 与 jdk21 的视图语义不同, 此处返回的是副本, 修改不影响当前列表
+     * @return 逆序的列表
+     */
+    public ArrayDequeList<E> reversed() {
+        ArrayDequeList<E> reversed = new ArrayDequeList<>(size());
+        for (int i = size() - 1; i >= 0; i--) {
+            reversed.add(get(i));
+        }
+        return reversed;
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        ListIterator<E> listIterator = listIterator(size());
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return listIterator.hasPrevious();
+            }
+
+            @Override
+            public E next() {
+                return listIterator.previous();
+            }
+
+            @Override
+            public void remove() {
+                listIterator.remove();
+            }
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package gaarason.database.support;
+
+import gaarason.database.lang.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分页总数缓存 (LRU, 有界, 短时有效), 线程安全
+ * 键为查询结构以及绑定参数, 值为总数
+ * 模型发生写操作时, 清除该模型的所有总数
+ * 仅感知当前模型的写操作, 涉及其他表 (join, 子查询等) 的查询不应缓存, 参考 ExecuteLevel3Builder.countCacheKey
+ * @author xt
+ */
+public class CountCache {
+
+    /**
+     * 最大缓存数量, 小于 1 时不缓存
+     */
+    private final int maxSize;
+
+    /**
+     * 有效时间(毫秒)
+     */
+    private final long ttl;
+
+    /**
+     * 缓存
+     */
+    private final LinkedHashMap<Object, CountEntry> cache;
+
+    /**
+     * 模型类 -> 清除次数
+     * 用于丢弃统计期间发生了写操作的总数
+     */
+    private final Map<Class<?>, Long> generations = new HashMap<>();
+
+    /**
+     * @param maxSize 最大缓存数量, 小于 1 时不缓存
+     * @param ttl 有效时间(毫秒)
+     */
+    public CountCache(int maxSize, long ttl) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.cache = new LinkedHashMap<Object, CountEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, CountEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * 是否启用
+     * @return 是否
+     */
+    public boolean isEnabled() {
+        return maxSize > 0 && ttl > 0;
+    }
+
+    /**
+     * 获取总数
+     * @param key 键
+     * @return 总数, 不存在或已过期时为 null
+     */
+    @Nullable
+    public Long get(Object key) {
+        synchronized (cache) {
+            CountEntry entry = cache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt < System.currentTimeMillis()) {
+                cache.remove(key);
+                return null;
+            }
+            return entry.count;
+        }
+    }
+
+    /**
+     * 模型的当前清除次数, 应在统计前获取
+     * @param modelClass 模型类
+     * @return 清除次数
+     */
+    public long generation(Class<?> modelClass) {
+        synchronized (cache) {
+            return generations.getOrDefault(modelClass, 0L);
+        }
+    }
+
+    /**
+     * 记录总数
+     * 统计期间模型发生了写操作(清除次数已变化)时, 总数可能已经过期, 不记录
+     * @param modelClass 模型类
+     * @param key 键
+     * @param count 总数
+     * @param generation 统计前获取的清除次数
+     */
+    public void put(Class<?> modelClass, Object key, long count, long generation) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (cache) {
+            if (generation == generations.getOrDefault(modelClass, 0L)) {
+                cache.put(key, new CountEntry(modelClass, count, System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    /**
+     * 清除模型的所有总数
+     * @param modelClass 模型类
+     */
+    public void evict(Class<?> modelClass) {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (cache) {
+            generations.merge(modelClass, 1L, Long::sum);
+            cache.values().removeIf(entry -> entry.modelClass == modelClass);
+        }
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static final class CountEntry {
+
+        private final Class<?> modelClass;
+
+        private final long count;
+
+        private final long expireAt;
+
+        CountEntry(Class<?> modelClass, long count, long expireAt) {
+            this.modelClass = modelClass;
+            this.count = count;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -305,6 +305,17 @@ public Object deserialize(ResultSet resultSet) throws SQLException {
         return fieldConversion.acquisition(field, resultSet, columnName);
     }
 
+    /**
+     * 字段反序列化(按列序号)
+     * @param resultSet 数据库结果集
+     * @param columnIndex 列序号(从1开始)
+     * @return 反序列化后的值
+     */
+    @Nullable
+    public Object deserialize(ResultSet resultSet, int columnIndex) throws SQLException {
+        return fieldConversion.acquisition(field, resultSet, columnIndex);
+    }
+
     // ---------------------------- simple getter ---------------------------- //
 
     public Field getField() {
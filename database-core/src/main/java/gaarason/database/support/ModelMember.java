@@ -1,12 +1,17 @@
 package gaarason.database.support;
 
+import gaarason.database.config.ConversionConfig;
 import gaarason.database.contract.eloquent.Model;
 import gaarason.database.core.Container;
 import gaarason.database.exception.InvalidPrimaryKeyTypeException;
+import gaarason.database.lang.Nullable;
 import gaarason.database.provider.ModelInstanceProvider;
 import gaarason.database.util.ObjectUtils;
 
 import java.io.Serializable;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
 
 /**
  * 格式化后的Model信息
@@ -39,6 +44,12 @@
      */
     private final Model<?, T, K> model;
 
+    /**
+     * 结果集行读取计划缓存, 键为结果集的列结构
+     */
+    @Nullable
+    private transient volatile SoftCache<List<String>, RowReaderPlan> rowReaderPlanCache;
+
     public ModelMember(Container container, Class<? extends Model<?, T, K>> modelClass) {
         super(container);
         this.modelClass = modelClass;
@@ -67,6 +78,39 @@ private void typeCheck() {
         }
     }
 
+    /**
+     * 获取结果集行读取计划
+     * 相同列结构的结果集, 复用同一个计划
+     * @param resultSetMetaData 源数据
+     * @return 行读取计划
+     * @throws SQLException 数据库异常
+     */
+    public RowReaderPlan getRowReaderPlan(ResultSetMetaData resultSetMetaData) throws SQLException {
+        String[] columnLabels = RowReaderPlan.columnLabels(resultSetMetaData);
+        List<String> key = RowReaderPlan.cacheKey(columnLabels);
+        SoftCache<List<String>, RowReaderPlan> cache = rowReaderPlanCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = rowReaderPlanCache;
+                if (cache == null) {
+                    cache = rowReaderPlanCache = new SoftCache<>();
+                }
+            }
+        }
+        RowReaderPlan rowReaderPlan = cache.get(key);
+        if (rowReaderPlan == null) {
+            synchronized (cache) {
+                rowReaderPlan = cache.get(key);
+                if (rowReaderPlan == null) {
+                    rowReaderPlan = new RowReaderPlan(columnLabels, entityMember,
+                        getContainer().getBean(ConversionConfig.class));
+                    cache.put(key, rowReaderPlan);
+                }
+            }
+        }
+        return rowReaderPlan;
+    }
+
     // ---------------------------- simple getter ---------------------------- //
 
     public Class<? extends Model<?, T, K>> getModelClass() {
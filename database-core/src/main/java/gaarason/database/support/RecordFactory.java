@@ -4,20 +4,21 @@
 import gaarason.database.contract.eloquent.Model;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.function.ResultSetFunctionalInterface;
 import gaarason.database.core.Container;
 import gaarason.database.eloquent.RecordBean;
 import gaarason.database.eloquent.RecordListBean;
 import gaarason.database.exception.EntityNotFoundException;
+import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.provider.ModelShadowProvider;
-import gaarason.database.util.ObjectUtils;
 
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 结果集生成
@@ -25,6 +26,11 @@
  */
 public final class RecordFactory {
 
+    /**
+     * 单列值数组的初始容量
+     */
+    private static final int INITIAL_ARRAY_CAPACITY = 16;
+
     private RecordFactory() {
 
     }
@@ -45,10 +51,10 @@ public static <T, K> Record<T, K> newRecord(Model<?, T, K> model,
         if (!resultSet.next()) {
             throw new EntityNotFoundException(sql);
         }
-        final ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        final RowReaderPlan rowReaderPlan = getRowReaderPlan(model, resultSet.getMetaData());
 
-        Map<String, Object> columnValueMap = JDBCResultToMap(model, resultSetMetaData, resultSet);
-        return new RecordBean<>(model, columnValueMap, sql);
+        // 新读取的行数据, 由记录直接持有
+        return RecordBean.adopt(model, rowReaderPlan.read(resultSet), sql);
     }
 
     /**
@@ -65,18 +71,227 @@ public static <T, K> RecordList<T, K> newRecordList(Model<?, T, K> model,
         ResultSet resultSet, String sql) throws SQLException {
 
         RecordList<T, K> recordList = new RecordListBean<>(sql, model.getGaarasonDataSource().getContainer());
-        // 总的数据源
-        final ResultSetMetaData resultSetMetaData = resultSet.getMetaData();
+        // 总的数据源, 相同列结构的结果集共用同一个读取计划
+        final RowReaderPlan.Reader reader = getRowReaderPlan(model, resultSet.getMetaData()).newReader();
 
         while (resultSet.next()) {
-            // 拆分的数据源
-            Map<String, Object> columnValueMap = JDBCResultToMap(model, resultSetMetaData, resultSet);
-            recordList.add(new RecordBean<>(model, columnValueMap, sql));
+            // 拆分的数据源, 新读取的行数据由记录直接持有
+            recordList.add(RecordBean.adopt(model, reader.read(resultSet), sql));
         }
 
         return recordList;
     }
 
+    /**
+     * 实体对象列表(来源 : 数据库查询结果)
+     * 直接由结果集转化为实体, 不经过 Record
+     * @param model Model
+     * @param resultSet jdbc结果
+     * @param <T> 实体类型
+     * @param <K> 实体主键类型
+     * @return 实体对象列表(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static <T, K> List<T> newObjectList(Model<?, T, K> model, ResultSet resultSet) throws SQLException {
+        final RowReaderPlan rowReaderPlan = getRowReaderPlan(model, resultSet.getMetaData());
+        List<T> list = new ArrayList<>();
+        while (resultSet.next()) {
+            list.add(rowReaderPlan.readEntity(resultSet));
+        }
+        return list;
+    }
+
+    /**
+     * 单列值数组(来源 : 数据库查询结果的第一列), 跳过 null 值
+     * @param resultSet jdbc结果
+     * @return 值数组(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static long[] newLongArray(ResultSet resultSet) throws SQLException {
+        long[] values = new long[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            long value = resultSet.getLong(1);
+            // 基本类型无法表示 null, 跳过以免与真实的 0 混淆
+            if (resultSet.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 单列值数组(来源 : 数据库查询结果的第一列), 跳过 null 值
+     * @param resultSet jdbc结果
+     * @return 值数组(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static int[] newIntArray(ResultSet resultSet) throws SQLException {
+        int[] values = new int[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            int value = resultSet.getInt(1);
+            // 基本类型无法表示 null, 跳过以免与真实的 0 混淆
+            if (resultSet.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 单列值数组(来源 : 数据库查询结果的第一列), 跳过 null 值
+     * @param resultSet jdbc结果
+     * @return 值数组(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static double[] newDoubleArray(ResultSet resultSet) throws SQLException {
+        double[] values = new double[INITIAL_ARRAY_CAPACITY];
+        int size = 0;
+        while (resultSet.next()) {
+            double value = resultSet.getDouble(1);
+            // 基本类型无法表示 null, 跳过以免与真实的 0 混淆
+            if (resultSet.wasNull()) {
+                continue;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * 单列值列表(来源 : 数据库查询结果的第一列)
+     * @param resultSet jdbc结果
+     * @return 值列表(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static List<String> newStringList(ResultSet resultSet) throws SQLException {
+        List<String> values = new ArrayList<>();
+        while (resultSet.next()) {
+            values.add(resultSet.getString(1));
+        }
+        return values;
+    }
+
+    /**
+     * 单列值列表(来源 : 数据库查询结果的第一列), 并转化为指定类型
+     * @param resultSet jdbc结果
+     * @param conversionConfig 类型转化
+     * @param type 值类型
+     * @param <V> 值类型
+     * @return 值列表(全新)
+     * @throws SQLException 数据库异常
+     */
+    public static <V> List<V> newColumnList(ResultSet resultSet, ConversionConfig conversionConfig, Class<V> type)
+        throws SQLException {
+        List<V> values = new ArrayList<>();
+        while (resultSet.next()) {
+            Object value = conversionConfig.getValueFromJdbcResultSet(null, resultSet, 1);
+            values.add(conversionConfig.castNullable(value, type));
+        }
+        return values;
+    }
+
+    /**
+     * 流式结果集(来源 : 数据库查询结果)
+     * 按需逐行读取, 不负责关闭 resultSet
+     * @param model Model
+     * @param resultSet jdbc结果
+     * @param sql 执行的sql
+     * @param <T> 实体类型
+     * @param <K> 实体主键类型
+     * @return 结果集流
+     * @throws SQLException 数据库异常
+     */
+    public static <T, K> Stream<Record<T, K>> newRecordStream(Model<?, T, K> model,
+        ResultSet resultSet, String sql) throws SQLException {
+        final RowReaderPlan.Reader reader = getRowReaderPlan(model, resultSet.getMetaData()).newReader();
+        return newStream(resultSet, sql, theResultSet -> RecordBean.adopt(model, reader.read(theResultSet), sql));
+    }
+
+    /**
+     * 流式对象(来源 : 数据库查询结果)
+     * 按需逐行读取, 不负责关闭 resultSet
+     * 目标类型为模型的实体类型时, 直接由结果集赋值到实体, 不经过 map 以及 Record
+     * @param model Model
+     * @param resultSet jdbc结果
+     * @param sql 执行的sql
+     * @param clazz 目标类型
+     * @param <T> 实体类型
+     * @param <K> 实体主键类型
+     * @param <V> 目标类型
+     * @return 对象流
+     * @throws SQLException 数据库异常
+     */
+    public static <T, K, V> Stream<V> newObjectStream(Model<?, T, K> model, ResultSet resultSet, String sql,
+        Class<V> clazz) throws SQLException {
+        final RowReaderPlan rowReaderPlan = getRowReaderPlan(model, resultSet.getMetaData());
+        if (clazz == model.getEntityClass()) {
+            return newStream(resultSet, sql, rowReaderPlan::readEntity);
+        }
+        final EntityMember<V, Object> entityMember = model.getContainer()
+            .getBean(ModelShadowProvider.class)
+            .parseAnyEntityWithCache(clazz);
+        final RowReaderPlan.Reader reader = rowReaderPlan.newReader();
+        return newStream(resultSet, sql, theResultSet -> entityMember.toEntity(reader.read(theResultSet)));
+    }
+
+    /**
+     * 流式通用map(来源 : 数据库查询结果)
+     * 按需逐行读取, 不负责关闭 resultSet
+     * @param model Model
+     * @param resultSet jdbc结果
+     * @param sql 执行的sql
+     * @param <T> 实体类型
+     * @param <K> 实体主键类型
+     * @return map流
+     * @throws SQLException 数据库异常
+     */
+    public static <T, K> Stream<Map<String, Object>> newMapStream(Model<?, T, K> model, ResultSet resultSet,
+        String sql) throws SQLException {
+        final RowReaderPlan.Reader reader = getRowReaderPlan(model, resultSet.getMetaData()).newReader();
+        return newStream(resultSet, sql, reader::read);
+    }
+
+    /**
+     * 按需逐行读取结果集, 不负责关闭 resultSet
+     * @param resultSet jdbc结果
+     * @param sql 执行的sql
+     * @param rowReader 当前行的读取方式
+     * @param <V> 元素类型
+     * @return 流
+     */
+    private static <V> Stream<V> newStream(ResultSet resultSet, String sql,
+        ResultSetFunctionalInterface<? extends V> rowReader) {
+        Spliterator<V> spliterator = new Spliterators.AbstractSpliterator<V>(Long.MAX_VALUE,
+            Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super V> action) {
+                try {
+                    if (!resultSet.next()) {
+                        return false;
+                    }
+                    action.accept(rowReader.apply(resultSet));
+                    return true;
+                } catch (SQLException e) {
+                    throw new SQLRuntimeException(sql, e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
     /**
      * 单体结果集列表,转化为 批量结果集
      * 仅 ToObject 构造方法中使用
@@ -90,7 +305,7 @@ public static <T, K> RecordList<T, K> newRecordList(Model<?, T, K> model,
     public static <T, K> RecordList<T, K> newRecordList(Container container,
         List<Record<T, K>> records) {
         String sql = !records.isEmpty() ? records.get(0).getOriginalSql() : "";
-        RecordList<T, K> recordList = new RecordListBean<>(sql, container);
+        RecordList<T, K> recordList = new RecordListBean<>(sql, container, records.size());
         // 此处不应使用, deepCopyRecord
         recordList.addAll(records);
         return recordList;
@@ -133,7 +348,7 @@ public static <T, K> RecordList<T, K> newRecordList(Container container) {
     public static <T, K> RecordList<T, K> copyRecordList(
         RecordList<T, K> originalRecordList) {
         RecordList<T, K> recordList = new RecordListBean<>(originalRecordList.getOriginalSql(),
-            originalRecordList.getContainer());
+            originalRecordList.getContainer(), originalRecordList.size());
         for (Record<T, K> originalRecord : originalRecordList) {
             recordList.add(new RecordBean<>(originalRecord));
         }
@@ -143,62 +358,32 @@ public static <T, K> RecordList<T, K> copyRecordList(
     }
 
     /**
-     * jdbc结果集转化为 HashMap
+     * jdbc结果集转化为通用map
+     * 同一列结构的结果集, 所有行共用一份列结构
      * @param model 数据模型
      * @param resultSetMetaData 源数据
      * @param resultSet 结果集
      * @return 通用map
      * @throws SQLException 数据库异常
      */
-    public static <T, K> HashMap<String, Object> JDBCResultToMap(
+    public static <T, K> Map<String, Object> JDBCResultToMap(
         Model<?, T, K> model, ResultSetMetaData resultSetMetaData, ResultSet resultSet) throws SQLException {
-        HashMap<String, Object> map = new HashMap<>();
-        return (HashMap<String, Object>) JDBCResultToMap(model, map, resultSetMetaData, resultSet);
-
+        return getRowReaderPlan(model, resultSetMetaData).read(resultSet);
     }
 
     /**
-     * jdbc结果集转化为通用map
+     * 获取结果集行读取计划
      * @param model 数据模型
-     * @param map map类型
      * @param resultSetMetaData 源数据
-     * @param resultSet 结果集
-     * @return 通用map
+     * @return 行读取计划
      * @throws SQLException 数据库异常
      */
-    private static <T, K> Map<String, Object> JDBCResultToMap(
-        Model<?, T, K> model, Map<String, Object> map, ResultSetMetaData resultSetMetaData, ResultSet resultSet)
+    public static RowReaderPlan getRowReaderPlan(Model<?, ?, ?> model, ResultSetMetaData resultSetMetaData)
         throws SQLException {
-
-        // 字段信息
-        Map<String, FieldMember<?>> columnFieldMap = model.getContainer()
+        return model.getContainer()
             .getBean(ModelShadowProvider.class)
             .get(model)
-            .getEntityMember().getColumnFieldMap();
-
-        final int columnCountMoreOne = resultSetMetaData.getColumnCount() + 1;
-        for (int i = 1; i < columnCountMoreOne; i++) {
-            // 列名
-            String columnName = resultSetMetaData.getColumnLabel(i);
-
-            FieldMember<?> fieldMember = columnFieldMap.get(columnName);
-
-            Object value;
-            // 值获取
-            if (!ObjectUtils.isNull(fieldMember)) {
-                value = fieldMember.getFieldConversion()
-                    .acquisition(fieldMember.getField(), resultSet, columnName);
-
-            } else {
-                // *尽量* 使用同类型赋值
-                value = model.getContainer()
-                    .getBean(ConversionConfig.class)
-                    .getValueFromJdbcResultSet(null, resultSet, columnName);
-            }
-
-            map.put(columnName, value);
-        }
-        return map;
+            .getRowReaderPlan(resultSetMetaData);
     }
 
     /**
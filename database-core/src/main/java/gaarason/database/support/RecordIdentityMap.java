@@ -0,0 +1,106 @@
+package gaarason.database.support;
+
+import gaarason.database.appointment.IdentityMap;
+import gaarason.database.contract.eloquent.Model;
+import gaarason.database.contract.eloquent.Record;
+import gaarason.database.eloquent.RecordBean;
+import gaarason.database.lang.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 标识映射的读写
+ * 仅在当前线程开启了作用域时生效, 参考 IdentityMap.open()
+ * @author xt
+ */
+public final class RecordIdentityMap {
+
+    private RecordIdentityMap() {
+
+    }
+
+    /**
+     * 从标识映射中获取记录
+     * @param model 数据模型
+     * @param primaryKeyValue 主键值
+     * @param <T> 实体类
+     * @param <K> 主键类型
+     * @return 新的记录对象 (与缓存的元数据相互独立), 不存在时为 null
+     */
+    @Nullable
+    public static <T, K> Record<T, K> find(Model<?, T, K> model, @Nullable Object primaryKeyValue) {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap == null) {
+            return null;
+        }
+        Map<String, Object> metadata = identityMap.getRecord(model.getClass(), primaryKeyValue);
+        return metadata == null ? null : new RecordBean<>(model, metadata, "");
+    }
+
+    /**
+     * 将记录写入标识映射
+     * 记录需包含完整的列
+     * @param record 记录
+     * @param <R> 记录类型
+     * @return 记录
+     */
+    @Nullable
+    public static <R extends Record<?, ?>> R remember(@Nullable R record) {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap != null && record != null) {
+            put(identityMap, record);
+        }
+        return record;
+    }
+
+    /**
+     * 将记录写入标识映射
+     * 记录需包含完整的列
+     * @param records 记录集合
+     * @param <L> 记录集合类型
+     * @return 记录集合
+     */
+    public static <L extends Iterable<? extends Record<?, ?>>> L rememberAll(L records) {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap != null) {
+            for (Record<?, ?> record : records) {
+                put(identityMap, record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 清除标识映射中某个模型的所有记录
+     * 写操作之后, 该模型的记录可能已经过期
+     * @param model 数据模型
+     */
+    public static void evict(Model<?, ?, ?> model) {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap != null) {
+            identityMap.evict(model.getClass());
+        }
+    }
+
+    /**
+     * 清除标识映射中的全部记录
+     * 事务回滚之后, 回滚前读取的记录可能并未生效
+     */
+    public static void evictAll() {
+        IdentityMap identityMap = IdentityMap.current();
+        if (identityMap != null) {
+            identityMap.evictAll();
+        }
+    }
+
+    private static void put(IdentityMap identityMap, Record<?, ?> record) {
+        Model<?, ?, ?> model = record.getModel();
+        Map<String, Object> metadataMap = RecordBean.unwrapMetadataMap(record.getMetadataMap());
+        Object primaryKeyValue = metadataMap.get(model.getPrimaryKeyColumnName());
+        // 复制元数据, 以免记录后续的变更影响缓存
+        Map<String, Object> copy = metadataMap instanceof RowMap ? new RowMap((RowMap) metadataMap) :
+            new HashMap<>(metadataMap);
+        identityMap.putRecord(model.getClass(), primaryKeyValue, copy);
+    }
+}
@@ -1,9 +1,13 @@
 package gaarason.database.support;
 
+import gaarason.database.appointment.IdentityMap;
+import gaarason.database.config.GaarasonDatabaseProperties;
 import gaarason.database.contract.eloquent.Builder;
+import gaarason.database.contract.eloquent.Model;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
 import gaarason.database.contract.eloquent.relation.RelationSubQuery;
+import gaarason.database.contract.function.BuilderAnyWrapper;
 import gaarason.database.contract.function.GenerateRecordListFunctionalInterface;
 import gaarason.database.contract.function.RecordWrapper;
 import gaarason.database.core.Container;
@@ -12,6 +16,11 @@
 import gaarason.database.util.ObjectUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * 关联关系获取
@@ -105,7 +114,9 @@ protected T generateEntity(Record<T, K> record, Map<Record.Relation, relationRes
             // 赋值 关联关系统计
             if (relation.relationOperation) {
                 // 筛选批量关联查询结果
-                Map<String, Object> map = relationSubQuery.filterBatchRecordByRelationOperation(record, relationResultData.records);
+                Map<String, Object> map = relationResultData.operationIndex == null ?
+                    relationSubQuery.filterBatchRecordByRelationOperation(record, relationResultData.records) :
+                    relationSubQuery.filterBatchRecordByRelationOperation(record, relationResultData.operationIndex);
 
                 // 目标属性信息
                 FieldMember<?> targetFieldMember = entityMember.getFieldMemberByFieldName(relationResultData.targetFieldName);
@@ -119,7 +130,7 @@ protected T generateEntity(Record<T, K> record, Map<Record.Relation, relationRes
             // 赋值 关联关系
             else {
                 // 筛选批量关联查询结果对象
-                List<?> objects = relationSubQuery.filterBatchRecord(record, relationResultData.records, relationResultData.objs);
+                List<?> objects = relationResultData.filterBatchRecord(relationSubQuery, record);
 
                 // 是否是集合
                 if (fieldRelationMember.isPlural()) {
@@ -144,72 +155,211 @@ protected Map<Record.Relation, relationResultData> dealRelationData(RecordList<?
         if (ObjectUtils.isEmpty(records) || !attachedRelationship) {
             return Collections.emptyMap();
         }
-        // 关联关系的结果集合
-        Map<Record.Relation, relationResultData> relationResultMap = new HashMap<>();
         // 原数据 (整体)
         List<Map<String, Object>> metadataList = records.getMetadata();
         // 数据库实体信息
         EntityMember<?, ?> entityMember = getModelMember().getEntityMember();
+        // 当前模型
+        Model<?, ?, ?> model = records.get(0).getModel();
 
         /*
          * 手动构造的records, 可能存在不相同的relationMap
          * 此处目前未兼容这种情况
          */
-        Map<String, Record.Relation> relationMap = records.get(0).getRelationMap();
-
-        // 循环每一个有效的关联关系数据
-        for (Map.Entry<String, Record.Relation> relationEntry : relationMap.entrySet()) {
-            // 目标属性名 (并不一定等于 Relation.name)
-            String targetFieldName  = relationEntry.getKey();
-            // 关联关系信息
-            Record.Relation relation = relationEntry.getValue();
-            // 是否关联关系操作
-            boolean relationOperation = relation.relationOperation;
-
-            // 关联关系属性信息
-            FieldRelationMember fieldRelationMember = entityMember.getFieldRelationMemberByFieldName(
-                    relation.relationFieldName);
-
-            // 关联关系字段处理
-            RelationSubQuery relationSubQuery = fieldRelationMember.getRelationSubQuery();
+        List<Map.Entry<String, Record.Relation>> relationEntries = new ArrayList<>(
+            records.get(0).getRelationMap().entrySet());
 
-            // 中间表，查询构造器
-            Builder<?, ?, ?> relationBuilder = relationSubQuery.prepareRelationBuilder(metadataList);
+        // 每一个有效的关联关系数据的查询结果, 与 relationEntries 一一对应
+        relationResultData[] results = new relationResultData[relationEntries.size()];
+        runTasks(model, results.length,
+            i -> results[i] = dealRelationData(model, metadataList, entityMember, relationEntries.get(i)));
 
-            // 中间表数据
-            RecordList<?, ?> relationRecords =  relationSubQuery.dealBatchForRelation(relationBuilder);
+        // 关联关系的结果集合
+        Map<Record.Relation, relationResultData> relationResultMap = new HashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            relationResultMap.put(relationEntries.get(i).getValue(), results[i]);
+        }
+        return relationResultMap;
+    }
 
-            // 关联关系统计查询
-            if (relationOperation) {
-                // 目标表，查询构造器
-                Builder<?, ?, ?> targetBuilder = relationSubQuery.prepareTargetBuilderByRelationOperation(metadataList,
-                        relationRecords, relation.operationBuilder, relation.customBuilder);
+    /**
+     * 执行多个相互独立的任务
+     * 开启并发, 且当前线程不在事务中时, 使用线程池并发执行, 否则串行执行
+     * 当前线程同样参与执行, 线程池繁忙(甚至拒绝)时, 退化为当前线程串行执行, 不会因为嵌套的关联关系而互相等待
+     * @param model 当前模型
+     * @param taskNum 任务数量
+     * @param task 任务, 参数为任务下标
+     */
+    protected void runTasks(Model<?, ?, ?> model, int taskNum, IntConsumer task) {
+        GaarasonDatabaseProperties.Relation relationConfig = container.getBean(GaarasonDatabaseProperties.class)
+            .getRelation();
+        int parallelism = Math.min(relationConfig.getParallelism(), taskNum);
+        if (parallelism < 2 || !relationConfig.isParallel() ||
+            model.getGaarasonDataSource().isLocalThreadInTransaction()) {
+            for (int i = 0; i < taskNum; i++) {
+                task.accept(i);
+            }
+            return;
+        }
 
-                // 本级关系查询
-                RecordList<?, ?> targetRecordList = getTargetRecordsTransferWith(relation.recordWrapper,
-                        () -> relationSubQuery.dealBatchForTargetByRelationOperation(targetBuilder, relationRecords));
+        // 下一个待认领的任务
+        AtomicInteger next = new AtomicInteger();
+        // 标识映射的作用域, 传递至其他线程
+        IdentityMap identityMap = IdentityMap.current();
+        Runnable worker = () -> {
+            IdentityMap.Scope scope = IdentityMap.join(identityMap);
+            try {
+                int i;
+                while ((i = next.getAndIncrement()) < taskNum) {
+                    task.accept(i);
+                }
+            } finally {
+                scope.close();
+            }
+        };
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(parallelism - 1);
+        for (int i = 1; i < parallelism; i++) {
+            try {
+                futures.add(CompletableFuture.runAsync(worker, model.getExecutorService()));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        // 等待其他线程已认领的任务
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw e;
+            }
+        }
+    }
 
-                // 收集以便返回
-                relationResultMap.put(relation, new relationResultData(targetFieldName, fieldRelationMember, targetRecordList, null));
+    /**
+     * 查询并处理单个关联关系数据
+     * @param model 当前模型
+     * @param metadataList 当前全量数据的原数据
+     * @param entityMember 当前实体信息
+     * @param relationEntry 目标属性名 -> 关联关系信息
+     * @return 关系查询结果
+     */
+    protected relationResultData dealRelationData(Model<?, ?, ?> model, List<Map<String, Object>> metadataList,
+        EntityMember<?, ?> entityMember, Map.Entry<String, Record.Relation> relationEntry) {
+        // 目标属性名 (并不一定等于 Relation.name)
+        String targetFieldName = relationEntry.getKey();
+        // 关联关系信息
+        Record.Relation relation = relationEntry.getValue();
+
+        // 关联关系属性信息
+        FieldRelationMember fieldRelationMember = entityMember.getFieldRelationMemberByFieldName(
+                relation.relationFieldName);
+
+        // 关联关系字段处理
+        RelationSubQuery relationSubQuery = fieldRelationMember.getRelationSubQuery();
+
+        // 查询构造器包装仅执行一次, 分块判断以及各分块的查询复用其结果
+        BuilderAnyWrapper customBuilder = ReusableBuilderWrapper.of(relation.customBuilder);
+
+        // 按关系键数量分块
+        int chunkSize = container.getBean(GaarasonDatabaseProperties.class).getRelation().getChunkSize();
+        List<List<Map<String, Object>>> metadataChunks = relationSubQuery.chunkMetadata(metadataList, chunkSize,
+            customBuilder);
+        // 各分块的查询结果集
+        RecordList<?, ?>[] chunkRecordLists = new RecordList<?, ?>[metadataChunks.size()];
+        boolean chunked = relation.joinedRecordList == null && chunkRecordLists.length > 1;
+
+        // 本级关系查询
+        RecordList<?, ?> targetRecordList = getTargetRecordsTransferWith(relation.recordWrapper, () -> {
+            // 以 left join 的方式关联时, 目标表数据已在当前查询中获取
+            if (relation.joinedRecordList != null) {
+                return relation.joinedRecordList;
             }
-            // 关联关系查询
-            else {
-                // 目标表，查询构造器
-                Builder<?, ?, ?> targetBuilder = relationSubQuery.prepareTargetBuilder(metadataList, relationRecords,
-                        relation.operationBuilder, relation.customBuilder);
+            if (!chunked) {
+                return dealBatch(metadataChunks.get(0), relation, customBuilder, relationSubQuery);
+            }
+            runTasks(model, chunkRecordLists.length,
+                i -> chunkRecordLists[i] = dealBatch(metadataChunks.get(i), relation, customBuilder, relationSubQuery));
+            // 合并各分块的结果
+            return relation.relationOperation ?
+                relationSubQuery.mergeBatchForTargetByRelationOperation(Arrays.asList(chunkRecordLists)) :
+                relationSubQuery.mergeBatchForTarget(Arrays.asList(chunkRecordLists));
+        });
+
+        // 关联关系统计查询
+        if (relation.relationOperation) {
+            // 收集以便返回, 结果集仅建立一次索引
+            relationResultData resultData = new relationResultData(targetFieldName, fieldRelationMember,
+                targetRecordList, null);
+            resultData.operationIndex = relationSubQuery.indexBatchRecordByRelationOperation(targetRecordList);
+            return resultData;
+        }
+        // 关联关系查询
+        else {
+            // 转化为普通对象, 递归调用
+            List<?> objs = targetRecordList.toObjectList();
+
+            // 收集以便返回, 结果集仅建立一次索引
+            relationResultData resultData = new relationResultData(targetFieldName, fieldRelationMember,
+                targetRecordList, objs);
+            if (!chunked) {
+                resultData.index = relationSubQuery.indexBatchRecord(targetRecordList, objs);
+                return resultData;
+            }
+            // 各分块分别建立索引, 每条数据从其所在分块的索引中筛选, 以保持与不分块时一致的目标顺序
+            resultData.chunkRecords = Arrays.asList(chunkRecordLists);
+            resultData.chunkObjs = new ArrayList<>(chunkRecordLists.length);
+            resultData.chunkIndexes = new ArrayList<>(chunkRecordLists.length);
+            resultData.chunkOfMetadata = new IdentityHashMap<>(metadataList.size());
+            int offset = 0;
+            for (int i = 0; i < chunkRecordLists.length; i++) {
+                int size = chunkRecordLists[i].size();
+                List<?> chunkObjs = objs.subList(offset, offset + size);
+                resultData.chunkObjs.add(chunkObjs);
+                resultData.chunkIndexes.add(relationSubQuery.indexBatchRecord(chunkRecordLists[i], chunkObjs));
+                offset += size;
+                for (Map<String, Object> metadata : metadataChunks.get(i)) {
+                    resultData.chunkOfMetadata.put(metadata, i);
+                }
+            }
+            return resultData;
+        }
+    }
+
+    /**
+     * 批量关联查询 (中间表以及目标表)
+     * @param metadataList 当前recordList(或其分块)的元数据
+     * @param relation 关联关系信息
+     * @param customBuilder 查询构造器包装
+     * @param relationSubQuery 关联关系字段处理
+     * @return 目标表查询结果集
+     */
+    protected static RecordList<?, ?> dealBatch(List<Map<String, Object>> metadataList, Record.Relation relation,
+        BuilderAnyWrapper customBuilder, RelationSubQuery relationSubQuery) {
+        // 关联关系统计查询
+        if (relation.relationOperation) {
+            // 中间表，查询构造器
+            Builder<?, ?, ?> relationBuilder = relationSubQuery.prepareRelationBuilder(metadataList);
 
-                // 本级关系查询
-                RecordList<?, ?> targetRecordList = getTargetRecordsTransferWith(relation.recordWrapper,
-                        () -> relationSubQuery.dealBatchForTarget(targetBuilder, relationRecords));
+            // 中间表数据
+            RecordList<?, ?> relationRecords =  relationSubQuery.dealBatchForRelation(relationBuilder);
 
-                // 转化为普通对象, 递归调用
-                List<?> objs = targetRecordList.toObjectList();
+            // 目标表，查询构造器
+            Builder<?, ?, ?> targetBuilder = relationSubQuery.prepareTargetBuilderByRelationOperation(metadataList,
+                    relationRecords, relation.operationBuilder, customBuilder);
 
-                // 收集以便返回
-                relationResultMap.put(relation, new relationResultData(targetFieldName, fieldRelationMember, targetRecordList, objs));
-            }
+            return relationSubQuery.dealBatchForTargetByRelationOperation(targetBuilder, relationRecords);
+        }
+        // 关联关系查询
+        else {
+            return relationSubQuery.dealBatch(metadataList, relation.operationBuilder, customBuilder);
         }
-        return relationResultMap;
     }
 
     /**
@@ -257,6 +407,36 @@ public static class relationResultData {
         public FieldRelationMember fieldRelationMember;
         public RecordList<?, ?> records;
         public List<?> objs;
+        /**
+         * 关系键值 -> 对象列表, 为 null 表示未建立索引
+         */
+        @Nullable
+        public Map<Object, List<Object>> index;
+        /**
+         * 关系键值 -> 关联查询操作的结果, 为 null 表示未建立索引
+         */
+        @Nullable
+        public Map<Object, Map<String, Object>> operationIndex;
+        /**
+         * 分块查询时, 各分块的索引, 元素为 null 表示该分块未建立索引
+         */
+        @Nullable
+        public List<Map<Object, List<Object>>> chunkIndexes;
+        /**
+         * 分块查询时, 各分块的查询结果集
+         */
+        @Nullable
+        public List<RecordList<?, ?>> chunkRecords;
+        /**
+         * 分块查询时, 各分块的对象列表
+         */
+        @Nullable
+        public List<List<?>> chunkObjs;
+        /**
+         * 分块查询时, 元数据 -> 所在分块的下标
+         */
+        @Nullable
+        public Map<Map<String, Object>, Integer> chunkOfMetadata;
         public relationResultData(String targetFieldName, FieldRelationMember fieldRelationMember, RecordList<?, ?> records,
                 List<?> objs) {
             this.targetFieldName = targetFieldName;
@@ -264,6 +444,28 @@ public relationResultData(String targetFieldName, FieldRelationMember fieldRelat
             this.records = records;
             this.objs = objs;
         }
+
+        /**
+         * 筛选记录所对应的查询结果对象
+         * 优先使用记录所在分块的索引, 未建立索引时逐个比对
+         * @param relationSubQuery 关联关系字段处理
+         * @param theRecord 当前record
+         * @return 筛选后的查询结果集
+         */
+        public List<Object> filterBatchRecord(RelationSubQuery relationSubQuery, Record<?, ?> theRecord) {
+            if (chunkIndexes == null || chunkRecords == null || chunkObjs == null || chunkOfMetadata == null) {
+                return index == null ? relationSubQuery.filterBatchRecord(theRecord, records, objs) :
+                    relationSubQuery.filterBatchRecord(theRecord, index);
+            }
+            Integer chunk = chunkOfMetadata.get(theRecord.getMetadataMap());
+            if (chunk == null) {
+                return new ArrayList<>();
+            }
+            Map<Object, List<Object>> chunkIndex = chunkIndexes.get(chunk);
+            return chunkIndex == null ?
+                relationSubQuery.filterBatchRecord(theRecord, chunkRecords.get(chunk), chunkObjs.get(chunk)) :
+                relationSubQuery.filterBatchRecord(theRecord, chunkIndex);
+        }
     }
 
 }
@@ -0,0 +1,51 @@
+package gaarason.database.support;
+
+import gaarason.database.contract.eloquent.Builder;
+import gaarason.database.contract.function.BuilderAnyWrapper;
+import gaarason.database.lang.Nullable;
+
+/**
+ * 可复用的查询构造器包装
+ * 仅在首次使用时执行原始的查询构造器包装, 之后返回其结果的副本, 避免重复执行使用者的闭包
+ * 仅适用于总是作用在同一模型的全新查询构造器上的场景, 如关联关系的目标表查询
+ * @author xt
+ */
+public final class ReusableBuilderWrapper implements BuilderAnyWrapper {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 原始的查询构造器包装
+     */
+    private final BuilderAnyWrapper builderWrapper;
+
+    /**
+     * 首次执行的结果
+     */
+    @Nullable
+    private transient Builder<?, ?, ?> builder;
+
+    private ReusableBuilderWrapper(BuilderAnyWrapper builderWrapper) {
+        this.builderWrapper = builderWrapper;
+    }
+
+    /**
+     * 包装为可复用的查询构造器包装
+     * @param builderWrapper 查询构造器包装
+     * @return 可复用的查询构造器包装, 通用空实现则原样返回
+     */
+    public static BuilderAnyWrapper of(BuilderAnyWrapper builderWrapper) {
+        if (builderWrapper == BuilderAnyWrapper.empty() || builderWrapper instanceof ReusableBuilderWrapper) {
+            return builderWrapper;
+        }
+        return new ReusableBuilderWrapper(builderWrapper);
+    }
+
+    @Override
+    public synchronized Builder<?, ?, ?> execute(Builder<?, ?, ?> builder) {
+        if (this.builder == null) {
+            this.builder = builderWrapper.execute(builder);
+        }
+        return this.builder.clone();
+    }
+}
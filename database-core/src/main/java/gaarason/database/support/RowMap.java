@@ -0,0 +1,378 @@
+package gaarason.database.support;
+
+import gaarason.database.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * 结果集单行数据
+ * 同一结果集的所有行共用一份列结构(Schema), 每行仅持有一个值数组, 以减少内存占用
+ * 对于列结构之外的键, 使用额外的 map 存储, 因此仍可以当做普通的 map 使用
+ * @author xt
+ */
+public class RowMap extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 值不存在的标记
+     */
+    private static final Object ABSENT = new Object();
+
+    /**
+     * 列结构
+     */
+    private final Schema schema;
+
+    /**
+     * 值数组, 下标与列结构一致
+     */
+    private final Object[] values;
+
+    /**
+     * 列结构之外的键值
+     */
+    @Nullable
+    private Map<String, Object> extraMap;
+
+    /**
+     * 列结构中, 值存在的数量
+     */
+    private int schemaSize;
+
+    /**
+     * 以 left join 的方式关联的目标表的行数据, 列别名的前缀 -> 行数据
+     * 不属于当前行的键值, 由关联关系取出
+     */
+    @Nullable
+    private transient Map<String, RowMap> joinedRows;
+
+    @Nullable
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * 空行
+     * @param schema 列结构
+     */
+    public RowMap(Schema schema) {
+        this.schema = schema;
+        this.values = new Object[schema.columns.length];
+        Arrays.fill(values, ABSENT);
+    }
+
+    /**
+     * 使用完整的值数组生成
+     * @param schema 列结构
+     * @param values 值数组, 需与列结构长度一致, 将直接使用其引用
+     */
+    RowMap(Schema schema, Object[] values) {
+        this.schema = schema;
+        this.values = values;
+        this.schemaSize = values.length;
+    }
+
+    /**
+     * 复制
+     * @param original 原对象
+     */
+    public RowMap(RowMap original) {
+        this.schema = original.schema;
+        this.values = original.values.clone();
+        this.schemaSize = original.schemaSize;
+        this.extraMap = original.extraMap == null ? null : new LinkedHashMap<>(original.extraMap);
+        this.joinedRows = original.joinedRows == null ? null : new HashMap<>(original.joinedRows);
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    void setJoinedRows(@Nullable Map<String, RowMap> joinedRows) {
+        this.joinedRows = joinedRows;
+    }
+
+    /**
+     * 取出以 left join 的方式关联的目标表的行数据
+     * @param prefix 目标表的列别名的前缀
+     * @return 行数据, 不存在时返回 null
+     */
+    @Nullable
+    public RowMap pullJoinedRow(String prefix) {
+        return joinedRows == null ? null : joinedRows.remove(prefix);
+    }
+
+    @Override
+    public int size() {
+        return schemaSize + (extraMap == null ? 0 : extraMap.size());
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int index = schema.indexOf(key);
+        if (index >= 0) {
+            return values[index] != ABSENT;
+        }
+        return extraMap != null && extraMap.containsKey(key);
+    }
+
+    @Override
+    @Nullable
+    public Object get(Object key) {
+        int index = schema.indexOf(key);
+        if (index >= 0) {
+            Object value = values[index];
+            return value == ABSENT ? null : value;
+        }
+        return extraMap == null ? null : extraMap.get(key);
+    }
+
+    @Override
+    @Nullable
+    public Object put(String key, @Nullable Object value) {
+        int index = schema.indexOf(key);
+        if (index >= 0) {
+            Object old = values[index];
+            values[index] = value;
+            if (old == ABSENT) {
+                schemaSize++;
+                return null;
+            }
+            return old;
+        }
+        if (extraMap == null) {
+            extraMap = new LinkedHashMap<>();
+        }
+        return extraMap.put(key, value);
+    }
+
+    @Override
+    @Nullable
+    public Object remove(Object key) {
+        int index = schema.indexOf(key);
+        if (index >= 0) {
+            return removeAt(index);
+        }
+        return extraMap == null ? null : extraMap.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(values, ABSENT);
+        schemaSize = 0;
+        extraMap = null;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> theEntrySet = entrySet;
+        if (theEntrySet == null) {
+            theEntrySet = entrySet = new EntrySet();
+        }
+        return theEntrySet;
+    }
+
+    @Nullable
+    private Object removeAt(int index) {
+        Object old = values[index];
+        if (old == ABSENT) {
+            return null;
+        }
+        values[index] = ABSENT;
+        schemaSize--;
+        return old;
+    }
+
+    /**
+     * 列结构
+     * 同一结果集的列名, 及列名对应的下标
+     */
+    public static class Schema implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * 列名
+         */
+        private final String[] columns;
+
+        /**
+         * 列名 -> 下标
+         */
+        private final Map<String, Integer> indexMap;
+
+        /**
+         * @param columns 列名, 不应重复
+         */
+        public Schema(String[] columns) {
+            this.columns = columns;
+            this.indexMap = new HashMap<>((int) (columns.length / 0.75f) + 1);
+            for (int i = 0; i < columns.length; i++) {
+                indexMap.put(columns[i], i);
+            }
+        }
+
+        /**
+         * 列名对应的下标
+         * @param key 列名
+         * @return 下标, 不存在时返回 -1
+         */
+        public int indexOf(@Nullable Object key) {
+            Integer index = indexMap.get(key);
+            return index == null ? -1 : index;
+        }
+
+        /**
+         * 列数量
+         * @return 列数量
+         */
+        public int size() {
+            return columns.length;
+        }
+
+        public String[] getColumns() {
+            return columns;
+        }
+    }
+
+    /**
+     * 序列化时, 使用普通的 map 代替, 以保持兼容
+     * @return LinkedHashMap
+     */
+    private Object writeReplace() {
+        return new LinkedHashMap<>(this);
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+        @Override
+        public int size() {
+            return RowMap.this.size();
+        }
+
+        @Override
+        public void clear() {
+            RowMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<String, Object>> iterator() {
+            return new EntryIterator();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        /**
+         * 下一个列结构中的下标
+         */
+        private int next = -1;
+
+        /**
+         * 最近一次返回的列结构中的下标
+         */
+        private int last = -1;
+
+        @Nullable
+        private Iterator<Map.Entry<String, Object>> extraIterator;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            do {
+                next++;
+            } while (next < values.length && values[next] == ABSENT);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next < values.length) {
+                return true;
+            }
+            if (extraIterator == null) {
+                if (extraMap == null) {
+                    return false;
+                }
+                extraIterator = extraMap.entrySet().iterator();
+            }
+            return extraIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (next < values.length) {
+                last = next;
+                advance();
+                return new SchemaEntry(last);
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = -1;
+            assert extraIterator != null;
+            return extraIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (last >= 0) {
+                removeAt(last);
+                last = -1;
+            } else if (extraIterator != null) {
+                extraIterator.remove();
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private class SchemaEntry implements Map.Entry<String, Object> {
+
+        private final int index;
+
+        SchemaEntry(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public String getKey() {
+            return schema.columns[index];
+        }
+
+        @Override
+        @Nullable
+        public Object getValue() {
+            Object value = values[index];
+            return value == ABSENT ? null : value;
+        }
+
+        @Override
+        @Nullable
+        public Object setValue(@Nullable Object value) {
+            Object old = getValue();
+            values[index] = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            return Objects.equals(getKey(), e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package gaarason.database.support;
+
+import gaarason.database.config.ConversionConfig;
+import gaarason.database.contract.eloquent.relation.RelationSubQuery;
+import gaarason.database.lang.Nullable;
+import gaarason.database.util.ObjectUtils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * 结果集行读取计划
+ * 按 (Model, 结果集列结构) 预先解析, 每列的列名, 字段信息以及按列序号的读取方式, 以便逐行读取时不再重复查找
+ * @author xt
+ */
+public class RowReaderPlan {
+
+    /**
+     * 单列字典的最大容量, 超过则认为该列不是低基数列, 不再进行字典化
+     */
+    private static final int DICTIONARY_MAX_SIZE = 256;
+
+    /**
+     * 以 left join 的方式关联的目标表的列别名的前缀
+     */
+    public static final String JOIN_PREFIX = "_join_";
+
+    /**
+     * 列名(已驻留), 下标为 列序号-1
+     */
+    private final String[] columnLabels;
+
+    /**
+     * 每列在行数据中的下标, 下标为 列序号-1
+     * 重复的列名仅读取第一次出现的列 (与 jdbc 按列名读取的规则一致), 其余列的下标为 -1
+     */
+    private final int[] slots;
+
+    /**
+     * 每列的读取方式, 下标为 列序号-1
+     */
+    private final ColumnReader[] columnReaders;
+
+    /**
+     * 每列对应的实体字段信息, 下标为 列序号-1, 非实体字段的列为 null
+     */
+    private final FieldMember<?>[] fieldMembers;
+
+    /**
+     * 行数据的列结构, 由该计划读取的所有行共用
+     */
+    private final RowMap.Schema schema;
+
+    /**
+     * 以 left join 的方式关联的列所属的目标表 (joinedPrefixes 的下标), 下标为 列序号-1, 其他列为 -1
+     */
+    private final int[] joinedGroups;
+
+    /**
+     * 以 left join 的方式关联的列在目标表行数据中的下标, 下标为 列序号-1
+     */
+    private final int[] joinedSlots;
+
+    /**
+     * 以 left join 的方式关联的目标表的列别名的前缀
+     */
+    private final String[] joinedPrefixes;
+
+    /**
+     * 以 left join 的方式关联的目标表的行数据的列结构, 下标与 joinedPrefixes 一致
+     */
+    private final RowMap.Schema[] joinedSchemas;
+
+    /**
+     * 实体信息
+     */
+    private final EntityMember<?, ?> entityMember;
+
+    RowReaderPlan(String[] columnLabels, EntityMember<?, ?> entityMember, ConversionConfig conversionConfig) {
+        this.columnLabels = columnLabels;
+        this.entityMember = entityMember;
+        this.slots = new int[columnLabels.length];
+        this.columnReaders = new ColumnReader[columnLabels.length];
+        this.fieldMembers = new FieldMember<?>[columnLabels.length];
+        this.joinedGroups = new int[columnLabels.length];
+        this.joinedSlots = new int[columnLabels.length];
+        Arrays.fill(joinedGroups, -1);
+        Map<String, FieldMember<?>> columnFieldMap = entityMember.getColumnFieldMap();
+        Map<String, Integer> slotMap = new LinkedHashMap<>();
+        Map<String, Integer> joinedGroupMap = new LinkedHashMap<>();
+        List<List<String>> joinedColumnsList = new ArrayList<>();
+        Set<String> joinedLabels = new HashSet<>();
+        for (int i = 0; i < columnLabels.length; i++) {
+            final int columnIndex = i + 1;
+            // 以 left join 的方式关联的目标表的列, 不属于当前实体
+            FieldRelationMember fieldRelationMember = columnLabels[i].startsWith(JOIN_PREFIX) ?
+                joinedFieldRelationMember(columnLabels[i]) : null;
+            if (fieldRelationMember != null) {
+                slots[i] = -1;
+                if (!joinedLabels.add(columnLabels[i])) {
+                    // 重复的列名, 跳过
+                    continue;
+                }
+                String prefix = JOIN_PREFIX + fieldRelationMember.getName() + "_";
+                final String column = columnLabels[i].substring(prefix.length());
+                Integer joinedGroup = joinedGroupMap.get(prefix);
+                if (joinedGroup == null) {
+                    joinedGroup = joinedColumnsList.size();
+                    joinedGroupMap.put(prefix, joinedGroup);
+                    joinedColumnsList.add(new ArrayList<>());
+                }
+                List<String> joinedColumns = joinedColumnsList.get(joinedGroup);
+                joinedGroups[i] = joinedGroup;
+                joinedSlots[i] = joinedColumns.size();
+                joinedColumns.add(column);
+                final RelationSubQuery relationSubQuery = fieldRelationMember.getRelationSubQuery();
+                columnReaders[i] = resultSet -> relationSubQuery.readJoinedColumn(resultSet, columnIndex, column);
+                continue;
+            }
+            if (slotMap.containsKey(columnLabels[i])) {
+                // 重复的列名, 跳过
+                slots[i] = -1;
+                continue;
+            }
+            slots[i] = slotMap.size();
+            slotMap.put(columnLabels[i], slots[i]);
+            final FieldMember<?> fieldMember = columnFieldMap.get(columnLabels[i]);
+            fieldMembers[i] = fieldMember;
+            if (fieldMember != null) {
+                columnReaders[i] = resultSet -> fieldMember.deserialize(resultSet, columnIndex);
+            } else {
+                // *尽量* 使用同类型赋值
+                columnReaders[i] = resultSet -> conversionConfig.getValueFromJdbcResultSet(null, resultSet,
+                    columnIndex);
+            }
+        }
+        this.schema = new RowMap.Schema(slotMap.keySet().toArray(new String[0]));
+        this.joinedPrefixes = joinedGroupMap.keySet().toArray(new String[0]);
+        this.joinedSchemas = joinedColumnsList.stream()
+            .map(joinedColumns -> new RowMap.Schema(joinedColumns.toArray(new String[0])))
+            .toArray(RowMap.Schema[]::new);
+    }
+
+    /**
+     * 列别名对应的以 left join 的方式关联的关联关系
+     * @param columnLabel 列别名
+     * @return 关联关系字段信息, 不存在时返回 null
+     */
+    @Nullable
+    private FieldRelationMember joinedFieldRelationMember(String columnLabel) {
+        FieldRelationMember matched = null;
+        for (FieldRelationMember fieldRelationMember : entityMember.getRelationFieldMap().values()) {
+            String prefix = JOIN_PREFIX + fieldRelationMember.getName() + "_";
+            // 取最长的匹配
+            if (columnLabel.length() > prefix.length() && columnLabel.startsWith(prefix) &&
+                (matched == null || fieldRelationMember.getName().length() > matched.getName().length())) {
+                matched = fieldRelationMember;
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 读取结果集中的所有列名
+     * @param resultSetMetaData 源数据
+     * @return 列名数组(已驻留)
+     * @throws SQLException 数据库异常
+     */
+    static String[] columnLabels(ResultSetMetaData resultSetMetaData) throws SQLException {
+        final int columnCount = resultSetMetaData.getColumnCount();
+        String[] columnLabels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnLabels[i] = resultSetMetaData.getColumnLabel(i + 1).intern();
+        }
+        return columnLabels;
+    }
+
+    /**
+     * 生成计划的缓存键
+     * 按列名逐个比较, 避免列名中含有分隔符时产生冲突
+     * @param columnLabels 列名数组
+     * @return 缓存键
+     */
+    static List<String> cacheKey(String[] columnLabels) {
+        return Arrays.asList(columnLabels);
+    }
+
+    /**
+     * 读取结果集的当前行
+     * @param resultSet 结果集
+     * @return 行数据
+     * @throws SQLException 数据库异常
+     */
+    public RowMap read(ResultSet resultSet) throws SQLException {
+        Object[] values = new Object[schema.size()];
+        for (int i = 0; i < columnReaders.length; i++) {
+            if (slots[i] >= 0) {
+                values[slots[i]] = columnReaders[i].read(resultSet);
+            }
+        }
+        return newRowMap(resultSet, values);
+    }
+
+    /**
+     * 生成行数据, 并读取以 left join 的方式关联的目标表的行数据
+     * @param resultSet 结果集
+     * @param values 当前行的值数组
+     * @return 行数据
+     * @throws SQLException 数据库异常
+     */
+    private RowMap newRowMap(ResultSet resultSet, Object[] values) throws SQLException {
+        RowMap rowMap = new RowMap(schema, values);
+        if (joinedPrefixes.length == 0) {
+            return rowMap;
+        }
+        Object[][] joinedValues = new Object[joinedSchemas.length][];
+        for (int i = 0; i < joinedSchemas.length; i++) {
+            joinedValues[i] = new Object[joinedSchemas[i].size()];
+        }
+        for (int i = 0; i < columnReaders.length; i++) {
+            if (joinedGroups[i] >= 0) {
+                joinedValues[joinedGroups[i]][joinedSlots[i]] = columnReaders[i].read(resultSet);
+            }
+        }
+        Map<String, RowMap> joinedRows = new HashMap<>();
+        for (int i = 0; i < joinedPrefixes.length; i++) {
+            joinedRows.put(joinedPrefixes[i], new RowMap(joinedSchemas[i], joinedValues[i]));
+        }
+        rowMap.setJoinedRows(joinedRows);
+        return rowMap;
+    }
+
+    /**
+     * 读取结果集的当前行, 直接转化为实体对象
+     * 仅处理实体中存在的列, 不经过 map 以及 Record
+     * @param resultSet 结果集
+     * @param <T> 实体类型
+     * @return 实体对象
+     * @throws SQLException 数据库异常
+     */
+    public <T> T readEntity(ResultSet resultSet) throws SQLException {
+        T entity = ObjectUtils.typeCast(entityMember.newInstance());
+        for (int i = 0; i < columnReaders.length; i++) {
+            FieldMember<?> fieldMember = fieldMembers[i];
+            if (fieldMember != null) {
+                // 反序列化后赋值
+                fieldMember.fieldSet(entity, fieldMember.deserialize(columnReaders[i].read(resultSet)));
+            }
+        }
+        return entity;
+    }
+
+    /**
+     * 生成单次结果集的读取器
+     * 读取器会对低基数的字符串列进行字典化, 相同的值共用同一个对象
+     * @return 读取器
+     */
+    public Reader newReader() {
+        return new Reader();
+    }
+
+    public String[] getColumnLabels() {
+        return columnLabels;
+    }
+
+    public RowMap.Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * 单列读取
+     */
+    @FunctionalInterface
+    interface ColumnReader {
+
+        /**
+         * 读取结果集当前行的某一列
+         * @param resultSet 结果集
+         * @return 值
+         * @throws SQLException 数据库异常
+         */
+        @Nullable
+        Object read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * 单次结果集的读取器, 非线程安全
+     */
+    public class Reader {
+
+        /**
+         * 每列的字符串字典, 为 null 表示该列未启用或已放弃字典化
+         */
+        private final Map<String, String>[] dictionaries;
+
+        /**
+         * 每列是否已放弃字典化
+         */
+        private final boolean[] abandoned;
+
+        @SuppressWarnings("unchecked")
+        Reader() {
+            this.dictionaries = (Map<String, String>[]) new Map<?, ?>[columnReaders.length];
+            this.abandoned = new boolean[columnReaders.length];
+        }
+
+        /**
+         * 读取结果集的当前行
+         * @param resultSet 结果集
+         * @return 行数据
+         * @throws SQLException 数据库异常
+         */
+        public RowMap read(ResultSet resultSet) throws SQLException {
+            Object[] values = new Object[schema.size()];
+            for (int i = 0; i < columnReaders.length; i++) {
+                if (slots[i] < 0) {
+                    continue;
+                }
+                Object value = columnReaders[i].read(resultSet);
+                if (value instanceof String && !abandoned[i]) {
+                    value = dictionary(i, (String) value);
+                }
+                values[slots[i]] = value;
+            }
+            return newRowMap(resultSet, values);
+        }
+
+        /**
+         * 字典化
+         * @param index 列下标
+         * @param value 值
+         * @return 字典中相同的值
+         */
+        private String dictionary(int index, String value) {
+            Map<String, String> dictionary = dictionaries[index];
+            if (dictionary == null) {
+                dictionary = dictionaries[index] = new HashMap<>();
+            }
+            String existing = dictionary.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            if (dictionary.size() >= DICTIONARY_MAX_SIZE) {
+                // 高基数列, 放弃
+                abandoned[index] = true;
+                dictionaries[index] = null;
+            } else {
+                dictionary.put(value, value);
+            }
+            return value;
+        }
+    }
+}
@@ -216,6 +216,9 @@ public static BigDecimal getAsBigDecimal(final Object obj) {
             return (BigDecimal) obj;
         } else if (obj instanceof String) {
             return new BigDecimal((String) obj);
+        } else if (obj instanceof Float) {
+            // 避免拓宽为 double 后的精度误差 (eg: 0.1f -> 0.10000000149011612)
+            return new BigDecimal(obj.toString());
         } else {
             return BigDecimal.valueOf(getAsNumber(obj).doubleValue());
         }
@@ -416,6 +419,21 @@ public static <R> R getDefaultValueByJavaType(Class<R> clz) throws TypeCastExcep
     @Nullable
     public static Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultSet,
         String column) throws SQLException {
+        return getValueFromJdbcResultSet(field, resultSet, resultSet.findColumn(column));
+    }
+
+    /**
+     * 根据java类型，获取jdbc中的数据结果
+     * @param field field
+     * @param resultSet 结果集
+     * @param column 列序号(从1开始)
+     * @return 值
+     * @throws SQLException 数据库异常
+     * @see FinalVariable ALLOW_FIELD_TYPES
+     */
+    @Nullable
+    public static Object getValueFromJdbcResultSet(@Nullable Field field, ResultSet resultSet,
+        int column) throws SQLException {
         // ModelShadowProvider 中没有指定的字段信息
         if (field == null) {
             return resultSet.getObject(column);
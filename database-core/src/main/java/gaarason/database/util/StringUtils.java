@@ -70,6 +70,41 @@ public static String replaceAll(Object input, String pattern, String replacement
             .replaceAll(replacement);
     }
 
+    /**
+     * 同时替换多组字符 ( 不识别正则表达式 ), 单次遍历
+     * 同一位置有多个匹配时, 使用最长的匹配; 替换后的字符不会再次参与匹配
+     * @param input 原始字符
+     * @param searchList 需要匹配的的字符(待替换)
+     * @param replacementList 新的字符, 与 searchList 一一对应
+     * @return 替换后的字符
+     */
+    public static String replaceEach(String input, String[] searchList, String[] replacementList) {
+        final int length = input.length();
+        StringBuilder sb = null;
+        // 已复制到 sb 的位置
+        int copied = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = input.charAt(i);
+            int matched = -1;
+            for (int j = 0; j < searchList.length; j++) {
+                String search = searchList[j];
+                if (!search.isEmpty() && search.charAt(0) == c && input.startsWith(search, i) &&
+                    (matched == -1 || search.length() > searchList[matched].length())) {
+                    matched = j;
+                }
+            }
+            if (matched != -1) {
+                if (sb == null) {
+                    sb = new StringBuilder(length);
+                }
+                sb.append(input, copied, i).append(replacementList[matched]);
+                copied = i + searchList[matched].length();
+                i = copied - 1;
+            }
+        }
+        return sb == null ? input : sb.append(input, copied, length).toString();
+    }
+
     public static String toSql(String sql, Collection<?> parameter) {
         return String.format(replace(sql, " ? ", "\"%s\""), parameter.toArray());
     }
@@ -44,4 +44,13 @@ public MsSqlBuilder<T, K> limit(Object take) {
     public String supportBackQuote(String something) {
         return FormatUtils.backQuote(something, "\"");
     }
+
+    /**
+     * 单条语句最多 2100 个参数, 且 sp_prepexec/sp_executesql 自身的参数也计入其中, 因此预留余量
+     * @return 最大数量
+     */
+    @Override
+    protected int insertMaxParameters() {
+        return 2000;
+    }
 }
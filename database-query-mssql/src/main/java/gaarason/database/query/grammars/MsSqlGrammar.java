@@ -12,6 +12,15 @@ public MsSqlGrammar(String tableName) {
         super(tableName, "\"");
     }
 
+    protected MsSqlGrammar(MsSqlGrammar grammar) {
+        super(grammar);
+    }
+
+    @Override
+    public MsSqlGrammar deepCopy() {
+        return new MsSqlGrammar(this);
+    }
+
     /**
      * 开启标识列插入显式值
      * @param table 表名
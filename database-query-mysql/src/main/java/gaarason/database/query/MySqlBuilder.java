@@ -15,4 +15,13 @@ public MySqlBuilder<T, K> getSelf() {
         return this;
     }
 
+    /**
+     * mysql 驱动仅在 fetchSize 为 Integer.MIN_VALUE 时, 才会逐行流式获取
+     * @return 行数
+     */
+    @Override
+    protected int cursorFetchSize() {
+        return Integer.MIN_VALUE;
+    }
+
 }
@@ -11,4 +11,13 @@ public class MySqlGrammar extends BaseGrammar {
     public MySqlGrammar(String tableName) {
         super(tableName, "`");
     }
+
+    protected MySqlGrammar(MySqlGrammar grammar) {
+        super(grammar);
+    }
+
+    @Override
+    public MySqlGrammar deepCopy() {
+        return new MySqlGrammar(this);
+    }
 }
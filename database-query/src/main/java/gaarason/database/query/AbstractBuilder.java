@@ -9,6 +9,7 @@
 import gaarason.database.contract.function.BuilderWrapper;
 import gaarason.database.contract.function.ToSqlFunctionalInterface;
 import gaarason.database.contract.query.Grammar;
+import gaarason.database.contract.query.QueryTemplate;
 import gaarason.database.lang.Nullable;
 import gaarason.database.support.EntityMember;
 import gaarason.database.support.FieldRelationMember;
@@ -32,11 +33,13 @@
     public <R> R aggregate(AggregatesType op, String column) {
         String alias = StringUtils.getRandomString(6);
         B builder = getSelf();
+        boolean derived = requireDerivedTable(column);
+        stripForAggregate(derived);
 
-        // 存在 group
-        if (!grammar.isEmpty(Grammar.SQLPartType.GROUP)) {
-            // 不存在 select
-            if (grammar.isEmpty(Grammar.SQLPartType.SELECT)) {
+        // 存在 group, union, 或者统计 distinct 的查询列
+        if (derived) {
+            // 存在 group, 但不存在 select
+            if (!grammar.isEmpty(Grammar.SQLPartType.GROUP) && grammar.isEmpty(Grammar.SQLPartType.SELECT)) {
                 Grammar.SQLPartInfo groupInfo = grammar.get(Grammar.SQLPartType.GROUP);
                 selectRaw(groupInfo.getSqlString(), groupInfo.getParameters());
             }
@@ -52,6 +55,33 @@ else if (!grammar.isEmpty(Grammar.SQLPartType.SELECT)) {
         return ObjectUtils.typeCast(resMap.get(alias));
     }
 
+    @Override
+    public boolean exists() {
+        B builder = getSelf();
+        // 存在 limit 时, 需保留原有的分页范围
+        boolean derived = requireDerivedTable() || !grammar.isEmpty(Grammar.SQLPartType.LIMIT);
+        stripForAggregate(derived);
+
+        if (derived) {
+            builder = model.withTrashed().from(StringUtils.getRandomString(6) + "sub", subBuilder -> getSelf());
+        } else {
+            grammar.clear(Grammar.SQLPartType.SELECT);
+        }
+        return builder.selectRaw("1").first() != null;
+    }
+
+    /**
+     * 移除不影响统计结果的部分, 即排序以及关联关系
+     * 派生表中存在 limit 时, 排序决定了结果集的范围, 需要保留
+     * @param derived 是否包装为派生表
+     */
+    protected void stripForAggregate(boolean derived) {
+        if (!derived || grammar.isEmpty(Grammar.SQLPartType.LIMIT)) {
+            grammar.clear(Grammar.SQLPartType.ORDER);
+        }
+        grammar.clearRelation();
+    }
+
     @Override
     public B forceIndex(String indexName) {
         grammar.addSmartSeparator(Grammar.SQLPartType.FORCE_INDEX, supportBackQuote(indexName), null, ",");
@@ -140,6 +170,15 @@ public String toSql(SqlType sqlType, ToSqlFunctionalInterface closure) {
         return closure.execute(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
     }
 
+    @Override
+    public QueryTemplate<T, K> prepareTemplate(SqlType sqlType) {
+        Grammar.SQLPartInfo sqlPartInfo = grammar.generateSql(sqlType);
+        Collection<Object> parameters = sqlPartInfo.getParameters();
+        // 副本仅用于传递关联关系
+        return new QueryTemplate<>(clone(), sqlType, sqlPartInfo.getSqlString(),
+            parameters == null ? 0 : parameters.size());
+    }
+
 // --------------------------- value ---------------------------- //
 
     protected B valueGrammar(String sqlPart, @Nullable Collection<Object> parameters) {
@@ -315,9 +354,9 @@ public B join(JoinType joinType, BuilderWrapper<B, T, K> tempTable, String alias
         String sqlPart = supportSpaces(joinType.getOperation()) + "join " + table + supportSpaces("on") +
             supportBracket(conditions.getSqlString());
 
-        Collection<Object> parameters = tableInfo.getParameters();
-        assert parameters != null;
+        assert tableInfo.getParameters() != null;
         assert conditions.getParameters() != null;
+        Collection<Object> parameters = new ArrayList<>(tableInfo.getParameters());
         parameters.addAll(conditions.getParameters());
 
         return joinRaw(sqlPart, parameters);
@@ -3,6 +3,7 @@
 import gaarason.database.appointment.AggregatesType;
 import gaarason.database.appointment.FinalVariable;
 import gaarason.database.config.ConversionConfig;
+import gaarason.database.config.GaarasonDatabaseProperties;
 import gaarason.database.contract.connection.GaarasonDataSource;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Model;
@@ -62,6 +63,17 @@
      */
     protected ConversionConfig conversion;
 
+    /**
+     * in/not in 参数分桶配置
+     */
+    protected GaarasonDatabaseProperties.WhereIn whereInConfig;
+
+    /**
+     * 当前查询构造器是否进行 in/not in 参数分桶, 为 null 时使用全局配置
+     */
+    @Nullable
+    protected Boolean whereInBucketing;
+
     /**
      * 数据实体类
      */
@@ -82,6 +94,7 @@ public B initBuilder(GaarasonDataSource gaarasonDataSource, Model<B, T, K> model
         this.container = gaarasonDataSource.getContainer();
         this.modelShadowProvider = container.getBean(ModelShadowProvider.class);
         this.conversion = container.getBean(ConversionConfig.class);
+        this.whereInConfig = container.getBean(GaarasonDatabaseProperties.class).getWhereIn();
         this.model = model;
         this.entityClass = model.getEntityClass();
         this.grammar = grammar;
@@ -182,6 +195,12 @@ public B with(String fieldName, BuilderAnyWrapper builderClosure, RecordWrapper
         return getSelf();
     }
 
+    @Override
+    public B withJoin(String fieldName, BuilderAnyWrapper builderClosure, RecordWrapper recordClosure) {
+        grammar.pushRelation(fieldName, new Record.Relation(fieldName, builderClosure, recordClosure, true));
+        return getSelf();
+    }
+
     @Override
     public B withOperation(String fieldName, BuilderAnyWrapper operationBuilder, BuilderAnyWrapper customBuilder, String alisaFieldName) {
         grammar.pushRelation(alisaFieldName, new Record.Relation(fieldName, operationBuilder, customBuilder, RecordWrapper.empty()));
@@ -1,14 +1,24 @@
 package gaarason.database.query;
 
+import gaarason.database.appointment.SqlType;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.eloquent.relation.RelationSubQuery;
+import gaarason.database.contract.function.BuilderAnyWrapper;
+import gaarason.database.contract.query.Grammar;
 import gaarason.database.exception.EntityNotFoundException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
+import gaarason.database.support.EntityMember;
+import gaarason.database.support.RecordFactory;
+import gaarason.database.support.ReusableBuilderWrapper;
+import gaarason.database.support.RowReaderPlan;
 import gaarason.database.util.ObjectUtils;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -21,21 +31,123 @@
  */
 abstract class ExecuteLevel1Builder<B extends Builder<B, T, K>, T, K> extends BaseBuilder<B, T, K> {
 
+    /**
+     * 本次查询中, 以 left join 的方式关联的属性 -> 目标表的列别名的前缀
+     * 由 toSelectSQLPartInfo 生成, 由 with 消费
+     */
+    protected Map<String, String> joinedRelationPrefixMap = Collections.emptyMap();
+
+    /**
+     * 生成查询sql
+     * 对于以 left join 的方式关联的关联关系, 在当前查询构造器的副本上进行关联, 以保持当前查询构造器不变
+     * @return SQL片段信息
+     */
+    Grammar.SQLPartInfo toSelectSQLPartInfo() {
+        Map<String, Record.Relation> relationMap = grammar.pullRelation();
+        // 结果集的行数会被改变时, 退化为 where in 的方式关联
+        if (requireDerivedTable() || relationMap.values().stream().noneMatch(relation -> relation.join)) {
+            joinedRelationPrefixMap = Collections.emptyMap();
+            return grammar.generateSql(SqlType.SELECT);
+        }
+        B builder = clone();
+        // 存在关联时, 当前表的列需要明确指定
+        if (builder.getGrammar().isEmpty(Grammar.SQLPartType.SELECT)) {
+            builder.select(entityClass);
+        }
+        EntityMember<T, K> entityMember = modelShadowProvider.get(model).getEntityMember();
+        Map<String, String> prefixMap = new HashMap<>();
+        for (Map.Entry<String, Record.Relation> entry : relationMap.entrySet()) {
+            String k = entry.getKey();
+            Record.Relation v = entry.getValue();
+            // 多级关联, 不适用
+            if (!v.join || k.contains(".")) {
+                continue;
+            }
+            // 判断是否适用时已执行的闭包, 在退化为 where in 的方式关联时复用, 不再重复执行
+            BuilderAnyWrapper customBuilder = ReusableBuilderWrapper.of(v.customBuilder);
+            if (customBuilder != v.customBuilder) {
+                v = new Record.Relation(v.relationFieldName, customBuilder, v.recordWrapper, true);
+                entry.setValue(v);
+            }
+            String prefix = RowReaderPlan.JOIN_PREFIX + k + "_";
+            RelationSubQuery relationSubQuery = entityMember.getFieldRelationMemberByFieldName(v.relationFieldName)
+                .getRelationSubQuery();
+            if (relationSubQuery.prepareJoin(builder, prefix, v.customBuilder)) {
+                prefixMap.put(k, prefix);
+            }
+        }
+        joinedRelationPrefixMap = prefixMap;
+        return builder.getGrammar().generateSql(SqlType.SELECT);
+    }
+
+    /**
+     * 统计时是否需要包装为派生表
+     * group, having, distinct 以及 union 会改变结果集的行数, 不能直接替换查询列, 也不能直接 left join 关联
+     * @return 是否
+     */
+    protected boolean requireDerivedTable() {
+        if (!grammar.isEmpty(Grammar.SQLPartType.GROUP) || !grammar.isEmpty(Grammar.SQLPartType.HAVING) ||
+            !grammar.isEmpty(Grammar.SQLPartType.UNION)) {
+            return true;
+        }
+        return isDistinct();
+    }
+
+    /**
+     * 统计指定列时是否需要包装为派生表
+     * 存在 distinct 时, 仅当统计 * 或者查询列中的列时才包装; 否则保持直接统计
+     * @param column 统计的列
+     * @return 是否
+     */
+    protected boolean requireDerivedTable(String column) {
+        if (!grammar.isEmpty(Grammar.SQLPartType.GROUP) || !grammar.isEmpty(Grammar.SQLPartType.HAVING) ||
+            !grammar.isEmpty(Grammar.SQLPartType.UNION)) {
+            return true;
+        }
+        if (!isDistinct()) {
+            return false;
+        }
+        String target = unquoteColumn(column);
+        if ("*".equals(target)) {
+            return true;
+        }
+        String selectSql = grammar.get(Grammar.SQLPartType.SELECT).getSqlString().trim().substring(
+            "distinct".length());
+        for (String selected : selectSql.split(",")) {
+            if (target.equals(unquoteColumn(selected))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查询列是否以 distinct 开头
+     * @return 是否
+     */
+    protected boolean isDistinct() {
+        return !grammar.isEmpty(Grammar.SQLPartType.SELECT) &&
+            grammar.get(Grammar.SQLPartType.SELECT).getSqlString().trim().toLowerCase().startsWith("distinct");
+    }
+
+    /**
+     * 去除列名的引号以及表名, 用于比较列名
+     * eg: "`s`.`age`" -> "age"
+     * @param column 列名
+     * @return 列名
+     */
+    private String unquoteColumn(String column) {
+        String name = column.trim().replace(grammar.symbol(), "");
+        int index = name.lastIndexOf('.');
+        return index < 0 ? name : name.substring(index + 1);
+    }
+
     /**
      * 传递有效的with信息
      * @param record 查询结果集
      */
     protected void with(Record<T, K> record) {
-        Map<String, Record.Relation> relationMap = grammar.pullRelation();
-        relationMap.forEach((k, v) -> {
-            if (!v.relationOperation) {
-                // 关联关系属性
-                record.with(k, v.customBuilder, v.recordWrapper);
-            } else {
-                // 关联关系操作属性
-                record.getRelationMap().put(k, v);
-            }
-        });
+        with(RecordFactory.newRecordList(record), grammar.pullRelation(), pullJoinedRelationPrefixMap());
     }
 
     /**
@@ -43,9 +155,32 @@ protected void with(Record<T, K> record) {
      * @param records 查询结果集
      */
     protected void with(RecordList<T, K> records) {
-        Map<String, Record.Relation> relationMap = grammar.pullRelation();
+        with(records, grammar.pullRelation(), pullJoinedRelationPrefixMap());
+    }
+
+    /**
+     * 传递有效的with信息
+     * @param records 查询结果集
+     * @param relationMap 关联关系信息
+     * @param prefixMap 以 left join 的方式关联的属性 -> 目标表的列别名的前缀
+     */
+    protected void with(RecordList<T, K> records, Map<String, Record.Relation> relationMap,
+        Map<String, String> prefixMap) {
         relationMap.forEach((k, v) -> {
-            if (!v.relationOperation) {
+            String prefix = prefixMap.get(k);
+            if (prefix != null) {
+                // 关联关系属性, 从当前结果中分离出目标表数据
+                RecordList<?, ?> joinedRecordList = modelShadowProvider.get(model)
+                    .getEntityMember()
+                    .getFieldRelationMemberByFieldName(v.relationFieldName)
+                    .getRelationSubQuery()
+                    .dealBatchForJoin(records.getMetadata(), prefix);
+                Record.Relation relation = new Record.Relation(v.relationFieldName, v.recordWrapper,
+                    joinedRecordList);
+                for (Record<T, K> record : records) {
+                    record.getRelationMap().put(k, relation);
+                }
+            } else if (!v.relationOperation) {
                 // 关联关系属性
                 records.with(k, v.customBuilder, v.recordWrapper);
             } else {
@@ -57,6 +192,16 @@ protected void with(RecordList<T, K> records) {
         });
     }
 
+    /**
+     * 取出本次查询中, 以 left join 的方式关联的属性
+     * @return 属性 -> 目标表的列别名的前缀
+     */
+    private Map<String, String> pullJoinedRelationPrefixMap() {
+        Map<String, String> prefixMap = joinedRelationPrefixMap;
+        joinedRelationPrefixMap = Collections.emptyMap();
+        return prefixMap;
+    }
+
     @Nullable
     @Override
     public Record<T, K> query(String sql, @Nullable Collection<?> parameters) throws SQLRuntimeException {
@@ -98,4 +243,16 @@ public K executeGetId(String sql, @Nullable Collection<?> parameters) throws SQL
         return model.nativeExecuteGetId(sql, parameters);
     }
 
+    @Override
+    public int[] executeBatch(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        return model.nativeExecuteBatch(sql, parametersList, batchSize);
+    }
+
+    @Override
+    public List<K> executeBatchGetIds(String sql, Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        return model.nativeExecuteBatchGetIds(sql, parametersList, batchSize);
+    }
+
 }
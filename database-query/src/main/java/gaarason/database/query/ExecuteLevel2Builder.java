@@ -4,15 +4,24 @@
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.function.ResultSetFunctionalInterface;
 import gaarason.database.contract.query.Grammar;
+import gaarason.database.exception.AbnormalParameterException;
 import gaarason.database.exception.ConfirmOperationException;
 import gaarason.database.exception.EntityNotFoundException;
+import gaarason.database.exception.OperationNotSupportedException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
+import gaarason.database.support.RecordFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * 查询构造器(sql执行的部分)
@@ -22,6 +31,11 @@
  */
 abstract class ExecuteLevel2Builder<B extends Builder<B, T, K>, T, K>  extends ExecuteLevel1Builder<B, T, K> {
 
+    /**
+     * 拆分插入语句时, 为 values 之外的部分(表名, 列名等)预留的字节数
+     */
+    private static final long INSERT_RESERVED_BYTES = 4096;
+
     /**
      * sql生成
      * @param sqlType sql 类型
@@ -48,6 +62,142 @@ int updateSql(SqlType sqlType) throws SQLRuntimeException {
         return execute(sql, parameters);
     }
 
+    /**
+     * 单条语句中绑定参数的最大数量 (数据库限制)
+     * @return 最大数量
+     */
+    protected int insertMaxParameters() {
+        return 65535;
+    }
+
+    /**
+     * 单条插入语句的最大预估字节数 (避免超出数据库单个数据包的限制)
+     * @return 最大字节数
+     */
+    protected long insertMaxBytes() {
+        return 4L * 1024 * 1024;
+    }
+
+    /**
+     * 按照绑定参数数量以及预估字节数, 将多行插入的 values 片段拆分
+     * 无法拆分时(eg: insert ... select), 仅返回一组
+     * @return 每组对应一条插入语句的 values 片段(已去除前缀 " values " 或 ",")
+     */
+    List<List<Grammar.SQLPartInfo>> splitInsertValues() {
+        List<Grammar.SQLPartInfo> valueParts = grammar.getList(Grammar.SQLPartType.VALUE);
+        List<List<Grammar.SQLPartInfo>> chunks = new ArrayList<>();
+        if (valueParts.size() <= 1) {
+            chunks.add(valueParts);
+            return chunks;
+        }
+        Collection<Object> lastParameters = grammar.get(Grammar.SQLPartType.LAST).getParameters();
+        int fixedParameterCount = lastParameters == null ? 0 : lastParameters.size();
+        int maxParameters = insertMaxParameters();
+        long maxBytes = insertMaxBytes();
+
+        List<Grammar.SQLPartInfo> chunk = new ArrayList<>();
+        int parameterCount = fixedParameterCount;
+        long bytes = INSERT_RESERVED_BYTES;
+        for (int i = 0; i < valueParts.size(); i++) {
+            Grammar.SQLPartInfo valuePart = valueParts.get(i);
+            String prefix = i == 0 ? " values " : ",";
+            // 非 values(...) 形式, 不拆分
+            if (!valuePart.getSqlString().startsWith(prefix)) {
+                chunks.clear();
+                chunks.add(valueParts);
+                return chunks;
+            }
+            Grammar.SQLPartInfo row = new Grammar.SQLPartInfo(valuePart.getSqlString().substring(prefix.length()),
+                valuePart.getParameters());
+            Collection<Object> parameters = row.getParameters();
+            int rowParameterCount = parameters == null ? 0 : parameters.size();
+            long rowBytes = estimateBytes(row);
+            if (!chunk.isEmpty() && (parameterCount + rowParameterCount > maxParameters || bytes + rowBytes > maxBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                parameterCount = fixedParameterCount;
+                bytes = INSERT_RESERVED_BYTES;
+            }
+            chunk.add(row);
+            parameterCount += rowParameterCount;
+            bytes += rowBytes;
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    /**
+     * 在同一个事物中, 依次使用每组 values 片段执行插入, 执行完成后还原 values 片段
+     * @param valueChunks 每组 values 片段
+     * @param executor 单条语句的执行
+     * @param merger 结果合并
+     * @param <R> 结果类型
+     * @return 合并后的结果
+     */
+    <R> R executeInsertChunks(List<List<Grammar.SQLPartInfo>> valueChunks, Supplier<R> executor,
+        BinaryOperator<R> merger) {
+        List<Grammar.SQLPartInfo> originalValueParts = grammar.getList(Grammar.SQLPartType.VALUE);
+        try {
+            return transaction(() -> {
+                R result = null;
+                for (List<Grammar.SQLPartInfo> valueChunk : valueChunks) {
+                    resetValues(valueChunk);
+                    R current = executor.get();
+                    result = result == null ? current : merger.apply(result, current);
+                }
+                return result;
+            });
+        } finally {
+            restoreValues(originalValueParts);
+        }
+    }
+
+    /**
+     * 还原 values 片段
+     * @param originalValueParts 原始的 values 片段(含前缀)
+     */
+    private void restoreValues(List<Grammar.SQLPartInfo> originalValueParts) {
+        grammar.clear(Grammar.SQLPartType.VALUE);
+        for (Grammar.SQLPartInfo valuePart : originalValueParts) {
+            grammar.addSmartSeparator(Grammar.SQLPartType.VALUE, valuePart.getSqlString(),
+                valuePart.getParameters(), "");
+        }
+    }
+
+    /**
+     * 使用指定的 values 片段, 替换当前的 values 片段
+     * @param rows values 片段(不含前缀)
+     */
+    private void resetValues(List<Grammar.SQLPartInfo> rows) {
+        grammar.clear(Grammar.SQLPartType.VALUE);
+        for (Grammar.SQLPartInfo row : rows) {
+            valueRaw(row.getSqlString(), row.getParameters());
+        }
+    }
+
+    /**
+     * 预估 sql 片段的字节数
+     * @param sqlPartInfo sql 片段
+     * @return 字节数
+     */
+    private static long estimateBytes(Grammar.SQLPartInfo sqlPartInfo) {
+        long bytes = sqlPartInfo.getSqlString().length();
+        Collection<Object> parameters = sqlPartInfo.getParameters();
+        if (parameters != null) {
+            for (Object parameter : parameters) {
+                if (parameter instanceof CharSequence) {
+                    // utf8 下, 单个字符最多 3 字节 (BMP), 另需考虑转义
+                    bytes += ((CharSequence) parameter).length() * 3L + 2;
+                } else if (parameter instanceof byte[]) {
+                    bytes += ((byte[]) parameter).length * 2L + 2;
+                } else {
+                    bytes += 32;
+                }
+            }
+        }
+        return bytes;
+    }
+
     @Override
     public int replace() throws SQLRuntimeException {
         // 事件
@@ -61,7 +211,14 @@ public int replace() throws SQLRuntimeException {
     public int insert() throws SQLRuntimeException {
         // 事件
         model.eventQueryCreating(this);
-        int rows = updateSql(SqlType.INSERT);
+        List<List<Grammar.SQLPartInfo>> valueChunks = splitInsertValues();
+        int rows;
+        if (valueChunks.size() <= 1) {
+            rows = updateSql(SqlType.INSERT);
+        } else {
+            // 拆分为多条语句, 在同一个事物中执行
+            rows = executeInsertChunks(valueChunks, () -> updateSql(SqlType.INSERT), Integer::sum);
+        }
         model.eventQueryCreated(rows);
         return rows;
     }
@@ -150,19 +307,148 @@ public K insertGetId() throws SQLRuntimeException {
     public List<K> insertGetIds() throws SQLRuntimeException {
         // 事件
         model.eventQueryCreating(this);
-        Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.INSERT);
-        List<K> ids = executeGetIds(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
+        List<List<Grammar.SQLPartInfo>> valueChunks = splitInsertValues();
+        List<K> ids;
+        if (valueChunks.size() <= 1) {
+            Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.INSERT);
+            ids = executeGetIds(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
+        } else {
+            // 拆分为多条语句, 在同一个事物中执行, 主键按插入顺序合并
+            ids = executeInsertChunks(valueChunks, () -> {
+                Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.INSERT);
+                return executeGetIds(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
+            }, (previous, current) -> {
+                previous.addAll(current);
+                return previous;
+            });
+        }
+        model.eventQueryCreated(ids);
+        return ids;
+    }
+
+    @Override
+    public int[] insertBatch(int batchSize) throws SQLRuntimeException {
+        // 事件
+        model.eventQueryCreating(this);
+        List<List<Object>> parametersList = new ArrayList<>();
+        String sql = toInsertBatchSql(parametersList);
+        // 各行的参数由同一语句生成, 数量一致
+        int[] counts = executeBatch(sql, parametersList, batchSize);
+        model.eventQueryCreated(batchRows(counts));
+        return counts;
+    }
+
+    @Override
+    public List<K> insertBatchGetIds(int batchSize) throws SQLRuntimeException {
+        // 事件
+        model.eventQueryCreating(this);
+        List<List<Object>> parametersList = new ArrayList<>();
+        String sql = toInsertBatchSql(parametersList);
+        List<K> ids = executeBatchGetIds(sql, parametersList, batchSize);
         model.eventQueryCreated(ids);
         return ids;
     }
 
+    @Override
+    public int[] updateBatch(Collection<? extends Collection<?>> parametersList, int batchSize)
+        throws SQLRuntimeException {
+        if (grammar.isEmpty(Grammar.SQLPartType.WHERE)) {
+            throw new ConfirmOperationException(
+                "You made a risky operation without where conditions, use where(1) for sure");
+        }
+        // 事件
+        model.eventQueryUpdating(this);
+        // 使用当前的更新语句作为模板, 每组参数各自绑定
+        int[] counts = getSelf().prepareTemplate(SqlType.UPDATE).executeBatch(parametersList, batchSize);
+        model.eventQueryUpdated(batchRows(counts));
+        return counts;
+    }
+
+    /**
+     * 批量插入的sql生成
+     * 仅使用第一行 values 片段生成插入语句, 其余各行的 values 片段需要与第一行一致, 仅绑定参数不同
+     * @param parametersList 每一行对应的完整的参数绑定列表 (输出)
+     * @return 插入语句
+     */
+    String toInsertBatchSql(List<List<Object>> parametersList) {
+        List<Grammar.SQLPartInfo> valueParts = grammar.getList(Grammar.SQLPartType.VALUE);
+        if (valueParts.isEmpty()) {
+            throw new AbnormalParameterException("There are no values to insert in batch.");
+        }
+        String firstSqlPart = valueParts.get(0).getSqlString();
+        String rowSql = firstSqlPart.startsWith(" values ") ? firstSqlPart.substring(" values ".length()) :
+            firstSqlPart;
+        for (int i = 0; i < valueParts.size(); i++) {
+            String sqlPart = valueParts.get(i).getSqlString();
+            String prefix = i == 0 ? " values " : ",";
+            // 非 values(...) 形式 (eg: insert ... select), 或者各行的结构不一致
+            if (!sqlPart.startsWith(prefix) || !rowSql.equals(sqlPart.substring(prefix.length()))) {
+                throw new AbnormalParameterException(
+                    "Every row should have the same values structure to insert in batch : " + sqlPart);
+            }
+        }
+
+        // 仅保留第一行, 生成插入语句
+        Grammar.SQLPartInfo sqlPartInfo;
+        try {
+            grammar.clear(Grammar.SQLPartType.VALUE);
+            valueRaw(rowSql, valueParts.get(0).getParameters());
+            sqlPartInfo = toSQLPartInfo(SqlType.INSERT);
+        } finally {
+            restoreValues(valueParts);
+        }
+
+        // 语句中的完整参数, 依次替换其中第一行的参数
+        List<Object> statementParameters = new ArrayList<>(parameterCount(sqlPartInfo));
+        if (sqlPartInfo.getParameters() != null) {
+            statementParameters.addAll(sqlPartInfo.getParameters());
+        }
+        int rowEnd = statementParameters.size() - parameterCount(grammar.get(Grammar.SQLPartType.LAST));
+        int rowStart = rowEnd - parameterCount(valueParts.get(0));
+        for (Grammar.SQLPartInfo row : valueParts) {
+            List<Object> parameters = new ArrayList<>(statementParameters.size());
+            parameters.addAll(statementParameters.subList(0, rowStart));
+            if (row.getParameters() != null) {
+                parameters.addAll(row.getParameters());
+            }
+            parameters.addAll(statementParameters.subList(rowEnd, statementParameters.size()));
+            parametersList.add(parameters);
+        }
+        return sqlPartInfo.getSqlString();
+    }
+
+    /**
+     * sql 片段中的参数数量
+     * @param sqlPartInfo sql 片段
+     * @return 参数数量
+     */
+    private static int parameterCount(Grammar.SQLPartInfo sqlPartInfo) {
+        Collection<Object> parameters = sqlPartInfo.getParameters();
+        return parameters == null ? 0 : parameters.size();
+    }
+
+    /**
+     * 批量执行的受影响的总行数 (忽略 Statement.SUCCESS_NO_INFO 等)
+     * @param counts 每次执行的受影响的行数
+     * @return 总行数
+     */
+    private static int batchRows(int[] counts) {
+        int rows = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                rows += count;
+            }
+        }
+        return rows;
+    }
+
     @Override
     public Record<T, K> firstOrFail() throws SQLRuntimeException, EntityNotFoundException {
         limit(1);
         // 事件
         model.eventQueryRetrieving(this);
 
-        Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.SELECT);
+        Grammar.SQLPartInfo sqlPartInfo = toSelectSQLPartInfo();
         String sql = sqlPartInfo.getSqlString();
         Collection<Object> parameterList = sqlPartInfo.getParameters();
         Record<T, K> record = queryOrFail(sql, parameterList);
@@ -178,7 +464,7 @@ public RecordList<T, K> get() throws SQLRuntimeException {
         model.eventQueryRetrieving(this);
 
         // sql组装执行
-        Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.SELECT);
+        Grammar.SQLPartInfo sqlPartInfo = toSelectSQLPartInfo();
         String sql = sqlPartInfo.getSqlString();
         Collection<Object> parameterList = sqlPartInfo.getParameters();
         RecordList<T, K> records = queryList(sql, parameterList);
@@ -188,4 +474,97 @@ public RecordList<T, K> get() throws SQLRuntimeException {
         return records;
     }
 
+    @Override
+    public List<T> getObjects() throws SQLRuntimeException {
+        // 存在关联关系时, 需要经过 Record 处理
+        if (!grammar.pullRelation().isEmpty()) {
+            return get().toObjectList();
+        }
+        // 事件
+        model.eventQueryRetrieving(this);
+
+        // sql组装执行
+        Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.SELECT);
+        List<T> entities = model.nativeQueryObjectList(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
+
+        // 事件
+        model.eventQueryRetrieved(entities);
+        return entities;
+    }
+
+    /**
+     * 仅查询单列, 并直接处理结果集
+     * @param column 列名
+     * @param closure 结果集处理
+     * @param <U> 响应类型
+     * @return 响应
+     * @throws SQLRuntimeException 数据库异常
+     */
+    <U> U pluckResultSet(String column, ResultSetFunctionalInterface<U> closure) throws SQLRuntimeException {
+        clear(Grammar.SQLPartType.SELECT).select(column);
+        // 事件
+        model.eventQueryRetrieving(this);
+
+        // sql组装执行
+        Grammar.SQLPartInfo sqlPartInfo = toSQLPartInfo(SqlType.SELECT);
+        return model.nativeQueryResultSet(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters(), closure);
+    }
+
+    @Override
+    public long[] pluckLongs(String column) throws SQLRuntimeException {
+        return pluckResultSet(column, RecordFactory::newLongArray);
+    }
+
+    @Override
+    public int[] pluckInts(String column) throws SQLRuntimeException {
+        return pluckResultSet(column, RecordFactory::newIntArray);
+    }
+
+    @Override
+    public double[] pluckDoubles(String column) throws SQLRuntimeException {
+        return pluckResultSet(column, RecordFactory::newDoubleArray);
+    }
+
+    @Override
+    public List<String> pluckStrings(String column) throws SQLRuntimeException {
+        return pluckResultSet(column, RecordFactory::newStringList);
+    }
+
+    @Override
+    public <V> List<V> pluck(String column, Class<V> type) throws SQLRuntimeException {
+        return pluckResultSet(column, resultSet -> RecordFactory.newColumnList(resultSet, conversion, type));
+    }
+
+    @Override
+    public Stream<Record<T, K>> stream(int fetchSize) throws SQLRuntimeException {
+        Grammar.SQLPartInfo sqlPartInfo = toStreamSQLPartInfo();
+        return model.nativeQueryStream(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters(), fetchSize);
+    }
+
+    @Override
+    public <V> Stream<V> streamAs(Class<V> clazz, int fetchSize) throws SQLRuntimeException {
+        Grammar.SQLPartInfo sqlPartInfo = toStreamSQLPartInfo();
+        return model.nativeQueryStreamAs(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters(), fetchSize, clazz);
+    }
+
+    @Override
+    public Stream<Map<String, Object>> streamMap(int fetchSize) throws SQLRuntimeException {
+        Grammar.SQLPartInfo sqlPartInfo = toStreamSQLPartInfo();
+        return model.nativeQueryStreamMap(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters(), fetchSize);
+    }
+
+    /**
+     * 流式查询的sql组装 (不触发查询事件)
+     * @return sql片段信息
+     * @throws OperationNotSupportedException 存在关联关系
+     */
+    protected Grammar.SQLPartInfo toStreamSQLPartInfo() throws OperationNotSupportedException {
+        // 逐行关联会产生 N+1 查询, 且流式结果集未关闭时, 同一连接(事物中)不能执行其他查询
+        if (!grammar.pullRelation().isEmpty()) {
+            throw new OperationNotSupportedException(
+                "Relations (with) are not supported on stream or cursor, use dealChunk instead.");
+        }
+        return toSQLPartInfo(SqlType.SELECT);
+    }
+
 }
@@ -1,22 +1,34 @@
 package gaarason.database.query;
 
+import gaarason.database.appointment.CursorPaginate;
 import gaarason.database.appointment.EntityUseType;
+import gaarason.database.appointment.OrderBy;
 import gaarason.database.appointment.Paginate;
+import gaarason.database.appointment.SqlType;
+import gaarason.database.config.GaarasonDatabaseProperties;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
 import gaarason.database.contract.function.ChunkFunctionalInterface;
 import gaarason.database.contract.query.Grammar;
+import gaarason.database.exception.AbnormalParameterException;
 import gaarason.database.exception.CloneNotSupportedRuntimeException;
 import gaarason.database.exception.EntityNotFoundException;
 import gaarason.database.exception.InsertNotSuccessException;
 import gaarason.database.exception.SQLRuntimeException;
 import gaarason.database.lang.Nullable;
+import gaarason.database.support.CountCache;
 import gaarason.database.util.FormatUtils;
 import gaarason.database.util.MapUtils;
 import gaarason.database.util.ObjectUtils;
+import gaarason.database.util.StringUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * 中间查询构造器
@@ -47,6 +59,13 @@ public Record<T, K> first() throws SQLRuntimeException {
         }
     }
 
+    @Override
+    @Nullable
+    public T firstObject() throws SQLRuntimeException {
+        List<T> entities = limit(1).getObjects();
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
     @Override
     public int upsert(String... columns) throws SQLRuntimeException {
         return upsert(Arrays.asList(columns));
@@ -78,6 +97,29 @@ public RecordList<T, K> queryList(String sql, Object... parameters) throws SQLRu
         return queryList(sql, Arrays.asList(parameters));
     }
 
+    @Override
+    public Stream<Record<T, K>> cursor() throws SQLRuntimeException {
+        return stream(cursorFetchSize());
+    }
+
+    @Override
+    public <V> Stream<V> cursorAs(Class<V> clazz) throws SQLRuntimeException {
+        return streamAs(clazz, cursorFetchSize());
+    }
+
+    @Override
+    public Stream<Map<String, Object>> cursorMap() throws SQLRuntimeException {
+        return streamMap(cursorFetchSize());
+    }
+
+    /**
+     * 流式获取时, 单次从数据库获取的行数
+     * @return 行数
+     */
+    protected int cursorFetchSize() {
+        return 1000;
+    }
+
     @Override
     public void dealChunk(int num, ChunkFunctionalInterface<T, K> chunkFunctionalInterface) throws SQLRuntimeException {
         int offset = 0;
@@ -137,9 +179,7 @@ public K executeGetId(String sql, Object... parameters) throws SQLRuntimeExcepti
     @Override
     public Paginate<T> paginate(int currentPage, int perPage)
         throws SQLRuntimeException, CloneNotSupportedRuntimeException {
-        Long count = clone().count("*");
-        List<T> list = limit((currentPage - 1) * perPage, perPage).get().toObjectList();
-        return new Paginate<>(list, currentPage, perPage, count.intValue());
+        return paginate(currentPage, perPage, RecordList::toObjectList);
     }
 
     /**
@@ -153,11 +193,107 @@ public Paginate<T> paginate(int currentPage, int perPage)
     @Override
     public Paginate<Map<String, Object>> paginateMapStyle(int currentPage, int perPage)
         throws SQLRuntimeException, CloneNotSupportedRuntimeException {
-        Long count = clone().count("*");
-        List<Map<String, Object>> list = limit((currentPage - 1) * perPage, perPage).get().toMapList();
+        return paginate(currentPage, perPage, RecordList::toMapList);
+    }
+
+    /**
+     * 带总数的分页
+     * 总数优先使用缓存; 开启并发时(非事务中), 总数查询在线程池中与数据查询同时执行
+     * @param currentPage 当前页
+     * @param perPage 每页数量
+     * @param converter 结果集转化
+     * @param <V> 分页中的具体数据类型
+     * @return 分页对象
+     * @throws SQLRuntimeException 数据库异常
+     * @throws CloneNotSupportedRuntimeException 克隆异常
+     */
+    protected <V> Paginate<V> paginate(int currentPage, int perPage, Function<RecordList<T, K>, List<V>> converter)
+        throws SQLRuntimeException, CloneNotSupportedRuntimeException {
+        Builder<B, T, K> countBuilder = clone();
+        CountCache countCache = container.getBean(CountCache.class);
+        Object countCacheKey = countCache.isEnabled() ? countCacheKey(countBuilder) : null;
+        Long cachedCount = countCacheKey == null ? null : countCache.get(countCacheKey);
+        long countCacheGeneration = countCache.generation(model.getClass());
+
+        CompletableFuture<Long> countFuture = null;
+        if (cachedCount == null && container.getBean(GaarasonDatabaseProperties.class).getPagination().isConcurrent() &&
+            !gaarasonDataSource.isLocalThreadInTransaction()) {
+            try {
+                countFuture = CompletableFuture.supplyAsync(() -> countBuilder.count("*"), model.getExecutorService());
+            } catch (RejectedExecutionException e) {
+                // 线程池繁忙, 退化为当前线程执行
+                countFuture = null;
+            }
+        }
+
+        List<V> list;
+        try {
+            list = converter.apply(limit((currentPage - 1) * perPage, perPage).get());
+        } catch (Throwable e) {
+            // 数据查询失败时, 总数查询的结果已无意义
+            if (countFuture != null) {
+                countFuture.cancel(false);
+            }
+            throw e;
+        }
+
+        Long count = cachedCount;
+        if (count == null) {
+            count = countFuture == null ? countBuilder.count("*") : joinCount(countFuture);
+            if (countCacheKey != null) {
+                countCache.put(model.getClass(), countCacheKey, count, countCacheGeneration);
+            }
+        }
         return new Paginate<>(list, currentPage, perPage, count.intValue());
     }
 
+    /**
+     * 总数缓存的键
+     * 由数据模型, 查询语句(去除别名)以及绑定参数组成
+     * 缓存仅在当前模型发生写操作时清除, 因此仅缓存单表查询; 存在 join, union, 自定义 from (派生表或其他表)
+     * 以及子查询 (eg: whereHas, whereIn 闭包) 时, 其涉及的其他表的写操作无法感知, 不进行缓存
+     * @param countBuilder 总数查询的查询构造器
+     * @return 键, 不可缓存时为 null
+     */
+    @Nullable
+    protected Object countCacheKey(Builder<B, T, K> countBuilder) {
+        Grammar countGrammar = countBuilder.getGrammar();
+        if (!countGrammar.isEmpty(Grammar.SQLPartType.FROM) || !countGrammar.isEmpty(Grammar.SQLPartType.JOIN) ||
+            !countGrammar.isEmpty(Grammar.SQLPartType.UNION)) {
+            return null;
+        }
+        Grammar.SQLPartInfo sqlPartInfo = countGrammar.generateSql(SqlType.SELECT);
+        String sqlString = sqlPartInfo.getSqlString();
+        // 语句开头的 select 之后仍存在 select, 即存在子查询
+        if (sqlString.toLowerCase(Locale.ROOT).indexOf("select", 1) != -1) {
+            return null;
+        }
+        // 单表查询中仅存在当前的别名, 其中包含对象的 hashCode, 需要去除
+        String sql = StringUtils.replaceEach(sqlString,
+            new String[]{countGrammar.alias().getAlias()}, new String[]{""});
+        Collection<Object> parameters = sqlPartInfo.getParameters();
+        return Arrays.asList(model.getClass().getName(), sql,
+            parameters == null ? Collections.emptyList() : new ArrayList<>(parameters));
+    }
+
+    /**
+     * 等待总数查询完成
+     * @param countFuture 总数查询
+     * @return 总数
+     * @throws SQLRuntimeException 数据库异常
+     */
+    private static Long joinCount(CompletableFuture<Long> countFuture) throws SQLRuntimeException {
+        try {
+            return countFuture.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw e;
+        }
+    }
+
     /**
      * 不带总数的分页
      * @param currentPage 当前页
@@ -185,6 +321,131 @@ public Paginate<Map<String, Object>> simplePaginateMapStyle(int currentPage, int
         return new Paginate<>(list, currentPage, perPage);
     }
 
+    /**
+     * 游标分页 (keyset)
+     * 按照排序列以及边界行的值生成查询条件, 向前翻页时反转排序后查询, 再反转结果
+     * @param perPage 每页数量
+     * @param cursor 游标, 为 null 时查询第一页
+     * @return 分页对象
+     * @throws SQLRuntimeException 数据库异常
+     */
+    @Override
+    public CursorPaginate<T> cursorPaginate(int perPage, @Nullable String cursor) throws SQLRuntimeException {
+        Map<String, OrderBy> orderMap = grammar.pullOrder();
+        if (orderMap == null) {
+            throw new AbnormalParameterException(
+                "Cursor pagination only supports order columns specified by orderBy(column, type).");
+        }
+        // 排序列, 主键作为最后的排序列
+        Map<String, OrderBy> keyMap = new LinkedHashMap<>(orderMap);
+        keyMap.putIfAbsent(model.getPrimaryKeyColumnName(), OrderBy.ASC);
+        List<String> columns = new ArrayList<>(keyMap.keySet());
+
+        CursorPaginate.Cursor decodedCursor = cursor == null ? null : CursorPaginate.Cursor.decode(cursor);
+        if (decodedCursor != null && decodedCursor.getValues().size() != columns.size()) {
+            throw new AbnormalParameterException("The cursor [" + cursor + "] does not match the order columns.");
+        }
+        boolean next = decodedCursor == null || decodedCursor.isNext();
+
+        // 实际的排序方向, 向前翻页时反转
+        List<OrderBy> directions = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            OrderBy orderBy = keyMap.get(column);
+            directions.add(next ? orderBy : (orderBy == OrderBy.ASC ? OrderBy.DESC : OrderBy.ASC));
+        }
+
+        Builder<B, T, K> builder = clone();
+        builder.clear(Grammar.SQLPartType.ORDER);
+        for (int i = 0; i < columns.size(); i++) {
+            builder.orderBy(columns.get(i), directions.get(i));
+        }
+        if (decodedCursor != null) {
+            // 原有条件整体加上括号, 避免与 or 的优先级问题
+            Grammar builderGrammar = builder.getGrammar();
+            if (!builderGrammar.isEmpty(Grammar.SQLPartType.WHERE)) {
+                Grammar.SQLPartInfo where = builderGrammar.get(Grammar.SQLPartType.WHERE);
+                builder.clear(Grammar.SQLPartType.WHERE)
+                    .whereRaw(supportBracket(where.getSqlString()), where.getParameters());
+            }
+            // (c1 > v1) or (c1 = v1 and c2 > v2) or ...
+            List<Object> values = decodedCursor.getValues();
+            builder.andWhere(seekBuilder -> {
+                for (int i = 0; i < columns.size(); i++) {
+                    final int index = i;
+                    seekBuilder.orWhere(itemBuilder -> {
+                        for (int j = 0; j < index; j++) {
+                            itemBuilder.where(columns.get(j), values.get(j));
+                        }
+                        return itemBuilder.where(columns.get(index),
+                            directions.get(index) == OrderBy.ASC ? ">" : "<", values.get(index));
+                    });
+                }
+                return seekBuilder;
+            });
+        }
+        // 多查询一条, 用于判断是否存在更多数据
+        RecordList<T, K> records = builder.limit(perPage + 1).get();
+        boolean hasMore = records.size() > perPage;
+        if (hasMore) {
+            records.remove(records.size() - 1);
+        }
+        if (!next) {
+            Collections.reverse(records);
+        }
+        checkCursorValues(records, columns);
+        List<T> itemList = records.toObjectList();
+        if (records.isEmpty()) {
+            return new CursorPaginate<>(itemList, perPage, null, null);
+        }
+        // 向后翻页时, 仅在存在更多数据时有下一页; 向前翻页时, 必然有下一页
+        String nextCursor = !next || hasMore ? cursorOf(true, records.get(records.size() - 1), columns) : null;
+        String previousCursor = next ? (decodedCursor == null ? null : cursorOf(false, records.get(0), columns)) :
+            (hasMore ? cursorOf(false, records.get(0), columns) : null);
+        return new CursorPaginate<>(itemList, perPage, nextCursor, previousCursor);
+    }
+
+    /**
+     * 检测结果集中排序列的值
+     * 排序列不在查询列中, 或者值为 null 时 (c > null 永远不成立), 都无法生成正确的游标
+     * @param records 结果集
+     * @param columns 排序列
+     * @throws AbnormalParameterException 排序列不存在或者值为 null
+     */
+    protected void checkCursorValues(RecordList<T, K> records, List<String> columns) {
+        for (Record<T, K> record : records) {
+            Map<String, Object> metadataMap = record.getMetadataMap();
+            for (String column : columns) {
+                // 去除表名
+                String columnName = column.substring(column.lastIndexOf('.') + 1);
+                if (!metadataMap.containsKey(columnName)) {
+                    throw new AbnormalParameterException(
+                        "The order column [" + column + "] is not in the select list of the cursor pagination.");
+                }
+                if (metadataMap.get(columnName) == null) {
+                    throw new AbnormalParameterException(
+                        "Cursor pagination does not support null values in the order column [" + column + "].");
+                }
+            }
+        }
+    }
+
+    /**
+     * 生成游标
+     * @param next 是否向后翻页
+     * @param record 边界行
+     * @param columns 排序列
+     * @return 游标字符串
+     */
+    protected String cursorOf(boolean next, Record<T, K> record, List<String> columns) {
+        Map<String, Object> metadataMap = record.getMetadataMap();
+        List<Object> values = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            // 去除表名
+            values.add(metadataMap.get(column.substring(column.lastIndexOf('.') + 1)));
+        }
+        return new CursorPaginate.Cursor(next, values).encode();
+    }
+
     /**
      * 批量插入数据, entityList处理
      * @param entityCollection 数据实体对象列表
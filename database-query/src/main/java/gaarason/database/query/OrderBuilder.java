@@ -31,7 +31,8 @@ protected B orderFirstGrammar(String sqlPart, @Nullable Collection<Object> param
     public B orderBy(@Nullable String column, OrderBy type) {
         if (null != column) {
             String sqlPart = columnAlias(column) + " " + type.getOperation();
-            return orderByRaw(sqlPart);
+            grammar.pushOrder(column, type);
+            return orderGrammar(sqlPart, null);
         }
         return getSelf();
     }
@@ -44,6 +45,7 @@ public B orderBy(@Nullable String column) {
     @Override
     public B orderByRaw(@Nullable String sqlPart) {
         if (!ObjectUtils.isEmpty(sqlPart)) {
+            grammar.pushOrder(null, OrderBy.ASC);
             orderGrammar(sqlPart, null);
         }
         return getSelf();
@@ -52,6 +54,7 @@ public B orderByRaw(@Nullable String sqlPart) {
     @Override
     public B firstOrderBy(BuilderWrapper<B, T, K> closure) {
         Grammar.SQLPartInfo sqlPartInfo = generateSqlPart(closure, Grammar.SQLPartType.ORDER);
+        grammar.pushOrder(null, OrderBy.ASC);
         return orderFirstGrammar(sqlPartInfo.getSqlString(), sqlPartInfo.getParameters());
     }
 }
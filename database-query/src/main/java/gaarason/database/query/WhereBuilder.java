@@ -13,6 +13,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -390,20 +391,61 @@ public B whereSubQuery(String column, String symbol, BuilderWrapper<B, T, K> clo
         return whereGrammar(sqlPart, sqlPartInfo.getParameters(), " and ");
     }
 
+    @Override
+    public B whereInBucketing(boolean bucketing) {
+        whereInBucketing = bucketing;
+        return getSelf();
+    }
+
     @Override
     public B whereIn(String column, Collection<?> valueList) {
-        Collection<Object> parameters = new ArrayList<>();
-        String valueStr = grammar.replaceValuesAndFillParameters(ObjectUtils.typeCast(valueList), parameters, ",");
-        String sqlPart = columnAlias(column) + "in" + supportBracket(valueStr);
-        return whereGrammar(sqlPart, parameters, " and ");
+        return whereInGrammar(column, "in", valueList, " or ");
     }
 
     @Override
     public B whereNotIn(String column, Collection<?> valueList) {
+        return whereInGrammar(column, "not in", valueList, " and ");
+    }
+
+    /**
+     * 列值在(不在)范围内
+     * 开启分桶时, 参数数量补齐到桶的大小(重复最后一个值), 超过拆分阈值时拆分为多组
+     * @param column 列名
+     * @param operation in/not in
+     * @param valueList 值所在的list
+     * @param groupSeparator 多组之间的连接符
+     * @return 查询构造器
+     */
+    protected B whereInGrammar(String column, String operation, Collection<?> valueList, String groupSeparator) {
         Collection<Object> parameters = new ArrayList<>();
-        String valueStr = grammar.replaceValuesAndFillParameters(ObjectUtils.typeCast(valueList), parameters, ",");
-        String sqlPart = columnAlias(column) + "not in" + supportBracket(valueStr);
-        return whereGrammar(sqlPart, parameters, " and ");
+        boolean bucketing = whereInBucketing != null ? whereInBucketing : whereInConfig.isBucketing();
+        if (!bucketing || valueList.isEmpty()) {
+            String valueStr = grammar.replaceValuesAndFillParameters(ObjectUtils.typeCast(valueList), parameters, ",");
+            String sqlPart = columnAlias(column) + operation + supportBracket(valueStr);
+            return whereGrammar(sqlPart, parameters, " and ");
+        }
+        List<?> values = valueList instanceof List ? (List<?>) valueList : new ArrayList<>(valueList);
+        int splitThreshold = Math.max(whereInConfig.getSplitThreshold(), 1);
+        StringBuilder sqlPart = new StringBuilder();
+        for (int from = 0; from < values.size(); from += splitThreshold) {
+            List<?> group = values.subList(from, Math.min(from + splitThreshold, values.size()));
+            int bucketSize = whereInConfig.bucketSize(group.size());
+            List<Object> bucket = new ArrayList<>(bucketSize);
+            bucket.addAll(group);
+            // 重复最后一个值, 补齐
+            Object last = group.get(group.size() - 1);
+            while (bucket.size() < bucketSize) {
+                bucket.add(last);
+            }
+            if (from > 0) {
+                sqlPart.append(groupSeparator);
+            }
+            sqlPart.append(columnAlias(column))
+                .append(operation)
+                .append(supportBracket(grammar.replaceValuesAndFillParameters(bucket, parameters, ",")));
+        }
+        return whereGrammar(values.size() > splitThreshold ? supportBracket(sqlPart.toString()) :
+            sqlPart.toString(), parameters, " and ");
     }
 
     @Override
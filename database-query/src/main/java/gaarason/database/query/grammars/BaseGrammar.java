@@ -1,5 +1,6 @@
 package gaarason.database.query.grammars;
 
+import gaarason.database.appointment.OrderBy;
 import gaarason.database.appointment.SqlType;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.function.BuilderWrapper;
@@ -13,6 +14,8 @@
 import gaarason.database.util.ObjectUtils;
 
 import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -41,6 +44,12 @@ public abstract class BaseGrammar implements Grammar, Serializable {
      */
     protected final Map<String, Record.Relation> relationMap = new HashMap<>();
 
+    /**
+     * 排序信息 column -> 排序类型, 存在无法解析的排序时为 null
+     */
+    @Nullable
+    protected LinkedHashMap<String, OrderBy> orderMap = new LinkedHashMap<>();
+
     /**
      * SQL片段信息MAP
      */
@@ -71,6 +80,40 @@ protected BaseGrammar(String tableName, String symbol) {
         this.symbol = symbol;
     }
 
+    /**
+     * 结构复制
+     * 片段列表, 别名, 关联关系等容器全新, SQLPartInfo 的绑定参数复制一次, 以免调用方之后的修改影响副本
+     * @param grammar 源对象
+     */
+    protected BaseGrammar(BaseGrammar grammar) {
+        this.symbol = grammar.symbol;
+        this.alias = copyAlias(grammar.alias);
+        for (Alias historyAlias : grammar.historyAliasList) {
+            this.historyAliasList.add(copyAlias(historyAlias));
+        }
+        this.useAlisa = grammar.useAlisa;
+        this.withMap.putAll(grammar.withMap);
+        this.relationMap.putAll(grammar.relationMap);
+        this.orderMap = grammar.orderMap == null ? null : new LinkedHashMap<>(grammar.orderMap);
+        for (Map.Entry<SQLPartType, List<SQLPartInfo>> entry : grammar.SQLPartMap.entrySet()) {
+            List<SQLPartInfo> sqlParts = new LinkedList<>();
+            for (SQLPartInfo sqlPart : entry.getValue()) {
+                sqlParts.add(copySQLPartInfo(sqlPart));
+            }
+            this.SQLPartMap.put(entry.getKey(), sqlParts);
+        }
+    }
+
+    /**
+     * 复制sql片段 (仅复制绑定参数, sql字符串不可变)
+     * @param sqlPart sql片段
+     * @return 新的sql片段
+     */
+    protected static SQLPartInfo copySQLPartInfo(SQLPartInfo sqlPart) {
+        Collection<Object> parameters = sqlPart.getParameters();
+        return parameters == null ? sqlPart : new SQLPartInfo(sqlPart.getSqlString(), new ArrayList<>(parameters));
+    }
+
     @Override
     public String symbol() {
         return symbol;
@@ -145,6 +188,9 @@ protected void add(SQLPartType sqlPartType, String sqlPartString, @Nullable Coll
     @Override
     public void clear(SQLPartType sqlPartType) {
         SQLPartMap.remove(sqlPartType);
+        if (sqlPartType == SQLPartType.ORDER) {
+            orderMap = new LinkedHashMap<>();
+        }
     }
 
     /**
@@ -179,20 +225,27 @@ public boolean isEmpty(SQLPartType sqlPartType) {
 
     @Override
     public SQLPartInfo get(SQLPartType sqlPartType) {
-        StringBuilder sqlBuilder = new StringBuilder();
+        List<SQLPartInfo> sqlParts = SQLPartMap.computeIfAbsent(sqlPartType, k -> new ArrayList<>());
+        // 保留 别名占位符 (历史别名占位符统一为当前别名占位符)
+        AliasResolver aliasResolver = new AliasResolver(AliasResolver.PLACE_HOLDER);
+        StringBuilder sqlBuilder = new StringBuilder(sqlLength(sqlParts));
         Collection<Object> allParameters = new LinkedList<>();
 
-        List<SQLPartInfo> sqlParts = SQLPartMap.computeIfAbsent(sqlPartType, k -> new ArrayList<>());
         // sql part
         for (SQLPartInfo sqlPart : sqlParts) {
-            sqlBuilder.append(sqlPart.getSqlString());
+            aliasResolver.append(sqlBuilder, sqlPart.getSqlString());
             Collection<Object> parameters = sqlPart.getParameters();
             if (!ObjectUtils.isEmpty(parameters)) {
                 allParameters.addAll(parameters);
             }
         }
-        // 保留 别名占位符
-        return instanceSQLPartInfoWithAliasPlaceHolder(sqlBuilder.toString(), allParameters);
+        return simpleInstanceSQLPartInfo(sqlBuilder.toString(), allParameters);
+    }
+
+    @Override
+    public List<SQLPartInfo> getList(SQLPartType sqlPartType) {
+        List<SQLPartInfo> sqlParts = SQLPartMap.get(sqlPartType);
+        return sqlParts == null ? new ArrayList<>() : new ArrayList<>(sqlParts);
     }
 
     /**
@@ -201,9 +254,10 @@ public SQLPartInfo get(SQLPartType sqlPartType) {
      * @param sqlPartType 片段类型
      * @param sqlBuilder sql字符
      * @param allParameters sql绑定参数
+     * @param aliasResolver 别名占位符的解析方式
      */
     protected void concatenate(SqlType sqlType, SQLPartType sqlPartType, StringBuilder sqlBuilder,
-        Collection<Object> allParameters) {
+        Collection<Object> allParameters, AliasResolver aliasResolver) {
         List<SQLPartInfo> sqlParts = SQLPartMap.get(sqlPartType);
         if (ObjectUtils.isEmpty(sqlParts)) {
             // 使用默认值
@@ -225,9 +279,9 @@ protected void concatenate(SqlType sqlType, SQLPartType sqlPartType, StringBuild
             sqlBuilder.append('(');
         }
 
-        // sql part
+        // sql part, 追加时直接解析别名占位符
         for (SQLPartInfo sqlPart : sqlParts) {
-            sqlBuilder.append(sqlPart.getSqlString());
+            aliasResolver.append(sqlBuilder, sqlPart.getSqlString());
 
             Collection<Object> parameters = sqlPart.getParameters();
             if (!ObjectUtils.isEmpty(parameters)) {
@@ -247,69 +301,102 @@ protected void concatenate(SqlType sqlType, SQLPartType sqlPartType, StringBuild
      * @param sqlType 语句类型
      * @param sqlBuilder sql字符
      * @param allParameters sql绑定参数
+     * @param aliasResolver 别名占位符的解析方式
      * @param sqlPartTypes 片段类型
      */
     protected void choreography(SqlType sqlType, StringBuilder sqlBuilder, Collection<Object> allParameters,
-        SQLPartType... sqlPartTypes) {
+        AliasResolver aliasResolver, SQLPartType... sqlPartTypes) {
         for (SQLPartType sqlPartType : sqlPartTypes) {
             // 单个 sql 片段
-            concatenate(sqlType, sqlPartType, sqlBuilder, allParameters);
+            concatenate(sqlType, sqlPartType, sqlBuilder, allParameters, aliasResolver);
         }
     }
 
     @Override
     public SQLPartInfo generateSql(SqlType sqlType) {
-        StringBuilder sqlBuilder = new StringBuilder();
+        StringBuilder sqlBuilder = new StringBuilder(sqlLength());
         Collection<Object> allParameters = new LinkedList<>();
+        AliasResolver aliasResolver;
 
         switch (sqlType) {
             case REPLACE:
                 useAlisa = false;
+                aliasResolver = new AliasResolver(AliasResolver.STRIP);
                 sqlBuilder.append("replace into ");
-                choreography(sqlType, sqlBuilder, allParameters, SQLPartType.TABLE, SQLPartType.COLUMN,
-                    SQLPartType.VALUE, SQLPartType.LAST);
-                return instanceSQLPartInfo(sqlBuilder.toString(), allParameters);
+                choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.TABLE,
+                    SQLPartType.COLUMN, SQLPartType.VALUE, SQLPartType.LAST);
+                return simpleInstanceSQLPartInfo(sqlBuilder.toString(), allParameters);
             case INSERT:
                 useAlisa = false;
+                aliasResolver = new AliasResolver(AliasResolver.STRIP);
                 sqlBuilder.append("insert into ");
-                choreography(sqlType, sqlBuilder, allParameters, SQLPartType.TABLE, SQLPartType.COLUMN,
-                    SQLPartType.VALUE, SQLPartType.LAST);
-                return instanceSQLPartInfo(sqlBuilder.toString(), allParameters);
+                choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.TABLE,
+                    SQLPartType.COLUMN, SQLPartType.VALUE, SQLPartType.LAST);
+                return simpleInstanceSQLPartInfo(sqlBuilder.toString(), allParameters);
             case UPDATE:
                 useAlisa = false;
+                aliasResolver = new AliasResolver(AliasResolver.STRIP);
                 sqlBuilder.append("update ");
-                choreography(sqlType, sqlBuilder, allParameters, SQLPartType.TABLE, SQLPartType.FORCE_INDEX,
-                    SQLPartType.IGNORE_INDEX, SQLPartType.DATA);
+                choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.TABLE,
+                    SQLPartType.FORCE_INDEX, SQLPartType.IGNORE_INDEX, SQLPartType.DATA);
                 break;
             case DELETE:
                 useAlisa = false;
+                aliasResolver = new AliasResolver(AliasResolver.STRIP);
                 sqlBuilder.append("delete from ");
-                choreography(sqlType, sqlBuilder, allParameters, SQLPartType.TABLE, SQLPartType.FORCE_INDEX,
-                    SQLPartType.IGNORE_INDEX);
+                choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.TABLE,
+                    SQLPartType.FORCE_INDEX, SQLPartType.IGNORE_INDEX);
                 break;
             case SELECT:
                 useAlisa = true;
-                choreography(sqlType, sqlBuilder, allParameters, SQLPartType.SELECT, SQLPartType.FROM,
-                        SQLPartType.FORCE_INDEX, SQLPartType.IGNORE_INDEX);
+                aliasResolver = new AliasResolver(AliasResolver.ALIAS);
+                choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.SELECT,
+                    SQLPartType.FROM, SQLPartType.FORCE_INDEX, SQLPartType.IGNORE_INDEX);
                 break;
             case SUB_QUERY:
                 useAlisa = true;
+                aliasResolver = new AliasResolver(AliasResolver.ALIAS);
                 break;
             default:
                 throw new InvalidSqlTypeException();
         }
 
-        choreography(sqlType, sqlBuilder, allParameters, SQLPartType.JOIN, SQLPartType.WHERE, SQLPartType.GROUP,
-            SQLPartType.HAVING, SQLPartType.ORDER, SQLPartType.LIMIT, SQLPartType.LOCK);
+        choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.JOIN, SQLPartType.WHERE,
+            SQLPartType.GROUP, SQLPartType.HAVING, SQLPartType.ORDER, SQLPartType.LIMIT, SQLPartType.LOCK);
 
         if (!isEmpty(SQLPartType.UNION)) {
             FormatUtils.bracket(sqlBuilder);
-            choreography(sqlType, sqlBuilder, allParameters, SQLPartType.UNION);
+            choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.UNION);
         }
 
-        choreography(sqlType, sqlBuilder, allParameters, SQLPartType.LAST);
+        choreography(sqlType, sqlBuilder, allParameters, aliasResolver, SQLPartType.LAST);
+
+        return simpleInstanceSQLPartInfo(sqlBuilder.toString(), allParameters);
+    }
+
+    /**
+     * 所有sql片段的总长度, 用于预设 StringBuilder 的容量
+     * @return 长度 (含关键字等的余量)
+     */
+    protected int sqlLength() {
+        int length = 64;
+        for (List<SQLPartInfo> sqlParts : SQLPartMap.values()) {
+            length += sqlLength(sqlParts) + 16;
+        }
+        return length;
+    }
 
-        return instanceSQLPartInfo(sqlBuilder.toString(), allParameters);
+    /**
+     * sql片段的总长度
+     * @param sqlParts sql片段列表
+     * @return 长度
+     */
+    protected static int sqlLength(List<SQLPartInfo> sqlParts) {
+        int length = 0;
+        for (SQLPartInfo sqlPart : sqlParts) {
+            length += sqlPart.getSqlString().length();
+        }
+        return length;
     }
 
     /**
@@ -343,13 +430,64 @@ public Map<String, Record.Relation> pullRelation(){
     }
 
     @Override
-    public Grammar deepCopy() throws CloneNotSupportedRuntimeException {
-        return ObjectUtils.deepCopy(this);
+    public void clearRelation() {
+        relationMap.clear();
+    }
+
+    @Override
+    public void pushOrder(@Nullable String column, OrderBy orderBy) {
+        if (column == null) {
+            orderMap = null;
+        } else if (orderMap != null) {
+            orderMap.putIfAbsent(column, orderBy);
+        }
+    }
+
+    @Override
+    @Nullable
+    public Map<String, OrderBy> pullOrder() {
+        return orderMap;
+    }
+
+    /**
+     * 深度copy
+     * 默认使用子类的结构复制构造方法 (参数为子类自身或其父类, eg: MySqlGrammar(MySqlGrammar)), 子类可重写以避免反射
+     * @return 和当前属性值一样的全新对象
+     * @throws CloneNotSupportedRuntimeException 克隆异常 (子类没有结构复制的构造方法)
+     */
+    @Override
+    public BaseGrammar deepCopy() throws CloneNotSupportedRuntimeException {
+        for (Class<?> type = getClass(); BaseGrammar.class.isAssignableFrom(type); type = type.getSuperclass()) {
+            try {
+                Constructor<? extends BaseGrammar> constructor = getClass().getDeclaredConstructor(type);
+                constructor.setAccessible(true);
+                return constructor.newInstance(this);
+            } catch (NoSuchMethodException e) {
+                // 尝试父类作为参数类型
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new CloneNotSupportedRuntimeException(e.getMessage(), e);
+            }
+        }
+        throw new CloneNotSupportedRuntimeException(
+            "The grammar [" + getClass().getName() + "] should declare a copy constructor or override deepCopy().",
+            new CloneNotSupportedException(getClass().getName()));
+    }
+
+    /**
+     * 复制别名 (别名对象可变)
+     * @param alias 别名
+     * @return 全新的别名
+     */
+    protected static Alias copyAlias(Alias alias) {
+        return new Alias(alias.getTable(), alias.getAlias()).setAliasPlaceHolder(alias.getAliasPlaceHolder());
     }
 
     @Override
     public void merger(Grammar grammar) {
         relationMap.putAll(grammar.pullRelation());
+        if (!grammar.isEmpty(SQLPartType.ORDER)) {
+            pushOrder(null, OrderBy.ASC);
+        }
 
         for (SQLPartType type : SQLPartType.values()) {
             SQLPartInfo partInfo = grammar.get(type);
@@ -358,43 +496,105 @@ public void merger(Grammar grammar) {
     }
 
     /**
-     * 获取 SQLPartInfo 对象
-     * 并根据 useAlise 解析别名占位符 (替换掉所有占位符)
-     * @param sqlString sql片段
-     * @param parameters 绑定参数
-     * @return SQL片段信息
+     * 别名占位符的解析方式, 单次生成sql时使用
+     * 追加sql片段时, 逐个检查以符号包裹的标识符 (eg: `student_1234`), 命中占位符时直接写入解析结果, 不再对整条sql进行替换
+     * 占位符总是由 backQuote 等方法以符号包裹, 因此无需识别未包裹的占位符
      */
-    protected SQLPartInfo instanceSQLPartInfo(String sqlString, @Nullable Collection<Object> parameters) {
-        String sql;
-        if (useAlisa) {
-            // 历史处理
+    protected class AliasResolver {
+
+        /**
+         * 替换为当前别名 (eg: select)
+         */
+        static final int ALIAS = 0;
+
+        /**
+         * 移除 "占位符." (eg: update, delete)
+         */
+        static final int STRIP = 1;
+
+        /**
+         * 历史别名占位符统一为当前别名占位符
+         */
+        static final int PLACE_HOLDER = 2;
+
+        /**
+         * 解析方式
+         */
+        private final int mode;
+
+        /**
+         * 别名占位符 -> 解析结果
+         */
+        private final Map<String, String> replacements = new HashMap<>();
+
+        AliasResolver(int mode) {
+            this.mode = mode;
             for (Alias historyAlias : historyAliasList) {
-                sqlString = sqlString.replace(historyAlias.getAliasPlaceHolder(), alias.getAlias());
+                put(historyAlias.getAliasPlaceHolder());
             }
-            sql = sqlString.replace(alias.getAliasPlaceHolder(), alias.getAlias());
-        } else {
-            // 历史处理
-            for (Alias historyAlias : historyAliasList) {
-                sqlString = sqlString.replace(symbol + historyAlias.getAliasPlaceHolder() + symbol + ".", "");
+            // 当前别名占位符, 无需统一
+            if (mode != PLACE_HOLDER) {
+                put(alias.getAliasPlaceHolder());
             }
-            sql = sqlString.replace(symbol + alias.getAliasPlaceHolder() + symbol + ".", "");
         }
-        return simpleInstanceSQLPartInfo(sql, parameters);
-    }
 
-    /**
-     * 获取 SQLPartInfo 对象
-     * 并统一别名占位符 (保留唯一一个别名占位符)
-     * @param sqlString sql片段
-     * @param parameters 绑定参数
-     * @return SQL片段信息
-     */
-    protected SQLPartInfo instanceSQLPartInfoWithAliasPlaceHolder(String sqlString, @Nullable Collection<Object> parameters) {
-        // 历史处理
-        for (Alias historyAlias : historyAliasList) {
-            sqlString = sqlString.replace(historyAlias.getAliasPlaceHolder(), alias.getAliasPlaceHolder());
+        private void put(String aliasPlaceHolder) {
+            if (aliasPlaceHolder.isEmpty()) {
+                return;
+            }
+            replacements.put(aliasPlaceHolder, mode == ALIAS ? alias.getAlias() : alias.getAliasPlaceHolder());
+        }
+
+        /**
+         * 追加sql片段, 同时解析其中的别名占位符
+         * 占位符可以被符号包裹 (eg: `student_123`.`id`), 也可以是原生片段中的裸占位符 (eg: student_123.id)
+         * @param sqlBuilder sql字符
+         * @param sqlPart sql片段
+         */
+        void append(StringBuilder sqlBuilder, String sqlPart) {
+            if (replacements.isEmpty()) {
+                sqlBuilder.append(sqlPart);
+                return;
+            }
+            final int length = sqlPart.length();
+            final int symbolLength = symbol.length();
+            // 已追加的位置
+            int appended = 0;
+            int from = 0;
+            while (true) {
+                // 最靠前的占位符, 同一位置取最长者
+                int start = -1;
+                String placeHolder = null;
+                for (String key : replacements.keySet()) {
+                    int index = sqlPart.indexOf(key, from);
+                    if (index != -1 && (start == -1 || index < start ||
+                        (index == start && key.length() > placeHolder.length()))) {
+                        start = index;
+                        placeHolder = key;
+                    }
+                }
+                if (placeHolder == null) {
+                    break;
+                }
+                int end = start + placeHolder.length();
+                if (mode != STRIP) {
+                    sqlBuilder.append(sqlPart, appended, start).append(replacements.get(placeHolder));
+                    appended = end;
+                } else {
+                    boolean wrapped = symbolLength > 0 && start - symbolLength >= appended &&
+                        sqlPart.startsWith(symbol, start - symbolLength) && sqlPart.startsWith(symbol, end);
+                    int stripStart = wrapped ? start - symbolLength : start;
+                    int stripEnd = wrapped ? end + symbolLength : end;
+                    if (stripEnd < length && sqlPart.charAt(stripEnd) == '.') {
+                        sqlBuilder.append(sqlPart, appended, stripStart);
+                        appended = stripEnd + 1;
+                        end = appended;
+                    }
+                }
+                from = end;
+            }
+            sqlBuilder.append(sqlPart, appended, length);
         }
-        return simpleInstanceSQLPartInfo(sqlString, parameters);
     }
 
     /**
@@ -0,0 +1,86 @@
+package gaarason.database.test;
+
+import gaarason.database.support.ArrayDequeList;
+import gaarason.database.util.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class ArrayDequeListTests {
+
+    @Test
+    public void deque() {
+        ArrayDequeList<Integer> list = new ArrayDequeList<>(4);
+        Assert.assertTrue(list instanceof RandomAccess);
+        Assert.assertNull(list.peekFirst());
+        Assert.assertNull(list.pollLast());
+
+        list.addLast(2);
+        list.addFirst(1);
+        list.offerLast(3);
+        list.push(0);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3), list);
+        Assert.assertEquals(0, list.getFirst().intValue());
+        Assert.assertEquals(3, list.getLast().intValue());
+
+        Assert.assertEquals(0, list.pop().intValue());
+        Assert.assertEquals(3, list.pollLast().intValue());
+        Assert.assertEquals(1, list.poll().intValue());
+        Assert.assertEquals(2, list.removeLast().intValue());
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertThrows(NoSuchElementException.class, list::removeFirst);
+        Assert.assertThrows(NoSuchElementException.class, list::element);
+    }
+
+    @Test
+    public void occurrence() {
+        ArrayDequeList<Integer> list = new ArrayDequeList<>();
+        list.addAll(Arrays.asList(1, 2, 1, 3));
+        Assert.assertTrue(list.removeLastOccurrence(1));
+        Assert.assertEquals(Arrays.asList(1, 2, 3), list);
+        Assert.assertTrue(list.removeFirstOccurrence(1));
+        Assert.assertEquals(Arrays.asList(2, 3), list);
+        Assert.assertFalse(list.removeLastOccurrence(9));
+    }
+
+    @Test
+    public void descendingIterator() {
+        ArrayDequeList<Integer> list = new ArrayDequeList<>();
+        list.addAll(Arrays.asList(1, 2, 3));
+        Iterator<Integer> iterator = list.descendingIterator();
+        Assert.assertEquals(3, iterator.next().intValue());
+        iterator.remove();
+        Assert.assertEquals(2, iterator.next().intValue());
+        Assert.assertEquals(1, iterator.next().intValue());
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(Arrays.asList(1, 2), list);
+    }
+
+    @Test
+    public void reversed() {
+        ArrayDequeList<Integer> list = new ArrayDequeList<>();
+        list.addAll(Arrays.asList(1, 2, 3));
+        ArrayDequeList<Integer> reversed = list.reversed();
+        Assert.assertEquals(Arrays.asList(3, 2, 1), reversed);
+        reversed.removeFirst();
+        Assert.assertEquals(Arrays.asList(1, 2, 3), list);
+    }
+
+    @Test
+    public void serializable() {
+        ArrayDequeList<Integer> list = new ArrayDequeList<>();
+        list.addAll(Arrays.asList(1, 2, 3));
+        List<Integer> deepCopy = ObjectUtils.deepCopy(list);
+        Assert.assertEquals(list, deepCopy);
+    }
+}
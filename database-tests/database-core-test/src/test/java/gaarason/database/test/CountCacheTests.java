@@ -0,0 +1,67 @@
+package gaarason.database.test;
+
+import gaarason.database.support.CountCache;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Arrays;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class CountCacheTests {
+
+    @Test
+    public void getAndPut() {
+        CountCache countCache = new CountCache(2, 60000);
+        Assert.assertTrue(countCache.isEnabled());
+        countCache.put(String.class, Arrays.asList("sql", Arrays.asList(1, "a")), 10, 0);
+        Assert.assertEquals(10L, countCache.get(Arrays.asList("sql", Arrays.asList(1, "a"))).longValue());
+        Assert.assertNull(countCache.get(Arrays.asList("sql", Arrays.asList(2, "a"))));
+
+        // 超出数量时, 移除最久未使用的
+        countCache.put(String.class, "b", 2, 0);
+        countCache.put(String.class, "c", 3, 0);
+        Assert.assertNull(countCache.get(Arrays.asList("sql", Arrays.asList(1, "a"))));
+        Assert.assertEquals(3L, countCache.get("c").longValue());
+
+        countCache.clear();
+        Assert.assertNull(countCache.get("c"));
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        CountCache countCache = new CountCache(16, 10);
+        countCache.put(String.class, "a", 1, 0);
+        Thread.sleep(30);
+        Assert.assertNull(countCache.get("a"));
+    }
+
+    @Test
+    public void disabled() {
+        CountCache countCache = new CountCache(0, 10000);
+        Assert.assertFalse(countCache.isEnabled());
+        countCache.put(String.class, "a", 1, 0);
+        Assert.assertNull(countCache.get("a"));
+    }
+
+    @Test
+    public void evict() {
+        CountCache countCache = new CountCache(16, 60000);
+        countCache.put(String.class, "a", 1, countCache.generation(String.class));
+        countCache.put(Integer.class, "b", 2, countCache.generation(Integer.class));
+
+        // 仅清除该模型的总数
+        countCache.evict(String.class);
+        Assert.assertNull(countCache.get("a"));
+        Assert.assertEquals(2L, countCache.get("b").longValue());
+
+        // 统计期间发生了写操作, 不记录
+        long generation = countCache.generation(String.class);
+        countCache.evict(String.class);
+        countCache.put(String.class, "a", 1, generation);
+        Assert.assertNull(countCache.get("a"));
+    }
+}
@@ -86,6 +86,13 @@ public void testStringUtil() {
         Assert.assertEquals(StringUtils.rtrim("tInvoice@@", "@"), "tInvoice");
         Assert.assertEquals(StringUtils.rtrim("tInvoice\n\n", "\n"), "tInvoice");
         Assert.assertEquals(StringUtils.rtrim("tInvoice", "Invoice"), "t");
+
+        // 同时替换多组字符
+        Assert.assertEquals(StringUtils.replaceEach("`t_1`.`a`=`t_12`.`b`", new String[]{"t_1", "t_12"},
+            new String[]{"x", "y"}), "`x`.`a`=`y`.`b`");
+        Assert.assertEquals(StringUtils.replaceEach("`t_1`.`a`", new String[]{"`t_1`.", "t"},
+            new String[]{"", "z"}), "`a`");
+        Assert.assertEquals(StringUtils.replaceEach("abc", new String[]{"d"}, new String[]{"e"}), "abc");
     }
 
     @Test
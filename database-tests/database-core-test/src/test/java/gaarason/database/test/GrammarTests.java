@@ -0,0 +1,183 @@
+package gaarason.database.test;
+
+import gaarason.database.appointment.SqlType;
+import gaarason.database.contract.query.Alias;
+import gaarason.database.contract.query.Grammar;
+import gaarason.database.eloquent.relation.BelongsToQueryRelation;
+import gaarason.database.exception.CloneNotSupportedRuntimeException;
+import gaarason.database.query.AbstractBuilder;
+import gaarason.database.query.MySqlBuilder;
+import gaarason.database.query.grammars.BaseGrammar;
+import gaarason.database.query.grammars.MySqlGrammar;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class GrammarTests {
+
+    @Test
+    public void deepCopy() {
+        MySqlGrammar grammar = new MySqlGrammar("student");
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, "`name`= ? ", new ArrayList<>(Arrays.asList("alice")),
+            " and ");
+        grammar.addSmartSeparator(Grammar.SQLPartType.ORDER, "`id` desc", null, ",");
+
+        Grammar copy = grammar.deepCopy();
+        Assert.assertTrue(copy instanceof MySqlGrammar);
+        Grammar.SQLPartInfo origin = grammar.generateSql(SqlType.SELECT);
+        Grammar.SQLPartInfo copied = copy.generateSql(SqlType.SELECT);
+        Assert.assertEquals(origin.getSqlString(), copied.getSqlString());
+        Assert.assertEquals(new ArrayList<>(origin.getParameters()), new ArrayList<>(copied.getParameters()));
+
+        // 修改副本, 不影响源对象
+        copy.addSmartSeparator(Grammar.SQLPartType.WHERE, "`age`= ? ", new ArrayList<>(Arrays.asList(11)), " and ");
+        copy.alias().setAlias("copy_alias");
+        Assert.assertEquals(origin.getSqlString(), grammar.generateSql(SqlType.SELECT).getSqlString());
+        Assert.assertEquals(1, grammar.generateSql(SqlType.SELECT).getParameters().size());
+        Assert.assertEquals(2, copy.generateSql(SqlType.SELECT).getParameters().size());
+        Assert.assertNotEquals("copy_alias", grammar.alias().getAlias());
+    }
+
+    @Test
+    public void alias_历史别名() {
+        MySqlGrammar grammar = new MySqlGrammar("student");
+        String first = grammar.alias().getAliasPlaceHolder();
+        grammar.alias(new Alias("student", "student_sub"));
+        String current = grammar.alias().getAliasPlaceHolder();
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, "`" + first + "`.`id`=`" + current + "`.`id`", null,
+            " and ");
+
+        Assert.assertEquals("`student_sub`.`id`=`student_sub`.`id`",
+            grammar.get(Grammar.SQLPartType.WHERE).getSqlString());
+        Assert.assertTrue(grammar.generateSql(SqlType.SELECT).getSqlString().endsWith(
+            " where `student_sub`.`id`=`student_sub`.`id`"));
+        Assert.assertTrue(grammar.generateSql(SqlType.DELETE).getSqlString().endsWith(" where `id`=`id`"));
+    }
+
+    @Test
+    public void alias_原生片段中的裸占位符() {
+        MySqlGrammar grammar = new MySqlGrammar("student");
+        String first = grammar.alias().getAliasPlaceHolder();
+        grammar.alias(new Alias("student", "student_sub"));
+        // eg: whereRaw(builder.alias() + ".id = 1")
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, first + ".id = 1", null, " and ");
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, grammar.alias().getAliasPlaceHolder() + ".age > 2", null,
+            " and ");
+
+        Assert.assertEquals("student_sub.id = 1 and student_sub.age > 2",
+            grammar.get(Grammar.SQLPartType.WHERE).getSqlString());
+        Assert.assertEquals("select * from `student` as `student_sub` where student_sub.id = 1 and student_sub.age > 2",
+            grammar.generateSql(SqlType.SELECT).getSqlString());
+        Assert.assertEquals("delete from `student` where id = 1 and age > 2",
+            grammar.generateSql(SqlType.DELETE).getSqlString());
+    }
+
+    @Test
+    public void leftJoin_关联目标表() {
+        MySqlGrammar grammar = new MySqlGrammar("student");
+        grammar.alias().setAlias("s");
+        MySqlBuilder<Object, Object> builder = new MySqlBuilder<>();
+        builder.setGrammar(grammar);
+        builder.select("id");
+        Grammar.SQLPartInfo teacher = new Grammar.SQLPartInfo(
+            "select `id`,`name` from `teacher` where `age`> ? ", new ArrayList<>(Arrays.asList(30)));
+        BelongsToQueryRelation.leftJoin(builder, "_join_teacher_", teacher, Arrays.asList("id", "name"),
+            "teacher_id", "id");
+        builder.where("age", ">", 10);
+
+        Grammar.SQLPartInfo sqlPartInfo = builder.getGrammar().generateSql(SqlType.SELECT);
+        Assert.assertEquals("select `s`.`id`,`_join_teacher_`.`id` as `_join_teacher_id`," +
+            "`_join_teacher_`.`name` as `_join_teacher_name` from `student` as `s` " +
+            "left join (select `id`,`name` from `teacher` where `age`> ? ) `_join_teacher_` " +
+            "on `s`.`teacher_id`=`_join_teacher_`.`id` where `s`.`age`> ? ", sqlPartInfo.getSqlString());
+        Assert.assertEquals(Arrays.asList(30, 10), new ArrayList<>(sqlPartInfo.getParameters()));
+    }
+
+    @Test
+    public void aggregate_distinct时是否包装为派生表() {
+        DerivedTableBuilder builder = new DerivedTableBuilder();
+        builder.setGrammar(new MySqlGrammar("student"));
+        Assert.assertFalse(builder.requireDerivedTable("age"));
+
+        builder.selectRaw("distinct `s`.`age`, name");
+        Assert.assertTrue(builder.requireDerivedTable("*"));
+        Assert.assertTrue(builder.requireDerivedTable("age"));
+        Assert.assertTrue(builder.requireDerivedTable("`name`"));
+        // 不在查询列中的列, 保持直接统计
+        Assert.assertFalse(builder.requireDerivedTable("id"));
+
+        builder.group("id");
+        Assert.assertTrue(builder.requireDerivedTable("id"));
+    }
+
+    @Test
+    public void sqlPartInfo_不可变() {
+        Collection<Object> source = new ArrayList<>(Arrays.asList(1));
+        Grammar.SQLPartInfo sqlPartInfo = new Grammar.SQLPartInfo(" ? ", source);
+        Collection<Object> parameters = sqlPartInfo.getParameters();
+        Assert.assertNotNull(parameters);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> parameters.add(2));
+
+        // 仅包装而不复制
+        source.add(2);
+        Assert.assertEquals(Arrays.asList(1, 2), new ArrayList<>(sqlPartInfo.getParameters()));
+    }
+
+    @Test
+    public void deepCopy_复制绑定参数() {
+        MySqlGrammar grammar = new MySqlGrammar("student");
+        Collection<Object> source = new ArrayList<>(Arrays.asList(1));
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, "`id`= ? ", source, " and ");
+        Grammar copy = grammar.deepCopy();
+
+        // 复制之后修改源集合, 不影响副本
+        source.add(2);
+        Assert.assertEquals(Arrays.asList(1), new ArrayList<>(copy.get(Grammar.SQLPartType.WHERE).getParameters()));
+    }
+
+    @Test
+    public void deepCopy_默认使用结构复制的构造方法() {
+        CustomGrammar grammar = new CustomGrammar("student");
+        grammar.addSmartSeparator(Grammar.SQLPartType.WHERE, "`id`= ? ", new ArrayList<>(Arrays.asList(1)), " and ");
+        BaseGrammar copy = grammar.deepCopy();
+        Assert.assertTrue(copy instanceof CustomGrammar);
+        Assert.assertNotSame(grammar, copy);
+        Assert.assertEquals(grammar.generateSql(SqlType.SELECT).getSqlString(),
+            copy.generateSql(SqlType.SELECT).getSqlString());
+
+        Assert.assertThrows(CloneNotSupportedRuntimeException.class, () -> new BaseGrammar("student", "`") {
+        }.deepCopy());
+    }
+
+    private static class CustomGrammar extends BaseGrammar {
+
+        CustomGrammar(String tableName) {
+            super(tableName, "`");
+        }
+
+        CustomGrammar(CustomGrammar grammar) {
+            super(grammar);
+        }
+    }
+
+    private static class DerivedTableBuilder extends AbstractBuilder<DerivedTableBuilder, Object, Object> {
+
+        @Override
+        public DerivedTableBuilder getSelf() {
+            return this;
+        }
+
+        @Override
+        public boolean requireDerivedTable(String column) {
+            return super.requireDerivedTable(column);
+        }
+    }
+}
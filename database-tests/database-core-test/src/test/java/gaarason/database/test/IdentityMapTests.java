@@ -0,0 +1,74 @@
+package gaarason.database.test;
+
+import gaarason.database.appointment.IdentityMap;
+import gaarason.database.appointment.RelationCache;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class IdentityMapTests {
+
+    @Test
+    public void scope() {
+        Assert.assertNull(IdentityMap.current());
+        try (IdentityMap.Scope ignored = IdentityMap.open()) {
+            IdentityMap identityMap = IdentityMap.current();
+            Assert.assertNotNull(identityMap);
+            // 嵌套开启时, 沿用已存在的作用域
+            try (IdentityMap.Scope ignored2 = IdentityMap.open()) {
+                Assert.assertSame(identityMap, IdentityMap.current());
+            }
+            Assert.assertSame(identityMap, IdentityMap.current());
+        }
+        Assert.assertNull(IdentityMap.current());
+    }
+
+    @Test
+    public void join() {
+        try (IdentityMap.Scope ignored = IdentityMap.open()) {
+            IdentityMap identityMap = IdentityMap.current();
+            IdentityMap other = CompletableFuture.supplyAsync(() -> {
+                try (IdentityMap.Scope ignored2 = IdentityMap.join(identityMap)) {
+                    return IdentityMap.current();
+                }
+            }).join();
+            Assert.assertSame(identityMap, other);
+        }
+    }
+
+    @Test
+    public void record() {
+        // 记录存放于关联关系中的缓存对象
+        IdentityMap identityMap = new IdentityMap();
+        identityMap.putRecord(String.class, 1L, Collections.singletonMap("id", 1L));
+        Assert.assertEquals(1L, identityMap.getRecord(String.class, 1).get("id"));
+        Assert.assertNull(identityMap.getRecord(String.class, 2));
+        Assert.assertNull(identityMap.getRecord(Integer.class, 1));
+        Assert.assertNull(identityMap.getRecord(String.class, null));
+
+        identityMap.evict(String.class);
+        Assert.assertNull(identityMap.getRecord(String.class, 1));
+
+        identityMap.putRecord(String.class, 1L, Collections.singletonMap("id", 1L));
+        identityMap.putRecord(Integer.class, 1L, Collections.singletonMap("id", 1L));
+        identityMap.evictAll();
+        Assert.assertNull(identityMap.getRecord(String.class, 1));
+        Assert.assertNull(identityMap.getRecord(Integer.class, 1));
+    }
+
+    @Test
+    public void relationCache() {
+        RelationCache relationCache = new RelationCache();
+        relationCache.putRecord(String.class, 1, Collections.singletonMap("id", 1));
+        Assert.assertEquals(1, relationCache.getRecord(String.class, 1L).get("id"));
+        relationCache.evictAll();
+        Assert.assertNull(relationCache.getRecord(String.class, 1L));
+    }
+}
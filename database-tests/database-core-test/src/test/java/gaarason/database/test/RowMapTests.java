@@ -0,0 +1,85 @@
+package gaarason.database.test;
+
+import gaarason.database.support.RowMap;
+import gaarason.database.util.ObjectUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class RowMapTests {
+
+    private final RowMap.Schema schema = new RowMap.Schema(new String[]{"id", "name", "age"});
+
+    @Test
+    public void putAndGet() {
+        RowMap rowMap = new RowMap(schema);
+        Assert.assertTrue(rowMap.isEmpty());
+
+        rowMap.put("id", 1);
+        rowMap.put("name", null);
+        Assert.assertEquals(2, rowMap.size());
+        Assert.assertEquals(1, rowMap.get("id"));
+        Assert.assertTrue(rowMap.containsKey("name"));
+        Assert.assertNull(rowMap.get("name"));
+        Assert.assertFalse(rowMap.containsKey("age"));
+
+        // 列结构之外的键
+        rowMap.put("other", "x");
+        Assert.assertEquals(3, rowMap.size());
+        Assert.assertEquals("x", rowMap.get("other"));
+
+        Map<String, Object> hashMap = new HashMap<>();
+        hashMap.put("id", 1);
+        hashMap.put("name", null);
+        hashMap.put("other", "x");
+        Assert.assertEquals(hashMap, rowMap);
+        Assert.assertEquals(hashMap.hashCode(), rowMap.hashCode());
+    }
+
+    @Test
+    public void removeAndClear() {
+        RowMap rowMap = new RowMap(schema);
+        rowMap.put("id", 1);
+        rowMap.put("age", 18);
+        Assert.assertEquals(18, rowMap.remove("age"));
+        Assert.assertNull(rowMap.remove("age"));
+        Assert.assertEquals(1, rowMap.size());
+
+        Iterator<Map.Entry<String, Object>> iterator = rowMap.entrySet().iterator();
+        Assert.assertEquals("id", iterator.next().getKey());
+        iterator.remove();
+        Assert.assertTrue(rowMap.isEmpty());
+
+        rowMap.put("name", "alice");
+        rowMap.clear();
+        Assert.assertTrue(rowMap.isEmpty());
+    }
+
+    @Test
+    public void copy() {
+        RowMap rowMap = new RowMap(schema);
+        rowMap.put("id", 1);
+        RowMap copy = new RowMap(rowMap);
+        copy.put("id", 2);
+        Assert.assertEquals(1, rowMap.get("id"));
+        Assert.assertEquals(2, copy.get("id"));
+        Assert.assertSame(rowMap.getSchema(), copy.getSchema());
+    }
+
+    @Test
+    public void serializable() {
+        RowMap rowMap = new RowMap(schema);
+        rowMap.put("id", 1);
+        rowMap.put("name", "alice");
+        Map<String, Object> deepCopy = ObjectUtils.deepCopy(rowMap);
+        Assert.assertEquals(rowMap, deepCopy);
+    }
+}
@@ -0,0 +1,45 @@
+package gaarason.database.test;
+
+import gaarason.database.config.GaarasonDatabaseProperties;
+import gaarason.database.exception.InvalidConfigException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assert;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.util.Arrays;
+
+@Slf4j
+@FixMethodOrder(MethodSorters.JVM)
+public class WhereInBucketTests {
+
+    @Test
+    public void bucketSize_默认使用2的幂() {
+        GaarasonDatabaseProperties.WhereIn whereIn = new GaarasonDatabaseProperties.WhereIn();
+        Assert.assertEquals(1, whereIn.bucketSize(1));
+        Assert.assertEquals(16, whereIn.bucketSize(10));
+        Assert.assertEquals(1024, whereIn.bucketSize(1000));
+    }
+
+    @Test
+    public void bucketSize_配置的桶去重并排序() {
+        GaarasonDatabaseProperties.WhereIn whereIn = new GaarasonDatabaseProperties.WhereIn();
+        whereIn.setBucketSizes(Arrays.asList(64, 16, 64, 4));
+        Assert.assertEquals(Arrays.asList(4, 16, 64), whereIn.getBucketSizes());
+        Assert.assertEquals(16, whereIn.bucketSize(10));
+        Assert.assertEquals(64, whereIn.bucketSize(17));
+        Assert.assertEquals(65, whereIn.bucketSize(65));
+
+        // 超过拆分阈值的桶不使用
+        whereIn.setSplitThreshold(32);
+        Assert.assertEquals(20, whereIn.bucketSize(20));
+    }
+
+    @Test
+    public void bucketSize_拒绝非正数() {
+        GaarasonDatabaseProperties.WhereIn whereIn = new GaarasonDatabaseProperties.WhereIn();
+        Assert.assertThrows(InvalidConfigException.class, () -> whereIn.setBucketSizes(Arrays.asList(16, 0)));
+        Assert.assertThrows(InvalidConfigException.class, () -> whereIn.setBucketSizes(Arrays.asList(-1)));
+    }
+}
@@ -1,5 +1,7 @@
 package gaarason.database.test.parent;
 
+import gaarason.database.appointment.OrderBy;
+import gaarason.database.appointment.Summary;
 import gaarason.database.contract.connection.GaarasonDataSource;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
@@ -72,6 +74,41 @@ public void min() {
         Assert.assertEquals(6, age);
     }
 
+    @Test
+    public void summary() {
+        Summary summary = records.summary("age");
+        Assert.assertEquals(10, summary.getCount());
+        Assert.assertEquals(137, summary.getSum().intValue());
+        Assert.assertEquals(6, summary.getMin().intValue());
+        Assert.assertEquals(17, summary.getMax().intValue());
+        Assert.assertEquals(records.avg("age"), summary.getAvg());
+        Assert.assertEquals(records.sum("age").intValue(), summary.getSum().intValue());
+    }
+
+    @Test
+    public void summary_空集合() {
+        RecordList<StudentModel.Entity, Integer> emptyRecords = studentModel.newQuery().where("id", -1).get();
+        Summary summary = emptyRecords.summary("age");
+        Assert.assertEquals(0, summary.getCount());
+        Assert.assertEquals(emptyRecords.sum("age"), summary.getSum());
+        Assert.assertEquals(emptyRecords.max("age"), summary.getMax());
+        Assert.assertEquals(emptyRecords.min("age"), summary.getMin());
+    }
+
+    @Test
+    public void summary_单精度浮点数() {
+        Summary.Accumulator accumulator = new Summary.Accumulator(records.getConversionWorkerFromContainer());
+        accumulator.accept(0.1f);
+        accumulator.accept(0.2f);
+        Summary summary = accumulator.toSummary();
+        Assert.assertEquals(new BigDecimal("0.3"), summary.getSum());
+        Assert.assertEquals(new BigDecimal("0.1"), summary.getMin());
+        Assert.assertEquals(new BigDecimal("0.2"), summary.getMax());
+        // 与 sum() 的类型转化一致
+        Assert.assertEquals(ConverterUtils.cast(0.1f, BigDecimal.class).add(ConverterUtils.cast(0.2f, BigDecimal.class)),
+            summary.getSum());
+    }
+
     @Test
     public void mode() {
         List<Byte> ages = records.mode("age");
@@ -471,6 +508,31 @@ public void sortBy() {
         Assert.assertEquals(11, sortByDescAge.get(6).toObject().getAge().intValue());
     }
 
+    @Test
+    public void sortBy_多个属性() {
+        // 按年龄大到小, 年龄相同时按名称小到大
+        Map<String, OrderBy> fieldOrderMap = new LinkedHashMap<>();
+        fieldOrderMap.put("age", OrderBy.DESC);
+        fieldOrderMap.put("name", OrderBy.ASC);
+        List<Record<StudentModel.Entity, Integer>> sorted = records.sortBy(fieldOrderMap);
+        Assert.assertEquals(10, sorted.size());
+        for (int i = 1; i < sorted.size(); i++) {
+            StudentModel.Entity previous = sorted.get(i - 1).toObject();
+            StudentModel.Entity current = sorted.get(i).toObject();
+            Assert.assertTrue(previous.getAge() >= current.getAge());
+            if (previous.getAge().equals(current.getAge())) {
+                Assert.assertTrue(previous.getName().compareTo(current.getName()) <= 0);
+            }
+        }
+
+        // 按名称排序
+        List<Record<StudentModel.Entity, Integer>> sortByName = records.sortBy(StudentModel.Entity::getName,
+            OrderBy.ASC);
+        List<Record<StudentModel.Entity, Integer>> sortWith = records.sortWith(
+            Comparator.comparing(theRecord -> theRecord.toObject().getName()));
+        Assert.assertEquals(sortWith, sortByName);
+    }
+
     @Test
     public void splice() {
         List<Record<StudentModel.Entity, Integer>> records1 = records.splice(8);
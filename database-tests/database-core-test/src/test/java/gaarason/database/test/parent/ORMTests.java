@@ -1925,5 +1925,61 @@ public void detach_BelongsTo_ALL() {
 
     }
 
+    @Test
+    public void 实体延迟生成() {
+        Record<Teacher, Long> record = teacherModel.findOrFail(1);
+        // 实体尚未生成时, 主键值已可用
+        Object primaryKeyValue = record.getOriginalPrimaryKeyValue();
+        Assert.assertEquals(1, ((Number) primaryKeyValue).intValue());
+
+        // 首次使用时生成, 之后保持同一对象
+        Teacher entity = record.getEntity();
+        Assert.assertSame(entity, record.getEntity());
+        Assert.assertEquals("张淑明", entity.getName());
+
+        // 保存后, 实体的引用不变
+        entity.setAge(33);
+        Assert.assertTrue(record.save());
+        Assert.assertSame(entity, record.getEntity());
+        Assert.assertEquals(33, teacherModel.findOrFail(1).toObject().getAge().intValue());
+
+        // 批量查询的结果, 按各自的元数据生成
+        List<Teacher> teachers = teacherModel.newQuery().whereIn("id", 1, 2).orderBy("id").get().toObjectList();
+        Assert.assertEquals(2, teachers.size());
+        Assert.assertEquals(1, teachers.get(0).getId().intValue());
+        Assert.assertEquals(33, teachers.get(0).getAge().intValue());
+        Assert.assertEquals(2, teachers.get(1).getId().intValue());
+    }
+
+    @Test
+    public void 检查属性变化_直接修改元数据() {
+        Record<Teacher, Long> teacherRecord = teacherModel.findOrFail(1);
+        Assert.assertFalse(teacherRecord.wasChanged());
+
+        // 通过 getMetadataMap 直接修改元数据, 历史元数据不受影响
+        teacherRecord.getMetadataMap().put("name", "元数据的新名字");
+        Assert.assertTrue(teacherRecord.wasChanged());
+        Assert.assertTrue(teacherRecord.wasChanged(Teacher::getName));
+        Assert.assertFalse(teacherRecord.wasChanged(Teacher::getAge));
+        Assert.assertEquals("张淑明", teacherRecord.getOriginal(Teacher::getName));
+        Assert.assertEquals("张淑明", teacherRecord.getOriginal().getName());
+
+        // 通过 entry 修改
+        Record<Teacher, Long> record = teacherModel.findOrFail(1);
+        for (Map.Entry<String, Object> entry : record.getMetadataMap().entrySet()) {
+            if ("age".equals(entry.getKey())) {
+                entry.setValue(99);
+            }
+        }
+        Assert.assertTrue(record.wasChanged(Teacher::getAge));
+        Assert.assertEquals(22, ((Number) record.getOriginal(Teacher::getAge)).intValue());
+
+        // 删除
+        Record<Teacher, Long> removedRecord = teacherModel.findOrFail(1);
+        removedRecord.getMetadataMap().remove("name");
+        Assert.assertTrue(removedRecord.wasChanged(Teacher::getName));
+        Assert.assertEquals("张淑明", removedRecord.getOriginal(Teacher::getName));
+    }
+
 
 }
@@ -1,15 +1,20 @@
 package gaarason.database.test.parent;
 
+import gaarason.database.appointment.CursorPaginate;
 import gaarason.database.appointment.JoinType;
 import gaarason.database.appointment.OrderBy;
 import gaarason.database.appointment.Paginate;
+import gaarason.database.appointment.SqlType;
 import gaarason.database.contract.connection.GaarasonDataSource;
 import gaarason.database.contract.eloquent.Builder;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.query.QueryTemplate;
 import gaarason.database.contract.support.ShowType;
+import gaarason.database.exception.AbnormalParameterException;
 import gaarason.database.exception.ConfirmOperationException;
 import gaarason.database.exception.EntityNotFoundException;
+import gaarason.database.support.RecordFactory;
 import gaarason.database.test.config.MySqlBuilderV2;
 import gaarason.database.test.models.normal.StudentCombination;
 import gaarason.database.test.models.normal.StudentModel;
@@ -28,6 +33,8 @@
 import java.text.SimpleDateFormat;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @FixMethodOrder(MethodSorters.JVM)
@@ -273,6 +280,49 @@ protected List<TABLE> getInitTables() {
 
     }
 
+    @Test
+    public void 新增_超出参数数量限制时自动拆分() {
+        List<String> columnNameList = Arrays.asList("name", "age", "sex");
+        List<List<Object>> valuesList = new ArrayList<>();
+        // 3 * 30000 个参数, 超出单条语句的参数数量限制
+        for (int i = 0; i < 30000; i++) {
+            valuesList.add(Arrays.asList("split" + i, 11, 1));
+        }
+        List<Integer> ids = studentModel.newQuery().column(columnNameList).values(valuesList).insertGetIds();
+        Assert.assertEquals(valuesList.size(), ids.size());
+        for (int i = 1; i < ids.size(); i++) {
+            Assert.assertTrue(ids.get(i) > ids.get(i - 1));
+        }
+        Assert.assertEquals("split0", studentModel.findOrFail(ids.get(0)).toObject().getName());
+        Assert.assertEquals("split29999", studentModel.findOrFail(ids.get(29999)).toObject().getName());
+
+        int rows = studentModel.newQuery().column(columnNameList).values(valuesList).insert();
+        Assert.assertEquals(valuesList.size(), rows);
+    }
+
+    @Test
+    public void 新增_参数数量恰好达到限制时的拆分() {
+        List<String> columnNameList = Arrays.asList("name", "age", "sex");
+        // mysql 单条语句最多 65535 个参数, 每行 3 个参数, 21845 行恰好达到限制
+        int maxRows = 65535 / 3;
+        List<List<Object>> valuesList = new ArrayList<>();
+        for (int i = 0; i < maxRows; i++) {
+            valuesList.add(Arrays.asList("boundary" + i, 11, 1));
+        }
+        // 恰好达到限制, 不拆分
+        List<Integer> ids = studentModel.newQuery().column(columnNameList).values(valuesList).insertGetIds();
+        Assert.assertEquals(maxRows, ids.size());
+        Assert.assertEquals("boundary" + (maxRows - 1),
+            studentModel.findOrFail(ids.get(maxRows - 1)).toObject().getName());
+
+        // 超出 1 行, 拆分为 2 条语句, 第二条语句仅包含最后 1 行
+        valuesList.add(Arrays.asList("boundary" + maxRows, 11, 1));
+        ids = studentModel.newQuery().column(columnNameList).values(valuesList).insertGetIds();
+        Assert.assertEquals(maxRows + 1, ids.size());
+        Assert.assertTrue(ids.get(maxRows) > ids.get(maxRows - 1));
+        Assert.assertEquals("boundary" + maxRows, studentModel.findOrFail(ids.get(maxRows)).toObject().getName());
+    }
+
     @Test
     public void 更新_普通更新_data() {
         int update = studentModel.newQuery().data("name", "xxcc").where("id", "3").update();
@@ -576,6 +626,35 @@ protected List<TABLE> getInitTables() {
         });
     }
 
+    @Test
+    public void 查询_不同列结构的读取计划() {
+        // 列数相同, 列名不同
+        Map<String, Object> nameMap = studentModel.newQuery().select("id", "name").where("id", 1).firstOrFail()
+            .getMetadataMap();
+        Map<String, Object> ageMap = studentModel.newQuery().select("id", "age").where("id", 1).firstOrFail()
+            .getMetadataMap();
+        Assert.assertEquals(new HashSet<>(Arrays.asList("id", "name")), nameMap.keySet());
+        Assert.assertEquals("小明", nameMap.get("name"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("id", "age")), ageMap.keySet());
+        Assert.assertEquals(6, ((Number) ageMap.get("age")).intValue());
+
+        // 列名中包含逗号, 不与拆分后的列结构混淆
+        Map<String, Object> commaMap = studentModel.newQuery().selectRaw("`name` as `x,y`").where("id", 1)
+            .firstOrFail().getMetadataMap();
+        Map<String, Object> splitMap = studentModel.newQuery().selectRaw("`name` as `x`, `age` as `y`")
+            .where("id", 1).firstOrFail().getMetadataMap();
+        Assert.assertEquals(Collections.singleton("x,y"), commaMap.keySet());
+        Assert.assertEquals("小明", commaMap.get("x,y"));
+        Assert.assertEquals("小明", splitMap.get("x"));
+        Assert.assertEquals(6, ((Number) splitMap.get("y")).intValue());
+
+        // 重复的列名, 仅读取第一次出现的列
+        StudentModel.Entity entity = studentModel.newQuery().selectRaw("`name`, `id`, `teacher_id` as `name`")
+            .where("id", 1).firstOrFail().toObject();
+        Assert.assertEquals("小明", entity.getName());
+        Assert.assertEquals(1, entity.getId().intValue());
+    }
+
     @Test
     public void 查询_多条记录() throws InterruptedException {
         MultiThreadUtil.run(10, 10, () -> {
@@ -704,6 +783,105 @@ protected List<TABLE> getInitTables() {
         });
     }
 
+    @Test
+    public void 查询_多条记录_流式() {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Record<StudentModel.Entity, Integer>> stream = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .cursor()) {
+            stream.map(Record::getEntity).forEach(entity -> ids.add(entity.getId()));
+        }
+        Assert.assertEquals(8, ids.size());
+        Assert.assertEquals(3, ids.get(0).intValue());
+        Assert.assertEquals(10, ids.get(7).intValue());
+
+        // 流关闭后, 连接已归还, 可以继续查询
+        try (Stream<Record<StudentModel.Entity, Integer>> stream = studentModel.newQuery().stream(2)) {
+            Assert.assertEquals(10, stream.count());
+        }
+        Assert.assertEquals(10, studentModel.newQuery().count("id").intValue());
+    }
+
+    @Test
+    public void 查询_多条记录_流式_对象以及map() {
+        List<StudentModel.Entity> expected = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        try (Stream<StudentModel.Entity> stream = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .cursorAs(StudentModel.Entity.class)) {
+            Assert.assertEquals(expected, stream.collect(Collectors.toList()));
+        }
+
+        List<Map<String, Object>> expectedMaps = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .get()
+            .toMapList();
+        try (Stream<Map<String, Object>> stream = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .streamMap(2)) {
+            Assert.assertEquals(expectedMaps, stream.collect(Collectors.toList()));
+        }
+        Assert.assertEquals(10, studentModel.newQuery().count("id").intValue());
+    }
+
+    @Test
+    public void 查询_多条记录_直接转化为对象() {
+        List<StudentModel.Entity> entities = studentModel.newQuery().where("id", ">", 2).orderBy("id").getObjects();
+        List<StudentModel.Entity> expected = studentModel.newQuery()
+            .where("id", ">", 2)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        Assert.assertEquals(expected, entities);
+        Assert.assertEquals(8, entities.size());
+
+        StudentModel.Entity entity = studentModel.newQuery().where("id", 3).firstObject();
+        Assert.assertNotNull(entity);
+        Assert.assertEquals(3, entity.getId().intValue());
+        Assert.assertNull(studentModel.newQuery().where("id", 999).firstObject());
+    }
+
+    @Test
+    public void 查询_单列_直接读取() {
+        long[] ids = studentModel.newQuery().where("id", ">", 2).orderBy("id").pluckLongs("id");
+        Assert.assertEquals(8, ids.length);
+        Assert.assertEquals(3, ids[0]);
+        Assert.assertEquals(10, ids[7]);
+
+        int[] intIds = studentModel.newQuery().select("name").orderBy("id").pluckInts("id");
+        Assert.assertEquals(10, intIds.length);
+        Assert.assertEquals(1, intIds[0]);
+
+        double[] ages = studentModel.newQuery().where("id", 1).pluckDoubles("age");
+        Assert.assertEquals(1, ages.length);
+
+        List<String> names = studentModel.newQuery().orderBy("id").pluckStrings("name");
+        List<Object> expected = studentModel.newQuery().select("name").orderBy("id").get().toOneColumnList();
+        Assert.assertEquals(expected, new ArrayList<Object>(names));
+
+        List<Integer> teacherIds = studentModel.newQuery().orderBy("id").pluck("teacher_id", Integer.class);
+        Assert.assertEquals(10, teacherIds.size());
+        Assert.assertTrue(studentModel.newQuery().where("id", 999).pluck("id", Long.class).isEmpty());
+    }
+
+    @Test
+    public void 查询_单列_直接读取时跳过null() {
+        String sql = "select null union all select 3 union all select 0";
+        Assert.assertArrayEquals(new long[]{3, 0},
+            studentModel.nativeQueryResultSet(sql, Collections.emptyList(), RecordFactory::newLongArray));
+        Assert.assertArrayEquals(new int[]{3, 0},
+            studentModel.nativeQueryResultSet(sql, Collections.emptyList(), RecordFactory::newIntArray));
+        Assert.assertArrayEquals(new double[]{3, 0},
+            studentModel.nativeQueryResultSet(sql, Collections.emptyList(), RecordFactory::newDoubleArray), 0);
+    }
+
     @Test
     public void 查询_调用mysql中的其他函数() {
         Record<StudentModel.Entity, Integer> entityRecord = studentModel.newQuery()
@@ -788,6 +966,46 @@ protected List<TABLE> getInitTables() {
         Assert.assertEquals(count04.longValue(), 2);
     }
 
+    @Test
+    public void 查询_聚合函数_count_移除排序() {
+        // select count(*) as 'eUTIdN' from `student` where `sex`="1" limit 1
+        Long count0 = studentModel.newQuery().select("name").where("sex", "1").orderBy("age").count();
+        Assert.assertEquals(count0.intValue(), 6);
+
+        // select count(*) as 'HXXFaq' from (select `sex` from `student` group by `sex`)HXXFaqsub limit 1
+        Long count1 = studentModel.newQuery().group("sex").orderBy("sex").count();
+        Assert.assertEquals(count1.intValue(), 2);
+
+        // select count(*) as 'WxQoZy' from (select distinct `age` from `student`)WxQoZysub limit 1
+        Long count2 = studentModel.newQuery().selectRaw("distinct `age`").orderBy("age").count();
+        Assert.assertEquals(count2.intValue(), 5);
+
+        // select count(*) as 'pLdXsa' from ((select * from `student` where `id`<"3")union(select * from `student` where `id`>"8"))pLdXsasub limit 1
+        Long count3 = studentModel.newQuery()
+            .where("id", "<", "3")
+            .union(builder -> builder.where("id", ">", "8"))
+            .count();
+        Assert.assertEquals(count3.intValue(), 4);
+    }
+
+    @Test
+    public void 查询_exists() {
+        // select 1 from `student` where `sex`="1" limit 1
+        Assert.assertTrue(studentModel.newQuery().where("sex", "1").orderBy("age").exists());
+        Assert.assertFalse(studentModel.newQuery().where("sex", "1").doesntExist());
+
+        Assert.assertFalse(studentModel.newQuery().where("sex", "3").exists());
+        Assert.assertTrue(studentModel.newQuery().where("sex", "3").doesntExist());
+
+        // select 1 from (select `sex` from `student` group by `sex` having count(*)>"5")sub limit 1
+        Assert.assertTrue(studentModel.newQuery().select("sex").group("sex").havingRaw("count(*)>5").exists());
+        Assert.assertFalse(studentModel.newQuery().select("sex").group("sex").havingRaw("count(*)>6").exists());
+
+        // 保留原有的分页范围
+        Assert.assertTrue(studentModel.newQuery().orderBy("id").limit(9, 1).exists());
+        Assert.assertFalse(studentModel.newQuery().orderBy("id").limit(10, 1).exists());
+    }
+
     @Test
     public void 查询_聚合函数_max_带group() {
         // 以下为手动
@@ -1156,6 +1374,28 @@ protected List<TABLE> getInitTables() {
         Assert.assertEquals(entityList3.size(), 3);
     }
 
+    @Test
+    public void 条件_whereIn_分桶() {
+        // 3 个参数补齐为 4 个
+        Builder<?, StudentModel.Entity, Integer> builder = studentModel.newQuery()
+            .whereInBucketing(true)
+            .whereIn("id", 1, 2, 3);
+        Assert.assertEquals(4, builder.prepareTemplate().getParameterCount());
+        Assert.assertEquals(3, builder.get().size());
+
+        // not in
+        Assert.assertEquals(7,
+            studentModel.newQuery().whereInBucketing(true).whereNotIn("id", 1, 2, 3).get().size());
+
+        // 超过拆分阈值, 拆分为多组
+        List<Object> idList = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            idList.add(i);
+        }
+        Assert.assertEquals(10, studentModel.newQuery().whereInBucketing(true).whereIn("id", idList).get().size());
+        Assert.assertEquals(0, studentModel.newQuery().whereInBucketing(true).whereNotIn("id", idList).get().size());
+    }
+
     @Test
     public void 条件_whereInIgnoreEmpty() {
         List<Object> idList = new ArrayList<>();
@@ -2634,6 +2874,67 @@ public void lastRaw() {
         Assert.assertEquals(paginate4.getTotal().intValue(), 10);
     }
 
+    @Test
+    public void 分页_游标分页() {
+        List<Integer> expected = studentModel.newQuery()
+            .where("sex", "1")
+            .orWhere(builder -> builder.where("sex", "2"))
+            .orderBy("age", OrderBy.DESC)
+            .orderBy("id")
+            .get()
+            .toObjectList()
+            .stream()
+            .map(StudentModel.Entity::getId)
+            .collect(Collectors.toList());
+        Assert.assertEquals(10, expected.size());
+
+        // 向后翻页
+        List<Integer> actual = new ArrayList<>();
+        List<String> previousCursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPaginate<StudentModel.Entity> paginate = studentModel.newQuery()
+                .where("sex", "1")
+                .orWhere(builder -> builder.where("sex", "2"))
+                .orderBy("age", OrderBy.DESC)
+                .cursorPaginate(3, cursor);
+            Assert.assertTrue(paginate.getItemList().size() <= 3);
+            paginate.getItemList().forEach(entity -> actual.add(entity.getId()));
+            previousCursors.add(paginate.getPreviousCursor());
+            cursor = paginate.getNextCursor();
+        } while (cursor != null);
+        Assert.assertEquals(expected, actual);
+        Assert.assertNull(previousCursors.get(0));
+
+        // 向前翻页, 回到第一页
+        CursorPaginate<StudentModel.Entity> previous = studentModel.newQuery()
+            .where("sex", "1")
+            .orWhere(builder -> builder.where("sex", "2"))
+            .orderBy("age", OrderBy.DESC)
+            .cursorPaginate(3, previousCursors.get(1));
+        Assert.assertEquals(expected.subList(0, 3),
+            previous.getItemList().stream().map(StudentModel.Entity::getId).collect(Collectors.toList()));
+        Assert.assertNull(previous.getPreviousCursor());
+        Assert.assertNotNull(previous.getNextCursor());
+
+        Assert.assertThrows(AbnormalParameterException.class,
+            () -> studentModel.newQuery().orderByRaw("rand()").cursorPaginate(3, null));
+    }
+
+    @Test
+    public void 分页_游标分页_排序列不在查询列中() {
+        Assert.assertThrows(AbnormalParameterException.class,
+            () -> studentModel.newQuery().select("id", "name").orderBy("age").cursorPaginate(3, null));
+    }
+
+    @Test
+    public void 分页_游标分页_排序列的值为null() {
+        Assert.assertThrows(AbnormalParameterException.class, () -> studentModel.newQuery()
+            .selectRaw("`id`, null as `age`")
+            .orderBy("age")
+            .cursorPaginate(3, null));
+    }
+
     @Test
     public void 分页_自定义查询字段_mapStyle() {
         // 自定义查询字段, 不带group
@@ -2731,6 +3032,92 @@ public void lastRaw() {
         });
     }
 
+    @Test
+    public void 原生_批量执行() {
+        List<List<Object>> parametersList = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            parametersList.add(Arrays.asList("batch" + i, i));
+        }
+        int[] counts = studentModel.newQuery()
+            .executeBatch("update `student` set `name` = ? where `id` = ? ", parametersList, 2);
+        Assert.assertEquals(5, counts.length);
+        Assert.assertEquals("batch5", studentModel.findOrFail(5).toObject().getName());
+        Assert.assertEquals("batch1", studentModel.findOrFail(1).toObject().getName());
+
+        List<List<Object>> insertParametersList = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            insertParametersList.add(Arrays.asList("batchInsert", 11));
+        }
+        List<Integer> ids = studentModel.newQuery()
+            .executeBatchGetIds("insert into `student`(`name`,`age`) values( ? , ? )", insertParametersList, 2);
+        Assert.assertEquals(3, ids.size());
+        Assert.assertEquals(3, studentModel.newQuery().whereIn("id", ids).count().intValue());
+    }
+
+    @Test
+    public void 批量执行_由构造器生成语句() {
+        List<StudentModel.Entity> entityList = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            StudentModel.Entity entity = new StudentModel.Entity();
+            entity.setName("batchEntity" + i);
+            entity.setAge(Byte.valueOf("13"));
+            entity.setSex(Byte.valueOf("1"));
+            entity.setTeacherId(i);
+            entity.setCreatedAt(new Date());
+            entity.setUpdatedAt(new Date());
+            entityList.add(entity);
+        }
+        int[] counts = studentModel.newQuery().values(entityList).insertBatch(2);
+        Assert.assertEquals(5, counts.length);
+        Assert.assertEquals(5, studentModel.newQuery().where("name", "like", "batchEntity%").count().intValue());
+
+        List<Integer> ids = studentModel.newQuery().values(entityList.subList(0, 3)).insertBatchGetIds(2);
+        Assert.assertEquals(3, ids.size());
+        Assert.assertEquals("batchEntity2", studentModel.findOrFail(ids.get(2)).toObject().getName());
+
+        List<List<Object>> parametersList = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            parametersList.add(Arrays.asList("batchUpdate" + i, i));
+        }
+        int[] updateCounts = studentModel.newQuery().data("name", "").where("id", 0).updateBatch(parametersList, 2);
+        Assert.assertEquals(5, updateCounts.length);
+        Assert.assertEquals("batchUpdate1", studentModel.findOrFail(1).toObject().getName());
+        Assert.assertEquals("batchUpdate5", studentModel.findOrFail(5).toObject().getName());
+
+        Assert.assertThrows(AbnormalParameterException.class, () -> studentModel.newQuery()
+            .data("name", "")
+            .where("id", 0)
+            .updateBatch(Collections.singletonList(Collections.singletonList("x")), 2));
+        Assert.assertThrows(AbnormalParameterException.class,
+            () -> studentModel.newQuery().values(builder -> builder.select("name")).insertBatch(2));
+    }
+
+    @Test
+    public void 查询模板_重新绑定参数() {
+        QueryTemplate<StudentModel.Entity, Integer> template = studentModel.newQuery()
+            .where("sex", 0)
+            .whereIn("id", Arrays.asList(0, 0, 0))
+            .orderBy("id")
+            .prepareTemplate();
+        Assert.assertEquals(4, template.getParameterCount());
+
+        RecordList<StudentModel.Entity, Integer> records = template.get(1, 1, 2, 3);
+        Assert.assertEquals(studentModel.newQuery().where("sex", 1).whereIn("id", 1, 2, 3).count().intValue(),
+            records.size());
+        Record<StudentModel.Entity, Integer> record = template.first(2, 4, 5, 6);
+        Assert.assertNotNull(record);
+        Assert.assertEquals(2, record.toObject().getSex().intValue());
+
+        Assert.assertThrows(AbnormalParameterException.class, () -> template.get(1, 2));
+
+        QueryTemplate<StudentModel.Entity, Integer> updateTemplate = studentModel.newQuery()
+            .data("name", "")
+            .where("id", 0)
+            .prepareTemplate(SqlType.UPDATE);
+        Assert.assertEquals(1, updateTemplate.execute("template", 3));
+        Assert.assertEquals("template", studentModel.findOrFail(3).toObject().getName());
+    }
+
     @Test
     public void 子查询_from() {
         // select count(*) as 'ccc' from (select `sex` from `student` group by `sex`)t
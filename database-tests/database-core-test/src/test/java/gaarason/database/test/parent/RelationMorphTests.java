@@ -15,7 +15,9 @@
 import org.junit.runners.MethodSorters;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Slf4j
 @FixMethodOrder(MethodSorters.JVM)
@@ -454,4 +456,49 @@ protected List<TABLE> getInitTables() {
         Assert.assertEquals(2, comments.get(0).getId().intValue());
         Assert.assertEquals(3, comments.get(1).getId().intValue());
     }
+
+    @Test
+    public void 多态_预加载与逐个查询一致() {
+        List<Post> posts = postModel.newQuery()
+            .with(Post::getComments)
+            .with(Post::getImagesWithMorph)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        Assert.assertFalse(posts.isEmpty());
+        for (Post post : posts) {
+            Set<Long> expectedCommentIds = new HashSet<>(commentModel.newQuery()
+                .where("p_type", "post")
+                .where("p_id", post.getId())
+                .get()
+                .toList(e -> e.toObject().getId()));
+            Set<Long> commentIds = new HashSet<>();
+            post.getComments().forEach(comment -> commentIds.add(comment.getId()));
+            Assert.assertEquals(expectedCommentIds, commentIds);
+
+            Set<Long> expectedImageIds = new HashSet<>();
+            for (SuperRelation relation : superRelationModel.newQuery()
+                .where("relation_one_type", "post")
+                .where("relation_one_value", post.getId())
+                .where("relation_two_type", "image")
+                .get()
+                .toObjectList()) {
+                if (imageModel.newQuery().where("id", relation.getRelationTwoValue()).first() != null) {
+                    expectedImageIds.add(relation.getRelationTwoValue());
+                }
+            }
+            Set<Long> imageIds = new HashSet<>();
+            post.getImagesWithMorph().forEach(image -> imageIds.add(image.getId()));
+            Assert.assertEquals(expectedImageIds, imageIds);
+        }
+
+        List<Comment> comments = commentModel.newQuery().with(Comment::getPost).orderBy("id").get().toObjectList();
+        Assert.assertFalse(comments.isEmpty());
+        for (Comment comment : comments) {
+            Record<Post, Long> postRecord = "post".equals(comment.getPType()) ?
+                postModel.newQuery().where("id", comment.getPId()).first() : null;
+            Assert.assertEquals(postRecord == null ? null : postRecord.toObject().getId(),
+                comment.getPost() == null ? null : comment.getPost().getId());
+        }
+    }
 }
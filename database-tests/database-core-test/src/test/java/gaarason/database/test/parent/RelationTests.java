@@ -1,11 +1,18 @@
 package gaarason.database.test.parent;
 
 import gaarason.database.appointment.OrderBy;
+import gaarason.database.config.GaarasonDatabaseProperties;
 import gaarason.database.appointment.Paginate;
+import gaarason.database.appointment.IdentityMap;
 import gaarason.database.contract.connection.GaarasonDataSource;
 import gaarason.database.contract.eloquent.Record;
 import gaarason.database.contract.eloquent.RecordList;
+import gaarason.database.contract.eloquent.relation.RelationSubQuery;
+import gaarason.database.contract.function.BuilderAnyWrapper;
+import gaarason.database.contract.function.RecordWrapper;
 import gaarason.database.contract.support.ShowType;
+import gaarason.database.exception.OperationNotSupportedException;
+import gaarason.database.provider.ModelShadowProvider;
 import gaarason.database.test.config.MySqlBuilderV2;
 import gaarason.database.test.models.relation.model.RelationshipStudentTeacherModel;
 import gaarason.database.test.models.relation.model.StudentModel;
@@ -207,6 +214,518 @@ protected List<TABLE> getInitTables() {
     }
 
 
+    @Test
+    public void 同级关系_并发查询() {
+        GaarasonDatabaseProperties.Relation relationConfig = studentModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(GaarasonDatabaseProperties.class)
+            .getRelation();
+        List<Student> expected = studentModel.newQuery()
+            .with("teacher", builder -> builder, record -> record.with("students"))
+            .with(Student::getTeachersBelongsToMany)
+            .with(Student::getRelationshipStudentTeachers)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+
+        relationConfig.setParallel(true);
+        relationConfig.setParallelism(2);
+        try {
+            List<Student> students = studentModel.newQuery()
+                .with("teacher", builder -> builder, record -> record.with("students"))
+                .with(Student::getTeachersBelongsToMany)
+                .with(Student::getRelationshipStudentTeachers)
+                .orderBy("id")
+                .get()
+                .toObjectList();
+            Assert.assertEquals(expected.toString(), students.toString());
+            Assert.assertEquals(6, students.get(0).getTeacher().getId().intValue());
+            Assert.assertNotNull(students.get(0).getTeacher().getStudents());
+
+            // 事务中串行执行
+            Student student = studentModel.newQuery().transaction(() -> studentModel.findOrFail(2)
+                .with(Student::getTeachersBelongsToMany)
+                .with(Student::getRelationshipStudentTeachers)
+                .toObject());
+            Assert.assertEquals(2, student.getTeachersBelongsToMany().size());
+            Assert.assertEquals(2, student.getRelationshipStudentTeachers().size());
+        } finally {
+            relationConfig.setParallel(false);
+            relationConfig.setParallelism(4);
+        }
+    }
+
+    @Test
+    public void 关联关系_分块查询() {
+        GaarasonDatabaseProperties.Relation relationConfig = studentModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(GaarasonDatabaseProperties.class)
+            .getRelation();
+        List<Teacher> expectedTeachers = teacherModel.newQuery()
+            .with(Teacher::getStudents)
+            .with(Teacher::getStudentsBelongsToMany)
+            .withCount(Teacher::getStudents)
+            .withCount(Teacher::getStudentsBelongsToMany)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        List<Student> expectedStudents = studentModel.newQuery()
+            .with("teacher")
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        List<Teacher> expectedOrderedTeachers = teacherModel.newQuery()
+            .with(Teacher::getStudentsBelongsToMany, builder -> builder.orderBy("id", OrderBy.DESC).limit(5))
+            .orderBy("id")
+            .get()
+            .toObjectList();
+
+        relationConfig.setChunkSize(2);
+        try {
+            List<Teacher> teachers = teacherModel.newQuery()
+                .with(Teacher::getStudents)
+                .with(Teacher::getStudentsBelongsToMany)
+                .withCount(Teacher::getStudents)
+                .withCount(Teacher::getStudentsBelongsToMany)
+                .orderBy("id")
+                .get()
+                .toObjectList();
+            Assert.assertEquals(expectedTeachers.toString(), teachers.toString());
+
+            List<Student> students = studentModel.newQuery().with("teacher").orderBy("id").get().toObjectList();
+            Assert.assertEquals(expectedStudents.toString(), students.toString());
+
+            // 自定义查询中存在排序以及数量限制时, 不分块
+            List<Teacher> orderedTeachers = teacherModel.newQuery()
+                .with(Teacher::getStudentsBelongsToMany, builder -> builder.orderBy("id", OrderBy.DESC).limit(5))
+                .orderBy("id")
+                .get()
+                .toObjectList();
+            Assert.assertEquals(expectedOrderedTeachers.toString(), orderedTeachers.toString());
+
+            // 分块时, 查询构造器包装仅执行一次
+            int[] executed = {0};
+            List<Teacher> teachers1 = teacherModel.newQuery()
+                .with(Teacher::getStudents, builder -> {
+                    executed[0]++;
+                    return builder;
+                })
+                .orderBy("id")
+                .get()
+                .toObjectList();
+            Assert.assertEquals(1, executed[0]);
+            for (int i = 0; i < teachers1.size(); i++) {
+                Assert.assertEquals(expectedTeachers.get(i).getStudents().toString(),
+                    teachers1.get(i).getStudents().toString());
+            }
+
+            // 分块并发查询
+            relationConfig.setParallel(true);
+            List<Teacher> teachers2 = teacherModel.newQuery()
+                .with(Teacher::getStudents)
+                .with(Teacher::getStudentsBelongsToMany)
+                .withCount(Teacher::getStudents)
+                .withCount(Teacher::getStudentsBelongsToMany)
+                .orderBy("id")
+                .get()
+                .toObjectList();
+            Assert.assertEquals(expectedTeachers.toString(), teachers2.toString());
+        } finally {
+            relationConfig.setChunkSize(0);
+            relationConfig.setParallel(false);
+        }
+    }
+
+    @Test
+    public void 关联关系_索引键类型() {
+        RelationSubQuery relationSubQuery = teacherModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(teacherModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("students")
+            .getRelationSubQuery();
+        RecordList<Student, Long> studentRecords = studentModel.newQuery().where("teacher_id", 6).get();
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(studentRecords,
+            studentRecords.toObjectList());
+        Assert.assertFalse(studentRecords.isEmpty());
+
+        // 关系键的值为不同的整数类型时, 依然可以匹配
+        Record<Teacher, Long> teacherRecord = teacherModel.findOrFail(6);
+        teacherRecord.getMetadataMap().put("id", 6);
+        Assert.assertEquals(studentRecords.size(), relationSubQuery.filterBatchRecord(teacherRecord, index).size());
+        teacherRecord.getMetadataMap().put("id", 6L);
+        Assert.assertEquals(studentRecords.size(), relationSubQuery.filterBatchRecord(teacherRecord, index).size());
+        teacherRecord.getMetadataMap().put("id", 7);
+        Assert.assertTrue(relationSubQuery.filterBatchRecord(teacherRecord, index).isEmpty());
+    }
+
+    @Test
+    public void 关联关系_索引键类型_belongsTo() {
+        RelationSubQuery relationSubQuery = studentModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(studentModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("teacher")
+            .getRelationSubQuery();
+        RecordList<Teacher, Long> teacherRecords = teacherModel.newQuery().where("id", 6).get();
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(teacherRecords,
+            teacherRecords.toObjectList());
+        Assert.assertEquals(1, teacherRecords.size());
+
+        // 关系键的值为不同的整数类型时, 依然可以匹配
+        Record<Student, Long> studentRecord = studentModel.newQuery().where("teacher_id", 6).firstOrFail();
+        studentRecord.getMetadataMap().put("teacher_id", 6);
+        Assert.assertEquals(1, relationSubQuery.filterBatchRecord(studentRecord, index).size());
+        studentRecord.getMetadataMap().put("teacher_id", 6L);
+        Assert.assertEquals(1, relationSubQuery.filterBatchRecord(studentRecord, index).size());
+        studentRecord.getMetadataMap().put("teacher_id", (byte) 6);
+        Assert.assertEquals(1, relationSubQuery.filterBatchRecord(studentRecord, index).size());
+        studentRecord.getMetadataMap().put("teacher_id", 0);
+        Assert.assertTrue(relationSubQuery.filterBatchRecord(studentRecord, index).isEmpty());
+    }
+
+    @Test
+    public void 关联关系_索引键类型_belongsToMany() {
+        RelationSubQuery relationSubQuery = teacherModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(teacherModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("studentsBelongsToMany")
+            .getRelationSubQuery();
+        RecordList<Teacher, Long> teacherRecords = teacherModel.newQuery().where("id", 6).get();
+        RecordList<?, ?> studentRecords = relationSubQuery.dealBatch(teacherRecords.getMetadata(),
+            BuilderAnyWrapper.empty(), BuilderAnyWrapper.empty());
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(studentRecords,
+            studentRecords.toObjectList());
+
+        int expected = teacherModel.newQuery()
+            .where("id", 6)
+            .with("studentsBelongsToMany")
+            .firstOrFail()
+            .toObject()
+            .getStudentsBelongsToMany()
+            .size();
+        Assert.assertTrue(expected > 0);
+
+        // 关系键的值为不同的整数类型时, 依然可以匹配
+        Record<Teacher, Long> teacherRecord = teacherRecords.get(0);
+        teacherRecord.getMetadataMap().put("id", 6);
+        Assert.assertEquals(expected, relationSubQuery.filterBatchRecord(teacherRecord, index).size());
+        teacherRecord.getMetadataMap().put("id", 6L);
+        Assert.assertEquals(expected, relationSubQuery.filterBatchRecord(teacherRecord, index).size());
+        teacherRecord.getMetadataMap().put("id", 0);
+        Assert.assertTrue(relationSubQuery.filterBatchRecord(teacherRecord, index).isEmpty());
+    }
+
+    @Test
+    public void 关联关系_索引与逐个比对一致_hasOneOrMany() {
+        RelationSubQuery relationSubQuery = teacherModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(teacherModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("students")
+            .getRelationSubQuery();
+        RecordList<Student, Long> studentRecords = studentModel.newQuery().orderBy("id").get();
+        List<Student> students = studentRecords.toObjectList();
+        // 外键为 null 的对象, 不与任何记录匹配
+        students.get(0).setTeacherId(null);
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(studentRecords, students);
+
+        for (Record<Teacher, Long> teacherRecord : teacherModel.newQuery().orderBy("id").get()) {
+            Long id = teacherRecord.toObject().getId();
+            // 关系键的值为不同的整数类型, 以及为 null 时
+            for (Object value : Arrays.asList(id, id.intValue(), null)) {
+                teacherRecord.getMetadataMap().put("id", value);
+                List<Object> expected = new ArrayList<>();
+                for (Student student : students) {
+                    if (关系键匹配(student.getTeacherId(), value)) {
+                        expected.add(student);
+                    }
+                }
+                Assert.assertEquals(expected, relationSubQuery.filterBatchRecord(teacherRecord, index));
+                Assert.assertEquals(expected,
+                    relationSubQuery.filterBatchRecord(teacherRecord, studentRecords, students));
+            }
+        }
+    }
+
+    @Test
+    public void 关联关系_索引与逐个比对一致_belongsTo() {
+        RelationSubQuery relationSubQuery = studentModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(studentModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("teacher")
+            .getRelationSubQuery();
+        RecordList<Teacher, Long> teacherRecords = teacherModel.newQuery().orderBy("id").get();
+        List<Teacher> teachers = teacherRecords.toObjectList();
+        // 关系键为 null 的对象, 不与任何记录匹配
+        teachers.get(0).setId(null);
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(teacherRecords, teachers);
+
+        for (Record<Student, Long> studentRecord : studentModel.newQuery().orderBy("id").get()) {
+            Long teacherId = studentRecord.toObject().getTeacherId();
+            // 外键的值为不同的整数类型, 以及为 null 时
+            for (Object value : Arrays.asList(teacherId, teacherId.intValue(), teacherId.shortValue(), null)) {
+                studentRecord.getMetadataMap().put("teacher_id", value);
+                List<Object> expected = new ArrayList<>();
+                for (Teacher teacher : teachers) {
+                    if (关系键匹配(teacher.getId(), value)) {
+                        expected.add(teacher);
+                    }
+                }
+                Assert.assertEquals(expected, relationSubQuery.filterBatchRecord(studentRecord, index));
+                Assert.assertEquals(expected,
+                    relationSubQuery.filterBatchRecord(studentRecord, teacherRecords, teachers));
+            }
+        }
+    }
+
+    @Test
+    public void 关联关系_索引与逐个比对一致_belongsToMany() {
+        RelationSubQuery relationSubQuery = teacherModel.getGaarasonDataSource()
+            .getContainer()
+            .getBean(ModelShadowProvider.class)
+            .get(teacherModel)
+            .getEntityMember()
+            .getFieldRelationMemberByFieldName("studentsBelongsToMany")
+            .getRelationSubQuery();
+        RecordList<Teacher, Long> teacherRecords = teacherModel.newQuery().orderBy("id").get();
+        RecordList<?, ?> studentRecords = relationSubQuery.dealBatch(teacherRecords.getMetadata(),
+            BuilderAnyWrapper.empty(), BuilderAnyWrapper.empty());
+        List<?> students = studentRecords.toObjectList();
+        Map<Object, List<Object>> index = relationSubQuery.indexBatchRecord(studentRecords, students);
+        List<RelationshipStudentTeacher> relations = relationshipStudentTeacherModel.newQuery()
+            .get()
+            .toObjectList();
+        Assert.assertFalse(index.isEmpty());
+
+        for (Record<Teacher, Long> teacherRecord : teacherRecords) {
+            Long id = teacherRecord.toObject().getId();
+            // 逐个比对中间表, 筛选关联当前记录的目标对象
+            List<Object> expected = new ArrayList<>();
+            for (Object obj : students) {
+                Student student = (Student) obj;
+                for (RelationshipStudentTeacher relation : relations) {
+                    if (关系键匹配(relation.getTeacherId(), id) && 关系键匹配(relation.getStudentId(), student.getId())) {
+                        expected.add(student);
+                        break;
+                    }
+                }
+            }
+            // 关系键的值为不同的整数类型时
+            for (Object value : Arrays.asList(id, id.intValue())) {
+                teacherRecord.getMetadataMap().put("id", value);
+                Assert.assertEquals(expected, relationSubQuery.filterBatchRecord(teacherRecord, index));
+                Assert.assertEquals(expected,
+                    relationSubQuery.filterBatchRecord(teacherRecord, studentRecords, students));
+            }
+            // 关系键为 null 时
+            teacherRecord.getMetadataMap().put("id", null);
+            Assert.assertTrue(relationSubQuery.filterBatchRecord(teacherRecord, index).isEmpty());
+        }
+    }
+
+    @Test
+    public void 关联关系_预加载与逐个查询一致() {
+        List<Teacher> teachers = teacherModel.newQuery()
+            .with(Teacher::getStudents)
+            .with(Teacher::getStudentsBelongsToMany)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        Assert.assertFalse(teachers.isEmpty());
+        for (Teacher teacher : teachers) {
+            Set<Long> expectedStudentIds = new HashSet<>(
+                studentModel.newQuery().where("teacher_id", teacher.getId()).get().toList(e -> e.toObject().getId()));
+            Set<Long> studentIds = new HashSet<>();
+            teacher.getStudents().forEach(student -> studentIds.add(student.getId()));
+            Assert.assertEquals(expectedStudentIds, studentIds);
+
+            Set<Long> expectedBelongsToManyIds = new HashSet<>();
+            for (RelationshipStudentTeacher relation : relationshipStudentTeacherModel.newQuery()
+                .where("teacher_id", teacher.getId())
+                .get()
+                .toObjectList()) {
+                if (studentModel.newQuery().where("id", relation.getStudentId()).first() != null) {
+                    expectedBelongsToManyIds.add(relation.getStudentId());
+                }
+            }
+            Set<Long> belongsToManyIds = new HashSet<>();
+            teacher.getStudentsBelongsToMany().forEach(student -> belongsToManyIds.add(student.getId()));
+            Assert.assertEquals(expectedBelongsToManyIds, belongsToManyIds);
+        }
+
+        List<Student> students = studentModel.newQuery().with(Student::getTeacher).orderBy("id").get().toObjectList();
+        Assert.assertFalse(students.isEmpty());
+        for (Student student : students) {
+            Record<Teacher, Long> teacherRecord = teacherModel.newQuery().where("id", student.getTeacherId()).first();
+            Assert.assertEquals(teacherRecord == null ? null : teacherRecord.toObject().getId(),
+                student.getTeacher() == null ? null : student.getTeacher().getId());
+        }
+    }
+
+    @Test
+    public void 关联关系_标识映射() {
+        List<Student> expectedStudents = studentModel.newQuery()
+            .with("teacher")
+            .orderBy("id")
+            .get()
+            .toObjectList();
+
+        try (IdentityMap.Scope ignored = IdentityMap.open()) {
+            Assert.assertNotNull(IdentityMap.current());
+            // 预先载入部分父表记录
+            Assert.assertEquals(2, teacherModel.findMany(6, 8).size());
+
+            List<Student> students = studentModel.newQuery().with("teacher").orderBy("id").get().toObjectList();
+            Assert.assertEquals(expectedStudents.toString(), students.toString());
+
+            Teacher teacher = teacherModel.findOrFail(6).toObject();
+            Assert.assertEquals(teacherModel.findOrFail(6).toObject().toString(), teacher.toString());
+            // 部分命中时, 顺序与直接查询时一致
+            Assert.assertEquals(teacherModel.newQuery().whereIn("id", 1, 2, 6, 7).get().toObjectList().toString(),
+                teacherModel.findMany(1, 2, 6, 7).toObjectList().toString());
+
+            // 发生更新后, 不再使用过期的记录
+            teacherModel.newQuery().where("id", 6).data("name", "identity").update();
+            Assert.assertEquals("identity", teacherModel.findOrFail(6).toObject().getName());
+            Assert.assertEquals("identity",
+                studentModel.newQuery().with("teacher").where("id", 1).firstOrFail().toObject().getTeacher().getName());
+
+            // 原生sql以及批量执行的写操作, 同样不再使用过期的记录
+            teacherModel.nativeExecute("update teacher set name = ? where id = ?", Arrays.asList("native", 6));
+            Assert.assertEquals("native", teacherModel.findOrFail(6).toObject().getName());
+            teacherModel.nativeExecuteBatch("update teacher set name = ? where id = ?",
+                Collections.singletonList(Arrays.asList("batch", 6)), 10);
+            Assert.assertEquals("batch", teacherModel.findOrFail(6).toObject().getName());
+        }
+        Assert.assertNull(IdentityMap.current());
+    }
+
+    @Test
+    public void 关联关系_标识映射_事务回滚() {
+        String name = teacherModel.findOrFail(6).toObject().getName();
+        // 作用域在事务之外开启
+        try (IdentityMap.Scope ignored = IdentityMap.open()) {
+            Assert.assertEquals(name, teacherModel.findOrFail(6).toObject().getName());
+            try {
+                teacherModel.newQuery().transaction(() -> {
+                    teacherModel.newQuery().where("id", 6).data("name", "rollback").update();
+                    // 事务中读取的记录, 进入标识映射
+                    Assert.assertEquals("rollback", teacherModel.findOrFail(6).toObject().getName());
+                    throw new RuntimeException("业务上抛了个异常");
+                }, 1);
+            } catch (RuntimeException e) {
+            }
+            // 回滚之后, 不再使用事务中读取的记录
+            Assert.assertEquals(name, teacherModel.findOrFail(6).toObject().getName());
+            Assert.assertEquals(name,
+                studentModel.newQuery().with("teacher").where("teacher_id", 6).firstOrFail().toObject().getTeacher()
+                    .getName());
+        }
+    }
+
+    @Test
+    public void 关联关系_流式获取时不支持() {
+        Assert.assertThrows(OperationNotSupportedException.class,
+            () -> studentModel.newQuery().with("teacher").cursor());
+        Assert.assertThrows(OperationNotSupportedException.class,
+            () -> studentModel.newQuery().withJoin("teacher").stream(2));
+    }
+
+    @Test
+    public void 关联关系_join方式() {
+        List<Student> expectedStudents = studentModel.newQuery()
+            .with("teacher")
+            .with(Student::getSelf)
+            .where("age", ">", 10)
+            .orderBy("id")
+            .get()
+            .toObjectList();
+
+        RecordList<Student, Long> records = studentModel.newQuery()
+            .withJoin("teacher")
+            .withJoin(Student::getSelf)
+            .where("age", ">", 10)
+            .orderBy("id")
+            .get();
+        // 目标表的列已被分离
+        for (Record<Student, Long> record : records) {
+            Assert.assertTrue(record.getMetadataMap().keySet().stream().noneMatch(key -> key.startsWith("_join_")));
+        }
+        Assert.assertEquals(expectedStudents.toString(), records.toObjectList().toString());
+
+        // 目标表的列按目标模型的字段转化, 与直接查询目标表的结果一致
+        Record<?, ?> joinedTeacher = records.get(0).getRelationMap().get("teacher").joinedRecordList.get(0);
+        Map<String, Object> teacherMetadata = teacherModel.findOrFail(
+            joinedTeacher.getMetadataMap().get("id")).getMetadataMap();
+        Assert.assertEquals(teacherMetadata.keySet(), joinedTeacher.getMetadataMap().keySet());
+        teacherMetadata.forEach((column, value) -> Assert.assertEquals(value,
+            joinedTeacher.getMetadataMap().get(column)));
+
+        // 单条记录, 以及目标的再一级关联
+        Student student = studentModel.newQuery()
+            .withJoin("teacher", builder -> builder, record -> record.with("students"))
+            .where("id", 1)
+            .firstOrFail()
+            .toObject();
+        Assert.assertNotNull(student.getTeacher());
+        Assert.assertEquals(6, student.getTeacher().getId().intValue());
+        Assert.assertEquals(studentModel.newQuery().where("teacher_id", 6).count().longValue(),
+            student.getTeacher().getStudents().size());
+
+        // 查询构造器约束, 未关联到目标时为 null
+        List<Student> students = studentModel.newQuery()
+            .withJoin("teacher", builder -> builder.where("id", "<>", 6), RecordWrapper.empty())
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        Assert.assertNull(students.get(0).getTeacher());
+        Assert.assertEquals(studentModel.newQuery()
+            .with("teacher", builder -> builder.where("id", "<>", 6))
+            .orderBy("id")
+            .get()
+            .toObjectList()
+            .toString(), students.toString());
+
+        // 不适用时, 与 with 一致, 且查询构造器包装仅执行一次
+        int[] executed = {0};
+        List<Student> students2 = studentModel.newQuery()
+            .withJoin("teacher", builder -> {
+                executed[0]++;
+                return builder.select("id", "name");
+            }, RecordWrapper.empty())
+            .orderBy("id")
+            .get()
+            .toObjectList();
+        Assert.assertEquals("谭明佳", students2.get(0).getTeacher().getName());
+        Assert.assertNull(students2.get(0).getTeacher().getAge());
+        Assert.assertEquals(1, executed[0]);
+
+        // 存在 group 时, 与 with 一致
+        List<Student> students3 = studentModel.newQuery()
+            .withJoin("teacher")
+            .select("teacher_id")
+            .group("teacher_id")
+            .orderBy("teacher_id")
+            .get()
+            .toObjectList();
+        Assert.assertEquals(studentModel.newQuery()
+            .with("teacher")
+            .select("teacher_id")
+            .group("teacher_id")
+            .orderBy("teacher_id")
+            .get()
+            .toObjectList()
+            .toString(), students3.toString());
+    }
+
     @Test
     public void 指定select() {
         List<Student> objectList = studentModel.newQuery()
@@ -587,6 +1106,14 @@ protected List<TABLE> getInitTables() {
         assert1(student3);
     }
 
+    /**
+     * 逐个比对时, 关系键的值是否匹配 (均不为 null 且数值相等)
+     */
+    private static boolean 关系键匹配(Object value, Object targetValue) {
+        return value != null && targetValue != null &&
+            ((Number) value).longValue() == ((Number) targetValue).longValue();
+    }
+
     private void assert1(Student student3) {
         System.out.println(student3);
         Assert.assertEquals(student3.getId().intValue(), 1);
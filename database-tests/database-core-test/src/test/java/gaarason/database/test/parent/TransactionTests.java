@@ -13,6 +13,7 @@
 import org.junit.runners.MethodSorters;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
@@ -38,6 +39,25 @@ protected GaarasonDataSource getGaarasonDataSource() {
     protected List<TABLE> getInitTables() {
         return Arrays.asList(TABLE.student);
     }
+
+    @Test
+    public void 事物_同一连接复用预执行对象() {
+        studentModel.newQuery().transaction(() -> {
+            // 相同的sql, 复用同一个预执行对象
+            for (int i = 1; i <= 3; i++) {
+                studentModel.newQuery().where("id", i).data("name", "name" + i).update();
+                Assert.assertEquals("name" + i, studentModel.findOrFail(i).toObject().getName());
+            }
+            Integer id = studentModel.newQuery()
+                .value(Collections.singletonMap("name", (Object) "new"))
+                .insertGetId();
+            Assert.assertNotNull(id);
+            Assert.assertEquals("new", studentModel.findOrFail(id).toObject().getName());
+        }, 1);
+        Assert.assertEquals("name3", studentModel.findOrFail(3).toObject().getName());
+        Assert.assertEquals(11, studentModel.newQuery().count().intValue());
+    }
+
     @Test
     public void 事物_单个数据连接可嵌套事物_子事务独立提交() {
         // 1层事物
@@ -346,6 +366,25 @@ protected List<TABLE> getInitTables() {
         System.out.println("所有线程结束");
     }
 
+    @Test
+    public void 事物_读取结果集期间嵌套执行相同的sql() {
+        String sql = "select * from student where id <= ?";
+        studentModel.newQuery().transaction(() -> {
+            // 缓存的预执行对象使用中, 嵌套执行时不应关闭外层的结果集
+            int rows = studentModel.nativeQueryResultSet(sql, Collections.singletonList(3), resultSet -> {
+                int count = 0;
+                while (resultSet.next()) {
+                    Assert.assertEquals(3, studentModel.nativeQueryList(sql, Collections.singletonList(3)).size());
+                    count++;
+                }
+                return count;
+            });
+            Assert.assertEquals(3, rows);
+            // 归还后, 仍可复用
+            Assert.assertEquals(3, studentModel.nativeQueryList(sql, Collections.singletonList(3)).size());
+        }, 1);
+    }
+
     @Test
     public void 事物_lock_in_share_mode() {
         studentModel.newQuery().transaction(() -> {